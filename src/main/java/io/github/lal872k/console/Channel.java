@@ -0,0 +1,179 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console;
+
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.ScrollbackPolicy;
+import java.awt.Color;
+
+/**
+ * A named stream of output kept apart from the rest, made with 
+ * <code>{@link lal.console.Console#channel(String)}</code>. Each channel has its own 
+ * <code>{@link lal.console.output.Scrollback}</code> with its own 
+ * <code>{@link lal.console.output.ScrollbackPolicy}</code>, and gets its own tab in the window, 
+ * so a noisy part of a program can print as much as it wants without burying everything else.
+ * <p>
+ * Printing to a channel only adds the text to its scrollback. Only the channel whose tab is 
+ * picked is laid out and drawn, once per frame (see 
+ * <code>{@link lal.console.ui.Frame#FRAME_RATE}</code>), so hidden channels cost nothing but the 
+ * memory their lines take. Channel output isn't sent to the 
+ * <code>{@link lal.console.output.OutputListener}s</code>, and a headless console keeps it in 
+ * the channel without writing it to its stream.
+ * <p>
+ * Every method can be called from any thread.
+ * @author L. Arthur Lewis II
+ */
+public final class Channel {
+    
+    /**
+     * How many lines a channel keeps before the oldest are removed, unless it is given a 
+     * different <code>ScrollbackPolicy</code>.
+     */
+    public static final int DEFAULT_LINES = 10000;
+    
+    private final Console console;
+    private final Display display;
+    private final String name;
+    private final Scrollback scrollback;
+    private volatile ScrollbackPolicy scrollbackPolicy = ScrollbackPolicy.lines(DEFAULT_LINES);
+    
+    Channel(Console console, Display display, String name){
+        this.console = console;
+        this.display = display;
+        this.name = name;
+        scrollback = new Scrollback();
+    }
+    
+    /**
+     * Adds text to the end of the channel in the normal colors.
+     * @param text text value.
+     */
+    public void print(String text){
+        append(text, console.getDrawPreference().getStyle(MessageType.NORMAL));
+    }
+    
+    /**
+     * Adds text and a "\n" to the end of the channel in the normal colors.
+     * @param text text value.
+     */
+    public void println(String text){
+        print(text+"\n");
+    }
+    
+    /**
+     * Adds text to the end of the channel.
+     * @param text text value.
+     * @param foreground the foreground color of the text.
+     * @param background the background color of the text.
+     */
+    public void print(String text, Color foreground, Color background){
+        append(text, StyleTable.getShared().intern(foreground, background, MessageType.NORMAL));
+    }
+    
+    /**
+     * Adds text and a "\n" to the end of the channel.
+     * @param text text value.
+     * @param foreground the foreground color of the text.
+     * @param background the background color of the text.
+     */
+    public void println(String text, Color foreground, Color background){
+        print(text+"\n", foreground, background);
+    }
+    
+    /**
+     * Adds text to the end of the channel in the error colors.
+     * @param text text value.
+     */
+    public void printError(String text){
+        append(text, console.getDrawPreference().getStyle(MessageType.ERROR));
+    }
+    
+    /**
+     * Adds text and a "\n" to the end of the channel in the error colors.
+     * @param text text value.
+     */
+    public void printlnError(String text){
+        printError(text+"\n");
+    }
+    
+    private void append(String text, TextStyle style){
+        if (text.isEmpty()){
+            return;
+        }
+        synchronized (scrollback){
+            scrollback.append(text, style);
+            scrollback.trim(scrollbackPolicy);
+        }
+        display.channelChanged(this);
+    }
+    
+    /**
+     * Removes every line in the channel.
+     */
+    public void clear(){
+        scrollback.clear();
+        display.channelChanged(this);
+    }
+    
+    /**
+     * @return the name of the channel, shown on its tab.
+     */
+    public String getName(){
+        return name;
+    }
+    
+    /**
+     * @return the lines printed to the channel.
+     */
+    public Scrollback getScrollback(){
+        return scrollback;
+    }
+    
+    /**
+     * @return the amount of lines in the channel.
+     */
+    public int getLineCount(){
+        return scrollback.getLineCount();
+    }
+    
+    /**
+     * The <code>ScrollbackPolicy</code> decides how much of the channel is kept before the oldest 
+     * lines are removed. The default keeps <code>{@link #DEFAULT_LINES}</code> lines.
+     * @param scrollbackPolicy scrollbackPolicy value.
+     */
+    public void setScrollbackPolicy(ScrollbackPolicy scrollbackPolicy){
+        this.scrollbackPolicy = scrollbackPolicy;
+        if (scrollback.trim(scrollbackPolicy)>0){
+            display.channelChanged(this);
+        }
+    }
+    
+    /**
+     * @return decides how much of the channel is kept.
+     */
+    public ScrollbackPolicy getScrollbackPolicy(){
+        return scrollbackPolicy;
+    }
+    
+}
@@ -23,16 +23,49 @@
  */
 package io.github.lal872k.console;
 
+import io.github.lal872k.console.headless.HeadlessDisplay;
 import io.github.lal872k.console.input.InputHandler;
 import io.github.lal872k.console.input.InputListener;
+import io.github.lal872k.console.output.ConsoleOutputStream;
+import io.github.lal872k.console.output.ExportFormat;
+import io.github.lal872k.console.output.Exporter;
+import io.github.lal872k.console.output.FilteredLines;
+import io.github.lal872k.console.output.Highlighter;
+import io.github.lal872k.console.output.LineFilter;
+import io.github.lal872k.console.output.LineStore;
 import io.github.lal872k.console.output.OutputHandler;
 import io.github.lal872k.console.output.OutputListener;
+import io.github.lal872k.console.output.OutputQueue;
+import io.github.lal872k.console.output.RateLimiter;
+import io.github.lal872k.console.output.ScrollbackPolicy;
+import io.github.lal872k.console.output.SessionFile;
 import io.github.lal872k.console.ui.AutoComplete;
+import io.github.lal872k.console.ui.FlushScheduler;
 import io.github.lal872k.console.ui.Frame;
 import io.github.lal872k.console.ui.preferences.DefaultDrawPreferences;
 import io.github.lal872k.console.ui.preferences.DrawPreference;
+import io.github.lal872k.console.ui.preferences.HeadlessDrawPreferences;
 import io.github.lal872k.console.ui.preferences.exceptions.InvalidDrawPreferences;
 import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * This is the main class for this whole project. It contains a 
@@ -52,22 +85,102 @@ import java.awt.Color;
  * and remove that extension from any console using its 
  * <code>{@link lal.console.extensions.ConsoleExtension#addToConsole(Console)}</code> and 
  * <code>{@link lal.console.extensions.ConsoleExtension#removeFromConsole(Console)}</code> methods.
+ * <p>
+ * A headless console, made with <code>{@link #headless()}</code> or 
+ * <code>{@link #Console(Reader, Writer)}</code>, has the same print and listener methods but 
+ * writes its output to a stream and reads its input from one instead of using a window (see 
+ * <code>{@link lal.console.headless.HeadlessDisplay}</code>). It never loads any 
+ * <code>Swing</code> classes.
  * @author L. Arthur Lewis II
  */
 public class Console {
     
     private DrawPreference dp;
-    private final Frame output;
+    private final Display output;
     private final InputHandler ih;
     private final OutputHandler oh;
     
+    private volatile boolean framePaced = false;
+    
+    // the least severe type of message shown
+    private volatile MessageType minimumLevel = MessageType.INFO;
+    
+    private volatile boolean collapseRepeats = false;
+    // the last line printed and how many times in a row, only used when collapsing repeats
+    private final Object repeatLock = new Object();
+    private String repeatText;
+    private TextStyle repeatStyle;
+    private int repeatHash;
+    private int repeats;
+    private Region repeatRegion;
+    
+    // the named channels in the order they were made
+    private final Map<String, Channel> channels = new LinkedHashMap<>();
+    
+    private volatile Highlighter highlighter;
+    private final Highlighter.Runs highlighted = this::draw;
+    
+    private volatile RateLimiter rateLimiter;
+    private ScheduledFuture<?> summaryTask;
+    // prints the suppressed line summaries of every console
+    private static ScheduledExecutorService summaryTimer;
+    private static ExecutorService exporter;
+    
+    private ConsoleOutputStream outputStream;
+    private PrintStream printStream;
+    
     public Console(){
-        dp = new DefaultDrawPreferences();
-        output = new Frame(this, dp);
+        this(new DefaultDrawPreferences(), new FlushScheduler());
+    }
+    
+    /**
+     * Makes a console drawn by a scheduler shared with other consoles, see 
+     * <code>{@link lal.console.ConsoleManager}</code>.
+     */
+    Console(DrawPreference dp, FlushScheduler scheduler){
+        this.dp = dp;
+        output = new Frame(this, dp, scheduler);
         ih = new InputHandler(output, this);
         oh = new OutputHandler(this);
     }
     
+    /**
+     * Makes a headless console that writes its output to <code>out</code> and handles every line 
+     * read from <code>in</code> as input once <code>{@link #show()}</code> is called. No ANSI 
+     * color codes are written.
+     * @param in where the input comes from, <code>null</code> for no input.
+     * @param out where the output is written.
+     */
+    public Console(Reader in, Writer out){
+        this(in, out, false);
+    }
+    
+    /**
+     * Makes a headless console that writes its output to <code>out</code> and handles every line 
+     * read from <code>in</code> as input once <code>{@link #show()}</code> is called. It uses 
+     * <code>{@link lal.console.ui.preferences.HeadlessDrawPreferences}</code>.
+     * @param in where the input comes from, <code>null</code> for no input.
+     * @param out where the output is written.
+     * @param ansi true to write text in other colors with ANSI color codes.
+     */
+    public Console(Reader in, Writer out, boolean ansi){
+        dp = new HeadlessDrawPreferences();
+        output = new HeadlessDisplay(this, dp, in, out, ansi);
+        ih = new InputHandler(output, this);
+        oh = new OutputHandler(this);
+    }
+    
+    /**
+     * Makes a headless console that reads from <code>System.in</code> and writes to 
+     * <code>System.out</code>. ANSI color codes are written when the program is run in a 
+     * terminal.
+     * @return the console.
+     */
+    public static Console headless(){
+        return new Console(new InputStreamReader(System.in), new OutputStreamWriter(System.out), 
+                System.console()!=null);
+    }
+    
     /**
      * Appends text to the end of the <code>JTextPane</code> with the specified colors. If the 
      * <code>JScrollPane</code>'s vertical scroll bar is at the bottom then it will stay at 
@@ -79,15 +192,153 @@ public class Console {
      * @param background the background color of the text.
      */
     public void print(String text, Color foreground, Color background) {
-        boolean moveToBot = false;
-        if (output.atBottomOfOutput()){
-            moveToBot = true;
+        if (!isEnabled(MessageType.NORMAL)){
+            return;
+        }
+        boolean shown = allow(text, MessageType.NORMAL);
+        if (shown){
+            append(text, StyleTable.getShared().intern(foreground, background, MessageType.NORMAL));
+        }
+        alert(text, MessageType.NORMAL, foreground, background, shown);
+    }
+    
+    /**
+     * @return true if the text can be drawn, false if the <code>RateLimiter</code> suppressed it.
+     */
+    private boolean allow(String text, MessageType type){
+        RateLimiter limiter = rateLimiter;
+        return limiter==null || limiter.tryPrint(text, type);
+    }
+    
+    /**
+     * Tells the listeners about the text. Suppressed text only goes to the listeners that hear 
+     * everything, and the <code>Message</code> isn't made if there is no one to tell.
+     */
+    private void alert(String text, MessageType type, Color foreground, Color background, 
+            boolean shown){
+        if (shown ? oh.hasListeners() : oh.hasUnlimitedListeners()){
+            oh.alertListeners(new Message(removeNewLines(text), type, foreground, background), 
+                    shown);
         }
-        output.appendToOutput(text, foreground, background);
-        oh.alertListeners(new Message(text.replaceAll("\n", ""), MessageType.NORMAL, foreground, background));
-        if (moveToBot){
-            output.moveToBottomOfOutput();
+    }
+    
+    // the text without any '\n', the same string if it doesn't have one
+    static String removeNewLines(String text){
+        int at = text.indexOf('\n');
+        if (at<0){
+            return text;
+        }
+        StringBuilder line = new StringBuilder(text.length()-1);
+        int from = 0;
+        while (at>=0){
+            line.append(text, from, at);
+            from = at+1;
+            at = text.indexOf('\n', from);
+        }
+        return line.append(text, from, text.length()).toString();
+    }
+    
+    /**
+     * Appends the text and a "\n" in the style. When nothing needs the whole line as one string 
+     * (there is no rate limiter, highlighter, collapsing of repeats or frame pacing) the line 
+     * goes straight to the display without being joined, so a line that is already built makes 
+     * no garbage. The caller checks the minimum level.
+     */
+    private void printLine(String text, MessageType type, TextStyle style){
+        if (rateLimiter!=null || highlighter!=null || collapseRepeats || framePaced){
+            String line = text + "\n";
+            boolean shown = allow(line, type);
+            if (shown){
+                append(line, style);
+            }
+            alert(line, type, style.getForeground(), style.getBackground(), shown);
+            return;
         }
+        output.appendLine(text, style);
+        alert(text, type, style.getForeground(), style.getBackground(), true);
+    }
+    
+    /**
+     * Adds the text to the frame. If the console is frame paced the text is queued and added with 
+     * everything else printed during that frame, otherwise it is added right away.
+     * @param text text value.
+     * @param style the style of the text.
+     */
+    private void append(String text, TextStyle style){
+        if (collapseRepeats){
+            synchronized (repeatLock){
+                if (!collapse(text, style)){
+                    send(text, style);
+                }
+            }
+            return;
+        }
+        send(text, style);
+    }
+    
+    /**
+     * If the text is one whole line that is the same as the line printed before it, with the 
+     * same style, the counter at the end of that line goes up instead of the text being added. 
+     * The hashes are compared before the text. The counter is a 
+     * <code>{@link lal.console.Region}</code>, so however many repeats come in during a frame it 
+     * is only drawn once. Must hold the repeat lock.
+     * @return true if the text was a repeat and has been counted.
+     */
+    private boolean collapse(String text, TextStyle style){
+        int end = text.length()-1;
+        if (end<0 || text.indexOf('\n')!=end || text.indexOf('\r')>=0){
+            repeatText = null;
+            repeatRegion = null;
+            return false;
+        }
+        int hash = text.hashCode();
+        if (repeatText!=null && hash==repeatHash && style==repeatStyle && text.equals(repeatText)){
+            String line = text.substring(0, end);
+            if (repeatRegion==null){
+                // the first repeat, the line printed before becomes a region if it is still last
+                long last = output.getLastLine();
+                if (last>=0 && line.equals(output.getScrollback().getText(last))){
+                    repeatRegion = new Region(output, last, line, style);
+                }
+            }
+            if (repeatRegion!=null){
+                repeats++;
+                repeatRegion.update(line + " (x" + repeats + ")");
+                return true;
+            }
+        }
+        repeatText = text;
+        repeatHash = hash;
+        repeatStyle = style;
+        repeats = 1;
+        repeatRegion = null;
+        return false;
+    }
+    
+    // forgets the last line so the next line isn't counted as a repeat of it
+    private void resetRepeats(){
+        synchronized (repeatLock){
+            repeatText = null;
+            repeatRegion = null;
+        }
+    }
+    
+    // runs the text through the highlighter if there is one
+    private void send(String text, TextStyle style){
+        Highlighter current = highlighter;
+        if (current!=null){
+            current.highlight(text, style, highlighted);
+            return;
+        }
+        draw(text, style);
+    }
+    
+    private void draw(String text, TextStyle style){
+        if (framePaced){
+            output.queueOutput(text, style);
+            return;
+        }
+        output.appendToOutput(text, style);
     }
     
     /**
@@ -101,8 +352,7 @@ public class Console {
      * @param foreground the foreground color of the text.
      */
     public void print(String text, Color foreground) {
-        Message msg = dp.styleText(text, MessageType.NORMAL);
-        print(text, foreground, msg.getBackground());
+        print(text, foreground, dp.getStyle(MessageType.NORMAL).getBackground());
     }
     
     /**
@@ -115,8 +365,7 @@ public class Console {
      * @param background the background color of the text.
      */
     public void printWithBackground(String text, Color background) {
-        Message msg = dp.styleText(text, MessageType.NORMAL);
-        print(text, msg.getTextColor(), background);
+        print(text, dp.getStyle(MessageType.NORMAL).getForeground(), background);
     }
     
     /**
@@ -128,8 +377,7 @@ public class Console {
      * @param text text value.
      */
     public void print(String text) {
-        Message msg = dp.styleText(text, MessageType.NORMAL);
-        print(text, msg.getTextColor(), msg.getBackground());
+        print(MessageType.NORMAL, text);
     }
     
     /**
@@ -143,7 +391,10 @@ public class Console {
      * @param background the background for the text.
      */
     public void println(String text, Color foreground, Color background) {
-        print(text+"\n", foreground, background);
+        if (isEnabled(MessageType.NORMAL)){
+            printLine(text, MessageType.NORMAL, 
+                    StyleTable.getShared().intern(foreground, background, MessageType.NORMAL));
+        }
     }
     
     
@@ -158,7 +409,7 @@ public class Console {
      * @param foreground the foreground for the text.
      */
     public void println(String text, Color foreground) {
-        print(text+"\n", foreground);
+        println(text, foreground, dp.getStyle(MessageType.NORMAL).getBackground());
     }
     
     /**
@@ -172,7 +423,7 @@ public class Console {
      * @param background the background for the text.
      */
     public void printlnWithBackground(String text, Color background) {
-        printWithBackground(text+"\n", background);
+        println(text, dp.getStyle(MessageType.NORMAL).getForeground(), background);
     }
     
     /**
@@ -185,7 +436,7 @@ public class Console {
      * @param text text value.
      */
     public void println(String text) {
-        print(text+"\n");
+        println(MessageType.NORMAL, text);
     }
     
     /**
@@ -206,16 +457,7 @@ public class Console {
      * @param text text value.
      */
     public void printError(String text) {
-        boolean moveToBot = false;
-        if (output.atBottomOfOutput()){
-            moveToBot = true;
-        }
-        Message msg = dp.styleText(text.replaceAll("\n", ""), MessageType.ERROR);
-        output.appendToOutput(text, msg.getTextColor(), msg.getBackground());
-        oh.alertListeners(msg);
-        if (moveToBot){
-            output.moveToBottomOfOutput();
-        }
+        print(MessageType.ERROR, text);
     }
     
     /**
@@ -228,7 +470,217 @@ public class Console {
      * @param text text value.
      */
     public void printlnError(String text) {
-        printError(text+"\n");
+        println(MessageType.ERROR, text);
+    }
+    
+    /**
+     * Appends text to the end of the output in the colors of its type (specified by the 
+     * <code>DrawPreference</code>), if the type is at or above the minimum level. All the 
+     * <code>{@link lal.console.output.OutputListener}s</code> will be notified of the message.
+     * @param type the type, or level, of the text.
+     * @param text text value.
+     */
+    public void print(MessageType type, String text) {
+        if (!type.isAtLeast(minimumLevel)){
+            return;
+        }
+        TextStyle style = dp.getStyle(type);
+        boolean shown = allow(text, type);
+        if (shown){
+            append(text, style);
+        }
+        alert(text, type, style.getForeground(), style.getBackground(), shown);
+    }
+    
+    /**
+     * Appends text and a "\n" to the end of the output in the colors of its type, if the type is 
+     * at or above the minimum level.
+     * @param type the type, or level, of the text.
+     * @param text text value.
+     */
+    public void println(MessageType type, String text) {
+        if (isEnabled(type)){
+            printLine(text, type, dp.getStyle(type));
+        }
+    }
+    
+    /**
+     * Appends a line made by the supplier, only calling it if the type is at or above the 
+     * minimum level, so a line that wouldn't be shown is never built:
+     * <code>console.println(MessageType.DEBUG, () -&gt; "state: " + dump())</code>.
+     * @param type the type, or level, of the text.
+     * @param text makes the text.
+     */
+    public void println(MessageType type, Supplier<String> text) {
+        if (isEnabled(type)){
+            printLine(text.get(), type, dp.getStyle(type));
+        }
+    }
+    
+    /**
+     * Appends a line with each <code>{}</code> in the pattern replaced by the argument, only 
+     * building it if the type is at or above the minimum level.
+     * @param type the type, or level, of the text.
+     * @param pattern the text with a <code>{}</code> where the argument goes.
+     * @param arg the argument.
+     */
+    public void println(MessageType type, String pattern, Object arg) {
+        if (isEnabled(type)){
+            printLine(format(pattern, arg), type, dp.getStyle(type));
+        }
+    }
+    
+    /**
+     * Appends a line with each <code>{}</code> in the pattern replaced by the next argument, only 
+     * building it if the type is at or above the minimum level.
+     * @param type the type, or level, of the text.
+     * @param pattern the text with a <code>{}</code> where each argument goes.
+     * @param arg1 the first argument.
+     * @param arg2 the second argument.
+     */
+    public void println(MessageType type, String pattern, Object arg1, Object arg2) {
+        if (isEnabled(type)){
+            printLine(format(pattern, arg1, arg2), type, dp.getStyle(type));
+        }
+    }
+    
+    /**
+     * Appends a line with each <code>{}</code> in the pattern replaced by the next argument, only 
+     * building it if the type is at or above the minimum level. The overloads with one and two 
+     * arguments don't make an array for the arguments.
+     * @param type the type, or level, of the text.
+     * @param pattern the text with a <code>{}</code> where each argument goes.
+     * @param args the arguments, any past the last <code>{}</code> are left out.
+     */
+    public void println(MessageType type, String pattern, Object... args) {
+        if (isEnabled(type)){
+            printLine(format(pattern, args), type, dp.getStyle(type));
+        }
+    }
+    
+    // replaces each "{}" with the next argument, any "{}" without one is kept
+    static String format(String pattern, Object... args){
+        StringBuilder text = new StringBuilder(pattern.length()+16*args.length);
+        int from = 0;
+        for (Object arg : args){
+            int at = pattern.indexOf("{}", from);
+            if (at<0){
+                break;
+            }
+            text.append(pattern, from, at).append(arg);
+            from = at+2;
+        }
+        return text.append(pattern, from, pattern.length()).toString();
+    }
+    
+    /**
+     * Text of a type less severe than the minimum level is thrown away before it is built, 
+     * without telling the listeners. The default is <code>INFO</code>, which shows everything 
+     * but <code>TRACE</code> and <code>DEBUG</code> (<code>NORMAL</code> is as severe as 
+     * <code>INFO</code>).
+     * @param minimumLevel the least severe type shown.
+     */
+    public void setMinimumLevel(MessageType minimumLevel){
+        this.minimumLevel = minimumLevel;
+    }
+    
+    /**
+     * @return the least severe type shown.
+     */
+    public MessageType getMinimumLevel(){
+        return minimumLevel;
+    }
+    
+    /**
+     * @param type a type of message.
+     * @return true if text of the type is shown, so it is worth building.
+     */
+    public boolean isEnabled(MessageType type){
+        return type.isAtLeast(minimumLevel);
+    }
+    
+    /**
+     * Adds an empty line to the end of the output that can be changed later with 
+     * <code>{@link lal.console.Region#update(String)}</code>, for example to show progress 
+     * without printing a new line every time it changes.
+     * @return the region.
+     */
+    public Region openRegion(){
+        return openRegion("");
+    }
+    
+    /**
+     * Adds a line to the end of the output that can be changed later with 
+     * <code>{@link lal.console.Region#update(String)}</code>. If the last line of the output 
+     * has not been finished with a "\n" the region starts on the next line. The region uses the 
+     * normal colors (specified by the <code>DrawPreference</code>). All the 
+     * <code>{@link lal.console.output.OutputListener}s</code> will be notified of the first text, 
+     * but not of updates.
+     * @param text the first text of the region.
+     * @return the region.
+     */
+    public Region openRegion(String text){
+        TextStyle style = dp.getStyle(MessageType.NORMAL);
+        String line = Region.oneLine(text);
+        if (collapseRepeats){
+            resetRepeats();
+        }
+        Region region = new Region(output, output.openRegion(line, style), line, style);
+        oh.alertListeners(new Message(line, MessageType.NORMAL, 
+                style.getForeground(), style.getBackground()));
+        return region;
+    }
+    
+    /**
+     * Returns an <code>OutputStream</code> that prints everything written to it on this console. 
+     * The bytes are decoded as UTF-8 and kept in a buffer until a line is finished, the stream is 
+     * flushed or the buffer is full, so the console is not printed to once per byte. ANSI color codes in the 
+     * text are drawn as colors (see <code>{@link lal.console.output.ConsoleOutputStream}</code>).
+     * The same stream is returned every time.
+     * @return the stream.
+     */
+    public synchronized ConsoleOutputStream asOutputStream(){
+        if (outputStream==null){
+            outputStream = new ConsoleOutputStream(this);
+        }
+        return outputStream;
+    }
+    
+    /**
+     * Returns a <code>PrintStream</code> that prints to this console through 
+     * <code>{@link #asOutputStream()}</code>. Text shows up once a line is finished or the stream 
+     * is flushed, not one character at a time. The same stream is returned every time.
+     * @return the stream.
+     */
+    public synchronized PrintStream asPrintStream(){
+        if (printStream==null){
+            try {
+                printStream = new PrintStream(asOutputStream(), false, "UTF-8");
+            } catch (UnsupportedEncodingException ex) {
+                // every jvm has UTF-8
+                ex.printStackTrace();
+                printStream = new PrintStream(asOutputStream(), false);
+            }
+        }
+        return printStream;
+    }
+    
+    /**
+     * Removes all of the text from the output, including anything still waiting to be added by a 
+     * frame paced console.
+     */
+    public void clear(){
+        resetRepeats();
+        output.clearOutput();
+    }
+    
+    /**
+     * Removes the oldest lines from the output right away if there are more than the 
+     * <code>{@link lal.console.output.ScrollbackPolicy}</code> allows. This normally happens on 
+     * its own whenever text is added, but can be used after the policy is made smaller.
+     */
+    public void trim(){
+        output.trimOutput();
     }
     
     /**
@@ -264,6 +716,19 @@ public class Console {
         oh.addListener(out);
     }
     
+    /**
+     * Adds this <code>{@link lal.console.output.OutputListener}</code> to the handler.
+     * <p>
+     * Normally a listener is only told about the text that is drawn. A listener that should see 
+     * everything, like one that writes the output to a log file, can be told about the lines a 
+     * <code>{@link lal.console.output.RateLimiter}</code> suppressed too.
+     * @param out output listener
+     * @param everything true to also tell the listener about suppressed lines.
+     */
+    public void addOutputListener(OutputListener out, boolean everything) {
+        oh.addListener(out, everything);
+    }
+    
     /**
      * Removes this <code>{@link lal.console.output.OutputListener}</code> from the handler.
      * <p>
@@ -305,7 +770,8 @@ public class Console {
     }
     
     /**
-     * Makes sure that the frame is visible and the main focus.
+     * Makes sure that the frame is visible and the main focus. A headless console starts reading 
+     * its input.
      */
     public void show() {
         output.show();
@@ -315,7 +781,7 @@ public class Console {
      * @return true if the console is visible and false otherwise.
      */
     public boolean isShowing(){
-        return output.getFrame().isVisible();
+        return output.isShowing();
     }
     
     /**
@@ -323,6 +789,7 @@ public class Console {
      * Once this method is called this instance will be useless.
      */
     public void kill() {
+        setRateLimiter(null);
         output.trash();
     }
     
@@ -365,6 +832,424 @@ public class Console {
         output.setWindowTitle(title);
     }
     
+    /**
+     * When the console is frame paced, text from any of the <code>print()</code> methods is put in 
+     * a queue instead of being added to the <code>JTextPane</code> right away. The queue is added 
+     * to the <code>JTextPane</code> in one batch once every frame (see 
+     * <code>{@link lal.console.ui.Frame#FRAME_RATE}</code>) so printing thousands of lines a 
+     * second will not freeze the window. The <code>OutputListener</code>s are still notified 
+     * right away. This is off by default.
+     * @param framePaced framePaced value.
+     */
+    public void setFramePaced(boolean framePaced){
+        this.framePaced = framePaced;
+    }
+    
+    /**
+     * When the console is frame paced, text from any of the <code>print()</code> methods is put in 
+     * a queue and added to the <code>JTextPane</code> in one batch once every frame.
+     * @return framePaced value.
+     */
+    public boolean isFramePaced(){
+        return framePaced;
+    }
+    
+    /**
+     * Errors and everything else wait in their own lanes while the console is frame paced, and 
+     * the lane with the highest priority is added to the output first (see 
+     * <code>{@link lal.console.output.OutputQueue}</code>). By default errors have a priority of 1 
+     * and everything else 0, so errors show up right away even when the console is flooded with 
+     * normal output. Every type other than <code>ERROR</code> shares the lane of 
+     * <code>NORMAL</code>, so only those two can be given a priority. A headless console doesn't 
+     * queue its output.
+     * @param type the type of text, <code>ERROR</code> or <code>NORMAL</code>.
+     * @param priority the priority of its lane, higher is added first.
+     * @throws IllegalArgumentException if the type shares the lane of <code>NORMAL</code>.
+     */
+    public void setOutputPriority(MessageType type, int priority){
+        OutputQueue.checkLane(type);
+        OutputQueue queue = output.getOutputQueue();
+        if (queue!=null){
+            queue.setPriority(type, priority);
+        }
+    }
+    
+    /**
+     * @param type the type of text, every type other than <code>ERROR</code> has the priority 
+     * of <code>NORMAL</code>.
+     * @return the priority of its lane, higher is added first.
+     */
+    public int getOutputPriority(MessageType type){
+        OutputQueue queue = output.getOutputQueue();
+        return queue==null ? OutputQueue.defaultPriority(type) : queue.getPriority(type);
+    }
+    
+    /**
+     * @param type the type of text.
+     * @return how many prints of that type are waiting to be added to the output.
+     */
+    public int getQueueDepth(MessageType type){
+        OutputQueue queue = output.getOutputQueue();
+        return queue==null ? 0 : queue.getDepth(type);
+    }
+    
+    /**
+     * Shows how far behind the output is.
+     * @param type the type of text.
+     * @return how many milliseconds the oldest text of that type waiting to be added to the 
+     * output has been waiting, 0 if nothing is waiting.
+     */
+    public long getQueueWait(MessageType type){
+        OutputQueue queue = output.getOutputQueue();
+        return queue==null ? 0 : queue.getWait(type);
+    }
+    
+    /**
+     * When repeats are collapsed, a line printed with the same text and colors as the line 
+     * before it is not added again. Instead the line before it gets a counter, like 
+     * <code>"(x1234)"</code>, that goes up with every repeat, so a line printed over and over 
+     * only ever takes one line of output. Only whole lines printed in one call, like with 
+     * <code>println()</code>, are counted. The <code>OutputListener</code>s are still notified 
+     * of every line. A headless console keeps the counter in its scrollback, but can't change 
+     * the line it already wrote. This is off by default.
+     * @param collapseRepeats collapseRepeats value.
+     */
+    public void setCollapseRepeats(boolean collapseRepeats){
+        resetRepeats();
+        this.collapseRepeats = collapseRepeats;
+    }
+    
+    /**
+     * When repeats are collapsed, a line printed with the same text and colors as the line 
+     * before it only makes the counter at the end of that line go up.
+     * @return collapseRepeats value.
+     */
+    public boolean isCollapsingRepeats(){
+        return collapseRepeats;
+    }
+    
+    /**
+     * The <code>{@link lal.console.output.Highlighter}</code> changes the colors of parts of the 
+     * printed text before it is added to the output, see 
+     * <code>{@link lal.console.extensions.highlight.HighlightRules}</code>. The default is 
+     * <code>null</code>.
+     * @param highlighter the highlighter, <code>null</code> for none.
+     */
+    public void setHighlighter(Highlighter highlighter){
+        this.highlighter = highlighter;
+    }
+    
+    /**
+     * @return the highlighter, <code>null</code> if there isn't one.
+     */
+    public Highlighter getHighlighter(){
+        return highlighter;
+    }
+    
+    /**
+     * The <code>{@link lal.console.output.RateLimiter}</code> limits how many lines per second are 
+     * drawn so a loop printing as fast as it can doesn't make the console unusable. Lines over 
+     * the limit are not drawn, instead the amount of them is printed once every 
+     * <code>RateLimiter.SUMMARY_INTERVAL</code> milliseconds. The default is <code>null</code>, 
+     * which draws everything.
+     * @param limiter the rate limiter, <code>null</code> for none.
+     */
+    public synchronized void setRateLimiter(RateLimiter limiter){
+        if (summaryTask!=null){
+            summaryTask.cancel(false);
+            summaryTask = null;
+        }
+        printSuppressed(rateLimiter);
+        rateLimiter = limiter;
+        if (limiter!=null){
+            summaryTask = getSummaryTimer().scheduleWithFixedDelay(() -> printSuppressed(limiter), 
+                    RateLimiter.SUMMARY_INTERVAL, RateLimiter.SUMMARY_INTERVAL, 
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * @return the rate limiter, <code>null</code> if there isn't one.
+     */
+    public RateLimiter getRateLimiter(){
+        return rateLimiter;
+    }
+    
+    private static synchronized ScheduledExecutorService getSummaryTimer(){
+        if (summaryTimer==null){
+            summaryTimer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "Console Rate Limiter");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return summaryTimer;
+    }
+    
+    private static synchronized ExecutorService getExporter(){
+        if (exporter==null){
+            exporter = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "Console Export");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return exporter;
+    }
+    
+    // draws how many lines were suppressed since the last summary, listeners aren't told
+    private void printSuppressed(RateLimiter limiter){
+        long lines = limiter==null ? 0 : limiter.takeSuppressed();
+        if (lines>0){
+            append("[" + lines + (lines==1 ? " line" : " lines") + " suppressed]\n", 
+                    dp.getStyle(MessageType.ERROR));
+        }
+    }
+    
+    /**
+     * The <code>{@link lal.console.output.ScrollbackPolicy}</code> decides how many lines or bytes 
+     * of output are kept. Once the output goes over the limit the oldest lines are removed in one 
+     * batch. The default is <code>ScrollbackPolicy.UNBOUNDED</code> which keeps everything.
+     * @param policy scrollback policy.
+     */
+    public void setScrollbackPolicy(ScrollbackPolicy policy){
+        output.setScrollbackPolicy(policy);
+    }
+    
+    /**
+     * The <code>{@link lal.console.output.ScrollbackPolicy}</code> decides how many lines or bytes 
+     * of output are kept.
+     * @return scrollback policy.
+     */
+    public ScrollbackPolicy getScrollbackPolicy(){
+        return output.getScrollbackPolicy();
+    }
+    
+    /**
+     * @return the amount of lines currently in the output.
+     */
+    public int getScrollbackLines(){
+        return output.getOutputLineCount();
+    }
+    
+    /**
+     * @return the amount of bytes the text currently in the output takes up in memory.
+     */
+    public long getScrollbackBytes(){
+        return output.getOutputBytes();
+    }
+    
+    /**
+     * Moves the lines in the output into a different <code>{@link lal.console.output.LineStore}</code>
+     * and keeps them there from now on. A <code>{@link lal.console.output.MappedLineStore}</code> 
+     * keeps the lines in memory-mapped files instead of on the heap, which is useful for consoles 
+     * that stay open for a long time with a large <code>ScrollbackPolicy</code>. The old store is 
+     * closed.
+     * @param store store the lines are kept in.
+     */
+    public void setScrollbackStore(LineStore store){
+        output.getScrollback().setStore(store);
+    }
+    
+    /**
+     * @return the <code>{@link lal.console.output.LineStore}</code> the lines in the output are 
+     * kept in.
+     */
+    public LineStore getScrollbackStore(){
+        return output.getScrollback().getStore();
+    }
+    
+    /**
+     * Saves every line in the output, with its colors and <code>MessageType</code>, to a compact 
+     * binary file that <code>{@link #restoreSession(Path)}</code> can load, so the history isn't 
+     * lost when the program restarts. Anything waiting in the output queue is added first. 
+     * Printing can go on while the file is written, but the lines printed after this starts are 
+     * not saved.
+     * @param path the file, replaced if it is already there.
+     * @return the amount of lines saved.
+     * @throws IOException if the file can't be written.
+     * @see lal.console.output.SessionFile
+     */
+    public long saveSession(Path path) throws IOException {
+        // adds whatever is in the queue
+        output.getLastLine();
+        return SessionFile.save(output.getScrollback(), path);
+    }
+    
+    /**
+     * Replaces the output with the lines saved by <code>{@link #saveSession(Path)}</code>. The 
+     * file is memory-mapped and decoded in parallel straight into the scrollback, which is much 
+     * faster than printing the lines again. Saved lines the 
+     * <code>{@link lal.console.output.ScrollbackPolicy}</code> wouldn't keep are skipped without 
+     * being read. A headless console doesn't write the restored lines to its stream.
+     * @param path the file.
+     * @return the amount of lines restored.
+     * @throws IOException if the file can't be read or isn't a saved session.
+     */
+    public long restoreSession(Path path) throws IOException {
+        resetRepeats();
+        output.clearOutput();
+        long restored = SessionFile.restore(path, output.getScrollback(), 
+                output.getScrollbackPolicy());
+        output.reloadOutput();
+        return restored;
+    }
+    
+    /**
+     * Writes every line in the output to a file as plain text, text with ANSI color codes or an 
+     * HTML page, on a background thread so the window and the threads printing are never held up. 
+     * Anything waiting in the output queue is added first. The lines are streamed out of the 
+     * scrollback in small chunks, so exporting millions of lines doesn't use more memory than 
+     * exporting a few, and lines printed after this is called are not written.
+     * @param path the file, replaced if it is already there.
+     * @param format how the lines are written.
+     * @return a future that is completed with the amount of lines written, or exceptionally with 
+     * the <code>IOException</code> if the file can't be written.
+     * @see lal.console.output.Exporter
+     */
+    public CompletableFuture<Long> exportOutput(Path path, ExportFormat format){
+        // adds whatever is in the queue
+        output.getLastLine();
+        TextStyle normal = dp.getStyle(MessageType.NORMAL);
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        getExporter().execute(() -> {
+            try {
+                result.complete(Exporter.export(output.getScrollback(), path, format, normal));
+            } catch (IOException | RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * Adds a filtered view of the output, for example only the errors or only the lines with a 
+     * request id, which the user can switch to from the box next to the send button. The view is 
+     * a list of line numbers over the scrollback, so no text is copied. The lines already printed 
+     * are filtered in parallel before this returns and every line after that is filtered once as 
+     * it is finished. A filter with the same name is replaced.
+     * @param name the name of the filter shown to the user.
+     * @param filter decides which lines are shown, see 
+     * <code>{@link lal.console.output.LineFilter}</code> for the common ones.
+     * @return the lines the filter shows.
+     */
+    public FilteredLines addFilter(String name, LineFilter filter){
+        return output.addFilter(name, filter);
+    }
+    
+    /**
+     * Removes a filtered view, going back to all of the output if it was being shown.
+     * @param name the name of the filter.
+     */
+    public void removeFilter(String name){
+        output.removeFilter(name);
+    }
+    
+    /**
+     * Shows only the lines of a filter in the window, or all of the output again. Headless 
+     * consoles can't show filters.
+     * @param name the name of the filter, <code>null</code> to show all of the output.
+     * @throws IllegalArgumentException if there isn't a filter with the name.
+     */
+    public void showFilter(String name){
+        output.showFilter(name);
+    }
+    
+    /**
+     * @return the name of the filter being shown, <code>null</code> if all of the output is shown.
+     */
+    public String getShownFilter(){
+        return output.getShownFilter();
+    }
+    
+    /**
+     * @param name the name of the filter.
+     * @return the lines the filter shows, or <code>null</code> if there isn't one.
+     */
+    public FilteredLines getFilter(String name){
+        return output.getFilters().get(name);
+    }
+    
+    /**
+     * Gets the channel with a name, making it and its tab the first time. A channel has its own 
+     * lines with its own <code>ScrollbackPolicy</code>, so something noisy like 
+     * <code>console.channel("db").println(query)</code> can be kept out of the main output. 
+     * Hidden channels only store their lines and are drawn once their tab is picked.
+     * @param name the name of the channel shown on its tab.
+     * @return the channel.
+     */
+    public Channel channel(String name){
+        Channel channel;
+        synchronized (channels){
+            channel = channels.get(name);
+            if (channel!=null){
+                return channel;
+            }
+            channel = new Channel(this, output, name);
+            channels.put(name, channel);
+        }
+        output.addChannel(channel);
+        return channel;
+    }
+    
+    /**
+     * Removes a channel and its tab, going back to the output if it was being shown. The lines 
+     * in it are thrown away.
+     * @param name the name of the channel.
+     */
+    public void removeChannel(String name){
+        Channel channel;
+        synchronized (channels){
+            channel = channels.remove(name);
+        }
+        if (channel!=null){
+            output.removeChannel(channel);
+        }
+    }
+    
+    /**
+     * @return every channel, in the order they were made.
+     */
+    public List<Channel> getChannels(){
+        synchronized (channels){
+            return new ArrayList<>(channels.values());
+        }
+    }
+    
+    /**
+     * Shows a channel's tab in the window, or the output again. Headless consoles can't show 
+     * channels.
+     * @param name the name of the channel, <code>null</code> to show the output.
+     * @throws IllegalArgumentException if there isn't a channel with the name.
+     */
+    public void showChannel(String name){
+        Channel channel = null;
+        if (name!=null){
+            synchronized (channels){
+                channel = channels.get(name);
+            }
+            if (channel==null){
+                throw new IllegalArgumentException("There is no channel named " + name);
+            }
+        }
+        output.showChannel(channel);
+    }
+    
+    /**
+     * @return the name of the channel being shown, <code>null</code> if the output is shown.
+     */
+    public String getShownChannel(){
+        Channel shown = output.getShownChannel();
+        return shown==null ? null : shown.getName();
+    }
+    
+    /**
+     * @return where the console shows its output, the window or the streams of a headless console.
+     */
+    public Display getDisplay(){
+        return output;
+    }
+    
     // gets
     
     /**
@@ -0,0 +1,174 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console;
+
+import io.github.lal872k.console.ui.FlushScheduler;
+import io.github.lal872k.console.ui.preferences.DefaultDrawPreferences;
+import io.github.lal872k.console.ui.preferences.DrawPreference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Makes and keeps track of many consoles that share what they can, for programs that open a 
+ * window per worker or per connection. Every console made by a manager:
+ * <ul>
+ * <li>is styled by the manager's one <code>{@link lal.console.ui.preferences.DrawPreference}
+ * </code>, so the fonts and colors are only made once.</li>
+ * <li>is frame paced (see <code>{@link lal.console.Console#setFramePaced(boolean)}</code>) and 
+ * drawn by the manager's one <code>{@link lal.console.ui.FlushScheduler}</code>, so however many 
+ * consoles are printing, their output is added in one event on the event dispatch thread per 
+ * frame instead of once per print. This can be turned off with 
+ * <code>{@link #setFramePaced(boolean)}</code>.</li>
+ * </ul>
+ * Glyph atlases and the text pane <code>StyleContext</code> are shared by every console, made by 
+ * a manager or not. A console's window is still only made the first time it is shown, so 
+ * consoles that are never shown cost little more than their lines.
+ * @author L. Arthur Lewis II
+ */
+public class ConsoleManager {
+    
+    private final DrawPreference dp;
+    private final FlushScheduler scheduler;
+    private final List<Console> consoles = new CopyOnWriteArrayList<>();
+    private volatile boolean framePaced = true;
+    
+    /**
+     * Makes a manager whose consoles use <code>{@link lal.console.ui.preferences.DefaultDrawPreferences}
+     * </code>.
+     */
+    public ConsoleManager(){
+        this(new DefaultDrawPreferences());
+    }
+    
+    /**
+     * @param dp styles every console the manager makes. Changes to it show up in a console the 
+     * next time <code>{@link lal.console.Console#restyle()}</code> is called on it.
+     */
+    public ConsoleManager(DrawPreference dp){
+        this.dp = dp;
+        scheduler = new FlushScheduler();
+    }
+    
+    /**
+     * @return a new console, it isn't shown until <code>{@link lal.console.Console#show()}</code> 
+     * is called.
+     */
+    public Console newConsole(){
+        Console console = new Console(dp, scheduler);
+        console.setFramePaced(framePaced);
+        consoles.add(console);
+        return console;
+    }
+    
+    /**
+     * @param title the title of the console's window.
+     * @return a new console, it isn't shown until <code>{@link lal.console.Console#show()}</code> 
+     * is called.
+     */
+    public Console newConsole(String title){
+        Console console = newConsole();
+        console.setWindowTitle(title);
+        return console;
+    }
+    
+    /**
+     * Kills a console made by this manager and stops keeping track of it.
+     * @param console the console.
+     */
+    public void close(Console console){
+        if (consoles.remove(console)){
+            console.kill();
+        }
+    }
+    
+    /**
+     * Kills every console made by this manager.
+     */
+    public void closeAll(){
+        for (Console console : consoles){
+            close(console);
+        }
+    }
+    
+    /**
+     * @return every console made by this manager that hasn't been closed.
+     */
+    public List<Console> getConsoles(){
+        return new ArrayList<>(consoles);
+    }
+    
+    /**
+     * @return the amount of consoles made by this manager that haven't been closed.
+     */
+    public int getConsoleCount(){
+        return consoles.size();
+    }
+    
+    /**
+     * @return the amount of bytes the text in every console's output takes (two per character).
+     */
+    public long getScrollbackBytes(){
+        long bytes = 0;
+        for (Console console : consoles){
+            bytes += console.getScrollbackBytes();
+        }
+        return bytes;
+    }
+    
+    /**
+     * @return the <code>DrawPreference</code> every console is styled by.
+     */
+    public DrawPreference getDrawPreference(){
+        return dp;
+    }
+    
+    /**
+     * Frame paced consoles queue their output and the scheduler adds it once every frame, which 
+     * is the default. When this is off every print is added to the output right away from the 
+     * thread printing it.
+     * @param framePaced true to frame pace every console this manager has made and will make.
+     */
+    public void setFramePaced(boolean framePaced){
+        this.framePaced = framePaced;
+        for (Console console : consoles){
+            console.setFramePaced(framePaced);
+        }
+    }
+    
+    /**
+     * @return true if the consoles made by this manager are frame paced.
+     */
+    public boolean isFramePaced(){
+        return framePaced;
+    }
+    
+    /**
+     * @return the scheduler that adds the queued output of every console.
+     */
+    public FlushScheduler getScheduler(){
+        return scheduler;
+    }
+    
+}
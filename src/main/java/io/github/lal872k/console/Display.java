@@ -0,0 +1,247 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console;
+
+import io.github.lal872k.console.output.FilterSet;
+import io.github.lal872k.console.output.FilteredLines;
+import io.github.lal872k.console.output.LineFilter;
+import io.github.lal872k.console.output.OutputQueue;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.ScrollbackPolicy;
+import io.github.lal872k.console.ui.ACManager;
+import io.github.lal872k.console.ui.preferences.DrawPreference;
+import io.github.lal872k.console.ui.preferences.exceptions.InvalidDrawPreferences;
+
+/**
+ * Where a <code>{@link lal.console.Console}</code> shows its output and gets its input from. The
+ * normal console uses a window, <code>{@link lal.console.ui.Frame}</code>, and a headless console
+ * uses streams, <code>{@link lal.console.headless.HeadlessDisplay}</code>.
+ * <p>
+ * Every method can be called from any thread.
+ * @author L. Arthur Lewis II
+ */
+public interface Display {
+    
+    /**
+     * Adds text to the end of the output right away.
+     * @param msg message to add to end.
+     * @param style the style to draw the text with.
+     */
+    void appendToOutput(String msg, TextStyle style);
+    
+    /**
+     * Adds text and a <code>'\n'</code> to the end of the output right away, the same as 
+     * <code>appendToOutput(msg + "\n", style)</code> without making the joined string.
+     * @param msg text of the line.
+     * @param style the style to draw the text with.
+     */
+    void appendLine(String msg, TextStyle style);
+    
+    /**
+     * Adds text to the end of the output the next time a frame is drawn, along with anything
+     * else queued during that frame.
+     * @param msg message to add to end.
+     * @param style the style to draw the text with.
+     */
+    void queueOutput(String msg, TextStyle style);
+    
+    /**
+     * @return the queue that holds the text from <code>{@link #queueOutput(String, TextStyle)}
+     * </code> until it is added, or <code>null</code> if queued text is added right away.
+     */
+    OutputQueue getOutputQueue();
+    
+    /**
+     * Adds a line to the end of the output whose text can be replaced later.
+     * @param text the first text of the region, must not have a <code>'\n'</code>.
+     * @param style the style to draw the text with.
+     * @return the number of the line in the <code>{@link lal.console.output.Scrollback}</code>.
+     */
+    long openRegion(String text, TextStyle style);
+    
+    /**
+     * Adds anything waiting in a queue to the output and finds the last line.
+     * @return the number of the last finished line in the 
+     * <code>{@link lal.console.output.Scrollback}</code>, or -1 if the last line hasn't been 
+     * finished with a <code>'\n'</code> or there are no lines.
+     */
+    long getLastLine();
+    
+    /**
+     * Asks for the latest text of a region to be shown.
+     * @param region the region that changed.
+     */
+    void queueRegionUpdate(Region region);
+    
+    /**
+     * Removes all of the output, including anything waiting in a queue.
+     */
+    void clearOutput();
+    
+    /**
+     * Removes the oldest lines if there are more than the <code>ScrollbackPolicy</code> allows.
+     */
+    void trimOutput();
+    
+    /**
+     * Catches up with lines that were added straight to the scrollback, like a restored session, 
+     * and shows them.
+     */
+    void reloadOutput();
+    
+    /**
+     * @param scrollbackPolicy decides how much output is kept.
+     */
+    void setScrollbackPolicy(ScrollbackPolicy scrollbackPolicy);
+    
+    /**
+     * @return decides how much output is kept.
+     */
+    ScrollbackPolicy getScrollbackPolicy();
+    
+    /**
+     * @return the amount of lines in the output.
+     */
+    int getOutputLineCount();
+    
+    /**
+     * @return the amount of bytes the text in the output takes (two per character).
+     */
+    long getOutputBytes();
+    
+    /**
+     * @return The lines that have been printed to the output.
+     */
+    Scrollback getScrollback();
+    
+    /**
+     * Adds a filtered view of the output, replacing any filter with the same name.
+     * @param name the name of the filter.
+     * @param filter decides which lines are shown.
+     * @return the lines the filter shows.
+     */
+    FilteredLines addFilter(String name, LineFilter filter);
+    
+    /**
+     * @param name the name of the filter to remove.
+     */
+    void removeFilter(String name);
+    
+    /**
+     * Shows only the lines of a filter, if the display can.
+     * @param name the name of the filter, <code>null</code> to show all of the output.
+     */
+    void showFilter(String name);
+    
+    /**
+     * @return the name of the filter being shown, <code>null</code> if all of the output is shown.
+     */
+    String getShownFilter();
+    
+    /**
+     * @return the filtered views of the output.
+     */
+    FilterSet getFilters();
+    
+    /**
+     * Adds a tab for a channel, if the display has tabs.
+     * @param channel the new channel.
+     */
+    void addChannel(Channel channel);
+    
+    /**
+     * Removes the tab of a channel, going back to the output if it was being shown.
+     * @param channel the channel.
+     */
+    void removeChannel(Channel channel);
+    
+    /**
+     * Lets the display know text was added to or removed from a channel. This is called for 
+     * every print so it must be cheap when the channel isn't being shown.
+     * @param channel the channel that changed.
+     */
+    void channelChanged(Channel channel);
+    
+    /**
+     * Shows a channel in place of the output, if the display can.
+     * @param channel the channel, <code>null</code> to show the output.
+     */
+    void showChannel(Channel channel);
+    
+    /**
+     * @return the channel being shown, <code>null</code> if the output is shown.
+     */
+    Channel getShownChannel();
+    
+    /**
+     * @return the <code>ACManager</code> that holds the
+     * <code>{@link lal.console.ui.AutoComplete}s</code>.
+     */
+    ACManager getACManager();
+    
+    /**
+     * Takes the text the user has entered, leaving nothing for the next call.
+     * @return the text, or <code>null</code> if nothing has been entered.
+     */
+    String takeInput();
+    
+    /**
+     * Styles the display with the <code>DrawPreference</code>.
+     * @param pref <code>DrawPreference</code> to use.
+     * @throws InvalidDrawPreferences if the <code>DrawPreference</code> is not valid.
+     */
+    void styleComponents(DrawPreference pref) throws InvalidDrawPreferences;
+    
+    /**
+     * Makes the display visible.
+     */
+    void show();
+    
+    /**
+     * Hides the display.
+     */
+    void hide();
+    
+    /**
+     * @return true if the display is visible.
+     */
+    boolean isShowing();
+    
+    /**
+     * Gets rid of the display, after this it is useless.
+     */
+    void trash();
+    
+    /**
+     * @param title new title of the window.
+     */
+    void setWindowTitle(String title);
+    
+    /**
+     * @param operation what happens when the window is closed, one of the
+     * <code>WindowConstants</code>.
+     */
+    void setCloseOperation(int operation);
+    
+}
@@ -24,15 +24,23 @@
 package io.github.lal872k.console;
 
 /**
- * The type of message used by <code>{@link lal.console.Message}</code>. The value can be 
- * <code>{@link #NORMAL}</code> or <code>{@link #ERROR}</code>.
+ * The type of message used by <code>{@link lal.console.Message}</code>. Most output is 
+ * <code>{@link #NORMAL}</code> or <code>{@link #ERROR}</code>, the other types are levels like 
+ * the ones of a logging library, used with 
+ * <code>{@link lal.console.Console#println(MessageType, java.util.function.Supplier)}</code>.
+ * <p>
+ * Every type has a severity, from <code>TRACE</code> up to <code>ERROR</code>, and 
+ * <code>NORMAL</code> is as severe as <code>INFO</code>. A console only shows the types at or 
+ * above its minimum level, see 
+ * <code>{@link lal.console.Console#setMinimumLevel(MessageType)}</code>. The newer types come 
+ * after <code>ERROR</code> so saved output keeps the same ordinals.
  * @author L. Arthur Lewis II
  */
 public enum MessageType {
     /**
      * This should be the default value for any <code>{@link lal.console.Message}</code>.
      */
-    NORMAL, 
+    NORMAL(2), 
     /**
      * Whenever an issue occurs you can use either 
      * <code>{@link lal.console.Console#printError(String)}</code> or 
@@ -42,6 +50,44 @@ public enum MessageType {
      * <code>{@link lal.console.MessageType}</code> of that 
      * <code>{@link lal.console.Message}</code> will be <code>ERROR</code>.
      */
-    ERROR;
+    ERROR(4),
+    /**
+     * The finest details, normally hidden.
+     */
+    TRACE(0),
+    /**
+     * Details for finding problems, normally hidden.
+     */
+    DEBUG(1),
+    /**
+     * What the program is doing, as severe as <code>NORMAL</code>.
+     */
+    INFO(2),
+    /**
+     * Something unexpected that isn't an error yet.
+     */
+    WARN(3);
+    
+    private final int severity;
+    
+    private MessageType(int severity){
+        this.severity = severity;
+    }
+    
+    /**
+     * @return how severe the type is, from 0 for <code>TRACE</code> to 4 for 
+     * <code>ERROR</code>.
+     */
+    public int getSeverity(){
+        return severity;
+    }
+    
+    /**
+     * @param minimum the least severe type shown.
+     * @return true if this type is at least as severe.
+     */
+    public boolean isAtLeast(MessageType minimum){
+        return severity>=minimum.severity;
+    }
     
 }
@@ -0,0 +1,124 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console;
+
+import java.awt.Color;
+
+/**
+ * A line of the output whose text can be changed after it is printed, made by
+ * <code>{@link lal.console.Console#openRegion()}</code>. This is meant for things like progress
+ * bars and counters that would otherwise print a new line every time they change.
+ * <p>
+ * <code>{@link #update(String)}</code> can be called from any thread and as often as needed. The
+ * line is only redrawn once per frame (see <code>{@link lal.console.ui.Frame#FRAME_RATE}</code>)
+ * with the latest text, and redrawing it replaces just that line. Updates are not sent to the
+ * <code>{@link lal.console.output.OutputListener}s</code>.
+ * <p>
+ * Once the line is removed from the output by the <code>ScrollbackPolicy</code> or
+ * <code>{@link lal.console.Console#clear()}</code> updates do nothing.
+ * @author L. Arthur Lewis II
+ */
+public final class Region {
+    
+    private final Display display;
+    private final long line;
+    
+    private volatile String text;
+    private volatile TextStyle style;
+    private volatile boolean closed;
+    
+    Region(Display display, long line, String text, TextStyle style){
+        this.display = display;
+        this.line = line;
+        this.text = text;
+        this.style = style;
+    }
+    
+    /**
+     * Replaces the text of the region. Any <code>'\n'</code> or <code>'\r'</code> is drawn as a
+     * space so the region always stays one line.
+     * @param text new text.
+     */
+    public void update(String text){
+        if (closed){
+            return;
+        }
+        this.text = oneLine(text);
+        display.queueRegionUpdate(this);
+    }
+    
+    /**
+     * Replaces the text of the region and the colors it is drawn with.
+     * @param text new text.
+     * @param foreground the foreground color of the text.
+     * @param background the background color of the text.
+     */
+    public void update(String text, Color foreground, Color background){
+        if (closed){
+            return;
+        }
+        style = StyleTable.getShared().intern(foreground, background, style.getType());
+        update(text);
+    }
+    
+    static String oneLine(String text){
+        return text.replace('\n', ' ').replace('\r', ' ');
+    }
+    
+    /**
+     * Stops the region from being changed. The line stays in the output with its latest text.
+     */
+    public void close(){
+        closed = true;
+    }
+    
+    /**
+     * @return true if the region has not been closed and its line is still in the output.
+     */
+    public boolean isOpen(){
+        return !closed && display.getScrollback().contains(line);
+    }
+    
+    /**
+     * @return the number of the line in the <code>{@link lal.console.output.Scrollback}</code>.
+     */
+    public long getLine(){
+        return line;
+    }
+    
+    /**
+     * @return the latest text of the region.
+     */
+    public String getText(){
+        return text;
+    }
+    
+    /**
+     * @return the style the text is drawn with.
+     */
+    public TextStyle getStyle(){
+        return style;
+    }
+    
+}
@@ -24,6 +24,7 @@
 package io.github.lal872k.console;
 
 import io.github.lal872k.console.extensions.command.CommandHandler;
+import io.github.lal872k.console.extensions.command.samples.Export;
 import io.github.lal872k.console.extensions.command.samples.SubstitutionCipher;
 import io.github.lal872k.console.extensions.command.samples.TXTReader;
 import javax.swing.JFrame;
@@ -74,6 +75,7 @@ public class Sample {
         CommandHandler ch = new CommandHandler();
         ch.addCommand(new TXTReader());
         ch.addCommand(new SubstitutionCipher());
+        ch.addCommand(new Export());
         
     }
     
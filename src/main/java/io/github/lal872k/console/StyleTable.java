@@ -0,0 +1,191 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console;
+
+import java.awt.Color;
+import java.util.Arrays;
+
+/**
+ * Interns <code>{@link lal.console.TextStyle}s</code> by their foreground, background and
+ * <code>{@link lal.console.MessageType}</code>. Looking up a style that is already in the table
+ * does not allocate anything, so the print methods can style text without making garbage.
+ * <p>
+ * Ids are kept in the style runs of the scrollback, so every style the table hands out must stay
+ * in it. Once it holds <code>capacity</code> styles the table doubles instead of turning styles
+ * away, the only time <code>{@link #intern(Color, Color, MessageType)}</code> allocates more than
+ * the new style. Output with many different colors, like 24 bit ANSI codes, grows it for as long
+ * as new combinations are printed.
+ * <p>
+ * Every console shares the table returned by <code>{@link #getShared()}</code>.
+ * @author L. Arthur Lewis II
+ */
+public final class StyleTable {
+    
+    /**
+     * The amount of styles the shared table holds before it first grows.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+    
+    private static final StyleTable SHARED = new StyleTable(DEFAULT_CAPACITY);
+    
+    private static final int NULL_FOREGROUND = 1<<8;
+    private static final int NULL_BACKGROUND = 1<<9;
+    
+    private int capacity;
+    
+    // open addressing, the length is a power of two at least twice the capacity
+    private TextStyle[] slots;
+    private int[] slotFore;
+    private int[] slotBack;
+    private int[] slotFlags;
+    
+    private TextStyle[] byId;
+    private int size;
+    
+    /**
+     * @param capacity the amount of styles the table holds before it first grows.
+     */
+    public StyleTable(int capacity){
+        if (capacity<1){
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        makeSlots(Integer.highestOneBit(capacity)<<2);
+        byId = new TextStyle[capacity];
+    }
+    
+    /**
+     * @return the table shared by every console.
+     */
+    public static StyleTable getShared(){
+        return SHARED;
+    }
+    
+    /**
+     * Returns the style with these colors and type. If this combination has been seen before the
+     * same instance is returned.
+     * @param foreground the foreground color of the text.
+     * @param background the background color of the text.
+     * @param type the type of message.
+     * @return the interned style.
+     */
+    public synchronized TextStyle intern(Color foreground, Color background, MessageType type){
+        int fore = foreground==null ? 0 : foreground.getRGB();
+        int back = background==null ? 0 : background.getRGB();
+        int flags = type.ordinal();
+        if (foreground==null){
+            flags |= NULL_FOREGROUND;
+        }
+        if (background==null){
+            flags |= NULL_BACKGROUND;
+        }
+        int mask = slots.length-1;
+        int index = hash(fore, back, flags) & mask;
+        TextStyle style;
+        while ((style = slots[index])!=null){
+            if (slotFore[index]==fore && slotBack[index]==back && slotFlags[index]==flags){
+                return style;
+            }
+            index = (index+1) & mask;
+        }
+        if (size==capacity){
+            grow();
+            index = hash(fore, back, flags) & (slots.length-1);
+            while (slots[index]!=null){
+                index = (index+1) & (slots.length-1);
+            }
+        }
+        style = new TextStyle(foreground, background, type, size);
+        slots[index] = style;
+        slotFore[index] = fore;
+        slotBack[index] = back;
+        slotFlags[index] = flags;
+        byId[size++] = style;
+        return style;
+    }
+    
+    /**
+     * @param id id of the style.
+     * @return the style with that id, or <code>null</code> if there isn't one.
+     */
+    public synchronized TextStyle get(int id){
+        if (id<0 || id>=size){
+            return null;
+        }
+        return byId[id];
+    }
+    
+    /**
+     * @return the amount of styles in the table.
+     */
+    public synchronized int size(){
+        return size;
+    }
+    
+    /**
+     * @return the amount of styles this table holds before it grows again.
+     */
+    public synchronized int getCapacity(){
+        return capacity;
+    }
+    
+    private void makeSlots(int length){
+        slots = new TextStyle[length];
+        slotFore = new int[length];
+        slotBack = new int[length];
+        slotFlags = new int[length];
+    }
+    
+    // doubles the table, the ids stay the same so runs that hold them still resolve
+    private void grow(){
+        TextStyle[] oldSlots = slots;
+        int[] oldFore = slotFore;
+        int[] oldBack = slotBack;
+        int[] oldFlags = slotFlags;
+        capacity *= 2;
+        makeSlots(oldSlots.length*2);
+        byId = Arrays.copyOf(byId, capacity);
+        int mask = slots.length-1;
+        for (int q = 0; q < oldSlots.length; q++){
+            if (oldSlots[q]==null){
+                continue;
+            }
+            int index = hash(oldFore[q], oldBack[q], oldFlags[q]) & mask;
+            while (slots[index]!=null){
+                index = (index+1) & mask;
+            }
+            slots[index] = oldSlots[q];
+            slotFore[index] = oldFore[q];
+            slotBack[index] = oldBack[q];
+            slotFlags[index] = oldFlags[q];
+        }
+    }
+    
+    private static int hash(int fore, int back, int flags){
+        int h = fore*31 + back;
+        h = h*31 + flags;
+        return h ^ (h>>>16);
+    }
+    
+}
@@ -0,0 +1,84 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console;
+
+import java.awt.Color;
+
+/**
+ * An immutable pair of colors and a <code>{@link lal.console.MessageType}</code> that text in
+ * the output is drawn with. Instances are handed out by a
+ * <code>{@link lal.console.StyleTable}</code> so the same combination is always the same
+ * instance and can be compared with <code>==</code>.
+ * @author L. Arthur Lewis II
+ */
+public final class TextStyle {
+    
+    private final Color foreground;
+    private final Color background;
+    private final MessageType type;
+    private final int id;
+    
+    TextStyle(Color foreground, Color background, MessageType type, int id){
+        this.foreground = foreground;
+        this.background = background;
+        this.type = type;
+        this.id = id;
+    }
+    
+    /**
+     * @return the foreground color of the text.
+     */
+    public Color getForeground(){
+        return foreground;
+    }
+    
+    /**
+     * @return the background color of the text.
+     */
+    public Color getBackground(){
+        return background;
+    }
+    
+    /**
+     * @return the type of message the text belongs to.
+     */
+    public MessageType getType(){
+        return type;
+    }
+    
+    /**
+     * The id is the index of this style in the <code>StyleTable</code> that made it, it can
+     * always be looked up there again.
+     * @return id value.
+     */
+    public int getId(){
+        return id;
+    }
+    
+    @Override
+    public String toString(){
+        return "foreground="+foreground+",background="+background+",type="+type+",id="+id;
+    }
+    
+}
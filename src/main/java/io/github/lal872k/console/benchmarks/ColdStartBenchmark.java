@@ -0,0 +1,127 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.benchmarks;
+
+import io.github.lal872k.console.Console;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long it takes a new JVM to make a <code>{@link lal.console.Console}</code> and
+ * print its first line: with a headless console, with a window that is never shown (the window is
+ * only made when it is first shown) and with a window that is shown after the first print. Each
+ * run is done in its own JVM so nothing is loaded before it starts, and prints the time to make
+ * the console, the time from the start of the JVM to the first print, how many classes were
+ * loaded by then, and how long <code>show()</code> took (0 when it isn't called).
+ * <p>
+ * Arguments: the amount of runs of each kind (5 by default). Running this with one of the kinds
+ * as the first argument does a single run in this JVM. On a machine without a display the runs
+ * that show the window fail and say so.
+ * @author L. Arthur Lewis II
+ */
+public class ColdStartBenchmark {
+    
+    private static final String RESULT = "result ";
+    
+    private static final String[] KINDS = {"headless", "gui", "gui-show"};
+    
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length>0 && Arrays.asList(KINDS).contains(args[0])){
+            run(args[0]);
+            return;
+        }
+        int runs = args.length>0 ? Integer.parseInt(args[0]) : 5;
+        System.out.printf("%-10s %12s %16s %10s %10s%n", "console", "create ms", "jvm to print ms",
+                "classes", "show ms");
+        for (String kind : KINDS){
+            for (int q = 0; q < runs; q++){
+                System.out.printf("%-10s %s%n", kind, fork(kind));
+            }
+        }
+    }
+    
+    // makes a console and prints one line, then prints the numbers for the parent to read
+    private static void run(String kind){
+        long start = System.nanoTime();
+        Console console;
+        if (kind.equals("headless")){
+            console = new Console(new StringReader(""), new StringWriter());
+        } else {
+            console = new Console();
+        }
+        long created = System.nanoTime();
+        console.println("first line");
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        int classes = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+        long show = 0;
+        if (kind.equals("gui-show")){
+            long before = System.nanoTime();
+            console.show();
+            show = System.nanoTime()-before;
+        }
+        console.kill();
+        System.out.printf(RESULT + "%12.1f %16d %10d %10.1f%n", (created-start)/1e6, uptime,
+                classes, show/1e6);
+        System.exit(0);
+    }
+    
+    // runs one kind of console in a new JVM and returns its numbers
+    private static String fork(String kind) throws IOException, InterruptedException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator
+                + "java";
+        List<String> command = new ArrayList<String>();
+        command.add(java);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ColdStartBenchmark.class.getName());
+        command.add(kind);
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String result = "failed";
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream()))){
+            String line;
+            while ((line = out.readLine())!=null){
+                if (line.startsWith(RESULT)){
+                    result = line.substring(RESULT.length());
+                } else if (result.equals("failed") && line.contains("Exception")){
+                    result = "failed: " + line.trim();
+                }
+            }
+        }
+        process.waitFor();
+        return result;
+    }
+    
+}
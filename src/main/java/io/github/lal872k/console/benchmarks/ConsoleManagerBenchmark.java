@@ -0,0 +1,158 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.benchmarks;
+
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.ConsoleManager;
+import io.github.lal872k.console.ui.FlushScheduler;
+import java.awt.GraphicsEnvironment;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes many consoles with a <code>{@link lal.console.ConsoleManager}</code> and on their own, 
+ * prints the same lines to each, and reports how much heap each console takes on top of the text 
+ * it holds. With a display the manager's consoles are then shown and printed to from one thread 
+ * per console for a few seconds. They are frame paced, so their output is queued, and the amount 
+ * of events the shared <code>{@link lal.console.ui.FlushScheduler}</code> ran on the event 
+ * dispatch thread is printed next to the amount of flushes it did for them (consoles on their 
+ * own take one event per flush).
+ * <p>
+ * Arguments: the amount of consoles (200 by default) and the lines printed to each (1000 by 
+ * default).
+ * @author L. Arthur Lewis II
+ */
+public class ConsoleManagerBenchmark {
+    
+    private static final long PRINT_MILLIS = 3000;
+    
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int count = args.length>0 ? Integer.parseInt(args[0]) : 200;
+        int lines = args.length>1 ? Integer.parseInt(args[1]) : 1000;
+        
+        // make and throw away a few first so the classes are loaded before anything is measured
+        fill(new ConsoleManager(), 4, lines).closeAll();
+        
+        long before = usedHeap();
+        ConsoleManager manager = fill(new ConsoleManager(), count, lines);
+        long managed = usedHeap()-before;
+        long text = manager.getScrollbackBytes();
+        
+        before = usedHeap();
+        List<Console> alone = new ArrayList<Console>();
+        for (int q = 0; q < count; q++){
+            Console console = new Console();
+            print(console, q, lines);
+            alone.add(console);
+        }
+        long separate = usedHeap()-before;
+        
+        System.out.printf("%d consoles, %d lines each, %.1f KB of text each%n", count, lines, 
+                text/1024.0/count);
+        report("manager", managed, text, count);
+        report("on their own", separate, text, count);
+        for (Console console : alone){
+            console.kill();
+        }
+        
+        if (GraphicsEnvironment.isHeadless()){
+            System.out.println("no display, the consoles were not shown");
+        } else {
+            timeDispatch(manager);
+        }
+        manager.closeAll();
+        System.exit(0);
+    }
+    
+    private static ConsoleManager fill(ConsoleManager manager, int count, int lines){
+        for (int q = 0; q < count; q++){
+            print(manager.newConsole("Worker " + q), q, lines);
+        }
+        return manager;
+    }
+    
+    private static void print(Console console, int worker, int lines){
+        for (int q = 0; q < lines; q++){
+            console.println("worker " + worker + " finished job " + q + " in " + (q*7 % 1000) 
+                    + " ms");
+        }
+    }
+    
+    private static void report(String name, long heap, long text, int count){
+        System.out.printf("    %-14s %8.1f KB per console, %8.1f KB of it not text%n", name, 
+                heap/1024.0/count, (heap-text)/1024.0/count);
+    }
+    
+    // prints to every console from its own thread and counts the events on the dispatch thread
+    private static void timeDispatch(ConsoleManager manager) throws InterruptedException {
+        // the default, set here so the queued path is what gets measured
+        manager.setFramePaced(true);
+        List<Console> consoles = manager.getConsoles();
+        for (Console console : consoles){
+            console.show();
+        }
+        FlushScheduler scheduler = manager.getScheduler();
+        long ticks = scheduler.getTicks();
+        long flushes = scheduler.getFlushes();
+        long end = System.currentTimeMillis()+PRINT_MILLIS;
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int q = 0; q < consoles.size(); q++){
+            Console console = consoles.get(q);
+            int worker = q;
+            Thread thread = new Thread(() -> {
+                for (int job = 0; System.currentTimeMillis()<end; job++){
+                    console.println("worker " + worker + " finished job " + job);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            });
+            thread.start();
+            workers.add(thread);
+        }
+        for (Thread thread : workers){
+            thread.join();
+        }
+        ticks = scheduler.getTicks()-ticks;
+        flushes = scheduler.getFlushes()-flushes;
+        System.out.printf("shown and printed to for %d ms: %d dispatch events, %d flushes "
+                + "(%.1f consoles per event)%n", PRINT_MILLIS, ticks, flushes, 
+                ticks==0 ? 0.0 : (double) flushes/ticks);
+    }
+    
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int q = 0; q < 4; q++){
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory()-runtime.freeMemory();
+    }
+    
+}
@@ -0,0 +1,96 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.benchmarks;
+
+import io.github.lal872k.console.ui.OutputDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+import java.awt.Color;
+
+/**
+ * Appends lines to a stock <code>DefaultStyledDocument</code> and to an
+ * <code>{@link lal.console.ui.OutputDocument}</code> the same way a
+ * <code>{@link lal.console.ui.TextPaneView}</code> does, once with every line kept and once while
+ * trimming to a line limit like a <code>ScrollbackPolicy</code>, and prints how long each took.
+ * <p>
+ * Arguments: the amount of lines to append (1,000,000 by default) and the line limit used when
+ * trimming (100,000 by default).
+ * @author L. Arthur Lewis II
+ */
+public class DocumentBenchmark {
+    
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws BadLocationException {
+        int lines = args.length>0 ? Integer.parseInt(args[0]) : 1000000;
+        int limit = args.length>1 ? Integer.parseInt(args[1]) : 100000;
+        
+        // warm up both documents before timing anything
+        run(new DefaultStyledDocument(), lines/10, limit/10);
+        run(new OutputDocument(), lines/10, limit/10);
+        
+        System.out.println(lines + " lines appended, no limit");
+        report("DefaultStyledDocument", run(new DefaultStyledDocument(), lines, 0));
+        report("OutputDocument", run(new OutputDocument(), lines, 0));
+        
+        System.out.println(lines + " lines appended, trimmed to " + limit + " lines");
+        report("DefaultStyledDocument", run(new DefaultStyledDocument(), lines, limit));
+        report("OutputDocument", run(new OutputDocument(), lines, limit));
+    }
+    
+    private static void report(String name, long nanos){
+        System.out.printf("    %-22s %8d ms%n", name, nanos/1000000);
+    }
+    
+    // appends the lines, trimming down to 90% of the limit whenever it is passed, and returns the
+    // time taken in nanoseconds
+    private static long run(StyledDocument document, int lines, int limit)
+            throws BadLocationException {
+        SimpleAttributeSet normal = new SimpleAttributeSet();
+        StyleConstants.setForeground(normal, Color.BLACK);
+        SimpleAttributeSet error = new SimpleAttributeSet();
+        StyleConstants.setForeground(error, Color.RED);
+        Element root = document.getDefaultRootElement();
+        
+        long start = System.nanoTime();
+        for (int q = 0; q < lines; q++){
+            AttributeSet style = q%10==0 ? error : normal;
+            document.insertString(document.getLength(), "line " + q + " of the benchmark output\n",
+                    style);
+            if (limit>0 && root.getElementCount()>limit){
+                int remove = root.getElementCount()-(int) (limit*0.9);
+                int chars = root.getElement(remove-1).getEndOffset();
+                document.remove(0, chars);
+            }
+        }
+        return System.nanoTime()-start;
+    }
+    
+}
@@ -0,0 +1,134 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.benchmarks;
+
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.extensions.highlight.HighlightRule;
+import io.github.lal872k.console.extensions.highlight.HighlightRules;
+import io.github.lal872k.console.output.Highlighter;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs log lines through <code>{@link lal.console.extensions.highlight.HighlightRules}</code>
+ * with no rules and with 500 rules (490 literals and 10 regular expressions), and through a
+ * plain loop that looks for each of the 500 rules with <code>indexOf()</code> one at a time, and
+ * prints how many lines a second each got through.
+ * <p>
+ * Arguments: the amount of lines (500,000 by default).
+ * @author L. Arthur Lewis II
+ */
+public class HighlightBenchmark {
+    
+    private static final int LITERALS = 490;
+    private static final int REGEXES = 10;
+    
+    // keeps the runs from being optimized away
+    private static long sink;
+    
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) {
+        int count = args.length>0 ? Integer.parseInt(args[0]) : 500000;
+        String[] lines = makeLines(count);
+        TextStyle style = StyleTable.getShared().intern(Color.WHITE, Color.BLACK, MessageType.NORMAL);
+        
+        List<HighlightRule> rules = makeRules();
+        HighlightRules none = new HighlightRules();
+        HighlightRules all = new HighlightRules();
+        all.addRules(rules);
+        
+        // warm up before timing anything
+        for (int q = 0; q < 3; q++){
+            run(none, lines, style);
+            run(all, lines, style);
+            runNaive(rules, lines);
+        }
+        
+        System.out.println(count + " lines highlighted");
+        report("no rules", count, run(none, lines, style));
+        report((LITERALS+REGEXES) + " rules", count, run(all, lines, style));
+        report((LITERALS+REGEXES) + " rules, indexOf", count, runNaive(rules, lines));
+    }
+    
+    private static void report(String name, int count, long nanos){
+        System.out.printf("    %-22s %8d ms %12.0f lines/s%n", name, nanos/1000000,
+                count/(nanos/1e9));
+    }
+    
+    private static long run(Highlighter highlighter, String[] lines, TextStyle style){
+        Highlighter.Runs runs = (text, runStyle) -> sink += text.length() + runStyle.getId();
+        long start = System.nanoTime();
+        for (String line : lines){
+            highlighter.highlight(line, style, runs);
+        }
+        return System.nanoTime()-start;
+    }
+    
+    // only finds the literals, the way highlighting would work without the automaton
+    private static long runNaive(List<HighlightRule> rules, String[] lines){
+        long start = System.nanoTime();
+        for (String line : lines){
+            for (HighlightRule rule : rules){
+                if (!rule.isRegex()){
+                    sink += line.indexOf(rule.getPattern());
+                }
+            }
+        }
+        return System.nanoTime()-start;
+    }
+    
+    private static List<HighlightRule> makeRules(){
+        List<HighlightRule> rules = new ArrayList<HighlightRule>();
+        rules.add(HighlightRule.literal("Exception", Color.RED));
+        rules.add(HighlightRule.literal("WARN", Color.YELLOW, null, true));
+        for (int q = 2; q < LITERALS; q++){
+            rules.add(HighlightRule.literal("req-" + (q*7919 % 100000), Color.CYAN));
+        }
+        rules.add(HighlightRule.regex("\\buser=\\w+", Color.GREEN));
+        rules.add(HighlightRule.regex("took \\d+ ms\\b", Color.MAGENTA));
+        for (int q = 2; q < REGEXES; q++){
+            rules.add(HighlightRule.regex("code=" + q + "\\d\\d\\b", Color.ORANGE));
+        }
+        return rules;
+    }
+    
+    private static String[] makeLines(int count){
+        String[] levels = {"INFO", "INFO", "INFO", "WARN", "ERROR"};
+        String[] lines = new String[count];
+        for (int q = 0; q < count; q++){
+            String level = levels[q % levels.length];
+            lines[q] = "2016-05-01 12:00:" + (q % 60) + " " + level + " handled req-"
+                    + (q*31 % 100000) + " user=u" + (q % 977) + " code=" + (q % 1000)
+                    + (q % 10==0 ? " took " + (q % 1000) + " ms" : "")
+                    + (level.equals("ERROR") ? " java.io.IOException: broken pipe" : "") + "\n";
+        }
+        return lines;
+    }
+    
+}
@@ -0,0 +1,168 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.benchmarks;
+
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.output.ScrollbackPolicy;
+import io.github.lal872k.console.ui.TextPaneView;
+import java.awt.Color;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes the printing thread allocates for each print once the console is warmed up,
+ * using the per thread counter of <code>com.sun.management.ThreadMXBean</code>, and checks them
+ * against a budget. Printing a line that is already built with <code>println()</code> should
+ * allocate nothing at all, the line itself is kept in the scrollback. Printing text that ends in
+ * a <code>'\n'</code> with <code>print()</code> may only allocate the copy of the line that is
+ * kept. The consoles have a bounded scrollback and no listeners.
+ * <p>
+ * A window that has never been shown has no view yet, so its prints only reach the scrollback. 
+ * Once it is shown with the default <code>{@link lal.console.ui.TextPaneView}</code> every line 
+ * is also inserted into a Swing document, which allocates for each insert. That cost is printed 
+ * for a text pane on its own but has no budget.
+ * <p>
+ * Exits with 1 if any print goes over its budget, so it can be run as a check.
+ * <p>
+ * Arguments: the amount of prints measured (200,000 by default).
+ * @author L. Arthur Lewis II
+ */
+public class PrintAllocationBenchmark {
+    
+    private static final String LINE =
+            "2016-05-01 12:00:00 handled req-31 user=u1 code=200 took 4 ms";
+    private static final String LINE_BREAK = LINE + "\n";
+    
+    // prints before measuring, so the code is compiled and the scrollback is at its limit
+    private static final int WARM_UP = 300000;
+    
+    // bytes per print allowed on top of the budget, for the odd array the scrollback grows
+    private static final long SLACK = 8;
+    
+    // the cost is only printed
+    private static final long NO_BUDGET = -1;
+    
+    private static boolean failed = false;
+    
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args){
+        int count = args.length>0 ? Integer.parseInt(args[0]) : 200000;
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()){
+            System.out.println("this JVM can't count the bytes a thread allocates");
+            System.exit(0);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+        // an estimate of the kept copy of a line: the String and its array with two bytes a char
+        long copy = 64 + 2*LINE.length();
+        
+        Console plain = headless(false);
+        measure(threads, "headless println", 0, count, () -> plain.println(LINE));
+        measure(threads, "headless println WARN", 0, count,
+                () -> plain.println(MessageType.WARN, LINE));
+        measure(threads, "headless println color", 0, count,
+                () -> plain.println(LINE, Color.CYAN, Color.BLACK));
+        measure(threads, "headless print \"\\n\"", copy, count, () -> plain.print(LINE_BREAK));
+        plain.kill();
+        
+        Console ansi = headless(true);
+        measure(threads, "ANSI printlnError", 0, count, () -> ansi.printlnError(LINE));
+        ansi.kill();
+        
+        // the window is never shown, so it has no view and only the scrollback is updated
+        Console window = new Console();
+        window.setScrollbackPolicy(ScrollbackPolicy.lines(1000));
+        measure(threads, "unshown window println", 0, count, () -> window.println(LINE));
+        window.kill();
+        
+        // what a shown window adds for each line, kept to about as many lines as the others
+        TextPaneView pane = new TextPaneView();
+        TextStyle style = StyleTable.getShared().intern(Color.WHITE, Color.BLACK, 
+                MessageType.NORMAL);
+        int[] lines = new int[1];
+        measure(threads, "text pane appendLine", NO_BUDGET, count / 10, () -> {
+            pane.appendLine(LINE, style);
+            if (++lines[0]==2000){
+                pane.removeFirst(1000);
+                lines[0] = 1000;
+            }
+        });
+        
+        System.exit(failed ? 1 : 0);
+    }
+    
+    private static Console headless(boolean ansi){
+        Console console = new Console(null, new NullWriter(), ansi);
+        console.setScrollbackPolicy(ScrollbackPolicy.lines(1000));
+        return console;
+    }
+    
+    private static void measure(com.sun.management.ThreadMXBean threads, String name,
+            long budget, int count, Runnable print){
+        for (int q = 0; q < WARM_UP; q++){
+            print.run();
+        }
+        long id = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(id);
+        for (int q = 0; q < count; q++){
+            print.run();
+        }
+        long bytes = (threads.getThreadAllocatedBytes(id)-before)/count;
+        if (budget==NO_BUDGET){
+            System.out.printf("    %-26s %6d bytes per print, no budget%n", name, bytes);
+            return;
+        }
+        boolean over = bytes>budget+SLACK;
+        failed |= over;
+        System.out.printf("    %-26s %6d bytes per print, budget %4d  %s%n", name, bytes, budget,
+                over ? "OVER" : "ok");
+    }
+    
+    // throws the text away, so the only allocations counted are the console's
+    private static class NullWriter extends Writer {
+        
+        @Override
+        public void write(int c){}
+        
+        @Override
+        public void write(char[] chars, int offset, int length){}
+        
+        @Override
+        public void write(String text, int offset, int length){}
+        
+        @Override
+        public void flush(){}
+        
+        @Override
+        public void close(){}
+    
+    }
+    
+}
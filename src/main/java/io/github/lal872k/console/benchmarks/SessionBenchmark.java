@@ -0,0 +1,135 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.benchmarks;
+
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.ScrollbackPolicy;
+import io.github.lal872k.console.output.SessionFile;
+import java.awt.Color;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Saves a scrollback of log lines with <code>{@link lal.console.output.SessionFile}</code>,
+ * restores it into an empty scrollback, and prints how long each took next to how long printing
+ * the same lines to a headless console with <code>println()</code> takes.
+ * <p>
+ * Arguments: the amount of lines (2,000,000 by default, about 200 MB of text) and the directory
+ * the session file is written in (the temp directory by default).
+ * @author L. Arthur Lewis II
+ */
+public class SessionBenchmark {
+    
+    // println is only timed on this many lines and scaled up
+    private static final int PRINT_SAMPLE = 200000;
+    
+    /**
+     * @param args the command line arguments
+     */
+    public static void main(String[] args) throws Exception {
+        int count = args.length>0 ? Integer.parseInt(args[0]) : 2000000;
+        Path directory = args.length>1 ? java.nio.file.Paths.get(args[1])
+                : java.nio.file.Paths.get(System.getProperty("java.io.tmpdir"));
+        StyleTable styles = StyleTable.getShared();
+        TextStyle normal = styles.intern(Color.WHITE, Color.BLACK, MessageType.NORMAL);
+        TextStyle error = styles.intern(Color.RED, Color.BLACK, MessageType.ERROR);
+        TextStyle id = styles.intern(Color.CYAN, Color.BLACK, MessageType.NORMAL);
+        
+        Scrollback scrollback = new Scrollback();
+        for (int q = 0; q < count; q++){
+            TextStyle style = q % 5==4 ? error : normal;
+            scrollback.append("2016-05-01 12:00:" + (q % 60) + " handled ", style);
+            scrollback.append("req-" + (q*31 % 100000), id);
+            scrollback.append(" user=u" + (q % 977) + " code=" + (q % 1000)
+                    + " took " + (q % 1000) + " ms with some more text to pad it out\n", style);
+        }
+        
+        Path file = Files.createTempFile(directory, "console-session", ".bin");
+        try {
+            long start = System.nanoTime();
+            SessionFile.save(scrollback, file);
+            long saveNanos = System.nanoTime()-start;
+            long bytes = Files.size(file);
+            
+            // warm up the restore before timing it
+            SessionFile.restore(file, new Scrollback(), ScrollbackPolicy.lines(10000));
+            System.gc();
+            
+            Scrollback restored = new Scrollback();
+            start = System.nanoTime();
+            SessionFile.restore(file, restored, ScrollbackPolicy.UNBOUNDED);
+            long restoreNanos = System.nanoTime()-start;
+            if (restored.getLineCount()!=scrollback.getLineCount()){
+                throw new IllegalStateException("restored " + restored.getLineCount()
+                        + " lines of " + scrollback.getLineCount());
+            }
+            
+            Scrollback kept = new Scrollback();
+            start = System.nanoTime();
+            SessionFile.restore(file, kept, ScrollbackPolicy.lines(10000));
+            long keptNanos = System.nanoTime()-start;
+            
+            long printNanos = timePrintln(Math.min(count, PRINT_SAMPLE))*count
+                    /Math.min(count, PRINT_SAMPLE);
+            
+            System.out.printf("%d lines, %.1f MB session file%n", count, bytes/1e6);
+            report("save", saveNanos, bytes);
+            report("restore", restoreNanos, bytes);
+            report("restore, 10000 kept", keptNanos, bytes);
+            report("println (scaled)", printNanos, bytes);
+        } finally {
+            Files.delete(file);
+        }
+    }
+    
+    private static void report(String name, long nanos, long bytes){
+        System.out.printf("    %-22s %8d ms %10.1f MB/s%n", name, nanos/1000000,
+                bytes/1e6/(nanos/1e9));
+    }
+    
+    private static long timePrintln(int count){
+        Console console = new Console(null, new StringWriter(), false);
+        console.setScrollbackPolicy(ScrollbackPolicy.UNBOUNDED);
+        long start = System.nanoTime();
+        for (int q = 0; q < count; q++){
+            String line = "2016-05-01 12:00:" + (q % 60) + " handled req-" + (q*31 % 100000)
+                    + " user=u" + (q % 977) + " code=" + (q % 1000) + " took " + (q % 1000)
+                    + " ms with some more text to pad it out";
+            if (q % 5==4){
+                console.printError(line);
+            } else {
+                console.println(line);
+            }
+        }
+        long nanos = System.nanoTime()-start;
+        console.kill();
+        return nanos;
+    }
+    
+}
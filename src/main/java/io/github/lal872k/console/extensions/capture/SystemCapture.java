@@ -0,0 +1,361 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.extensions.capture;
+
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.extensions.ConsoleExtension;
+import io.github.lal872k.console.ui.Frame;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * SystemCapture is a <code>ConsoleExtension</code> that replaces <code>System.out</code> and
+ * <code>System.err</code> so anything printed to them by the program or its libraries is printed
+ * to the console instead, <code>System.out</code> as <code>MessageType.NORMAL</code> and
+ * <code>System.err</code> as <code>MessageType.ERROR</code>.
+ * <p>
+ * Every thread that prints gets its own buffer that collects bytes until a line is finished (or
+ * the stream is flushed), so lines from different threads are never mixed together. Finished
+ * lines are put in a queue and the thread goes on right away. One thread owned by the extension
+ * takes everything in the queue once per frame (see
+ * <code>{@link lal.console.ui.Frame#FRAME_RATE}</code>) and prints it to the console in as few
+ * calls as possible, so a library printing thousands of lines never waits on the console.
+ * <p>
+ * Anything printed to <code>System.out</code> or <code>System.err</code> by the console's own
+ * listeners, like <code>{@link lal.console.extensions.jconsole.JavaConsole}</code>, goes to the
+ * streams that were there before instead of back into the console.
+ * <p>
+ * Only one capture is active at a time, adding a second one replaces the first.
+ * @author L. Arthur Lewis II
+ */
+public class SystemCapture implements ConsoleExtension {
+    
+    /**
+     * Most lines printed to the console in one batch.
+     */
+    public static final int MAX_BATCH = 10000;
+    
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    private static volatile SystemCapture active;
+    
+    private final LinkedBlockingQueue<Line> lines;
+    
+    // null once removed, then the captured streams write straight to the streams they replaced
+    private volatile Console console;
+    private PrintStream originalOut;
+    private PrintStream originalErr;
+    private PrintStream capturedOut;
+    private PrintStream capturedErr;
+    private volatile Thread dispatcher;
+    
+    public SystemCapture(){
+        lines = new LinkedBlockingQueue<Line>();
+    }
+    
+    @Override
+    public synchronized void addToConsole(Console console) {
+        if (this.console!=null){
+            return;
+        }
+        SystemCapture previous = active;
+        if (previous!=null){
+            previous.removeFromConsole(previous.console);
+        }
+        this.console = console;
+        originalOut = System.out;
+        originalErr = System.err;
+        capturedOut = capture(MessageType.NORMAL, originalOut);
+        capturedErr = capture(MessageType.ERROR, originalErr);
+        dispatcher = new Thread(this::dispatch, "Console System Capture");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        active = this;
+        System.setOut(capturedOut);
+        System.setErr(capturedErr);
+    }
+    
+    @Override
+    public synchronized void removeFromConsole(Console console) {
+        if (this.console!=console || console==null){
+            return;
+        }
+        // only put the old streams back if nobody replaced ours
+        if (System.out==capturedOut){
+            System.setOut(originalOut);
+        }
+        if (System.err==capturedErr){
+            System.setErr(originalErr);
+        }
+        if (active==this){
+            active = null;
+        }
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // anything still waiting
+        printBatch(new ArrayList<Line>(lines));
+        lines.clear();
+        dispatcher = null;
+        this.console = null;
+        // lines that came in while this was removing go where the streams now write
+        Line line;
+        while ((line = lines.poll())!=null){
+            (line.type==MessageType.ERROR ? originalErr : originalOut).print(line.text);
+        }
+    }
+    
+    private PrintStream capture(MessageType type, PrintStream original){
+        try {
+            return new PrintStream(new CaptureStream(type, original), false, UTF_8.name());
+        } catch (UnsupportedEncodingException ex) {
+            // every jvm has UTF-8
+            ex.printStackTrace();
+            return new PrintStream(new CaptureStream(type, original), false);
+        }
+    }
+    
+    /**
+     * The stream <code>System.out</code> was before the active capture replaced it, or
+     * <code>System.out</code> if nothing is being captured.
+     * @return the stream.
+     */
+    public static PrintStream getRealOut(){
+        SystemCapture capture = active;
+        PrintStream out = capture==null ? null : capture.originalOut;
+        return out==null ? System.out : out;
+    }
+    
+    /**
+     * The stream <code>System.err</code> was before the active capture replaced it, or
+     * <code>System.err</code> if nothing is being captured.
+     * @return the stream.
+     */
+    public static PrintStream getRealErr(){
+        SystemCapture capture = active;
+        PrintStream err = capture==null ? null : capture.originalErr;
+        return err==null ? System.err : err;
+    }
+    
+    /**
+     * @return the amount of lines waiting to be printed to the console.
+     */
+    public int getPendingLines(){
+        return lines.size();
+    }
+    
+    /**
+     * run by the dispatch thread, waits for lines and prints everything that came in during a
+     * frame at once.
+     */
+    private void dispatch(){
+        ArrayList<Line> batch = new ArrayList<Line>();
+        try {
+            while (true){
+                batch.add(lines.take());
+                // let the rest of the frame's lines come in
+                Thread.sleep(1000/Frame.FRAME_RATE);
+                lines.drainTo(batch, MAX_BATCH-1);
+                printBatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            // removed from the console, the rest of the queue is printed by removeFromConsole
+            printBatch(batch);
+        }
+    }
+    
+    // prints the lines joining lines in a row of the same type into one print
+    private void printBatch(ArrayList<Line> batch){
+        Console target = console;
+        if (target==null || batch.isEmpty()){
+            return;
+        }
+        StringBuilder text = new StringBuilder();
+        MessageType type = batch.get(0).type;
+        for (Line line : batch){
+            if (line.type!=type){
+                print(target, text.toString(), type);
+                text.setLength(0);
+                type = line.type;
+            }
+            text.append(line.text);
+        }
+        print(target, text.toString(), type);
+    }
+    
+    private void print(Console target, String text, MessageType type){
+        if (type==MessageType.ERROR){
+            target.printError(text);
+        } else {
+            target.print(text);
+        }
+    }
+    
+    /**
+     * A finished line, or the part of one that was flushed.
+     */
+    private static class Line {
+        
+        private final String text;
+        private final MessageType type;
+        
+        private Line(String text, MessageType type){
+            this.text = text;
+            this.type = type;
+        }
+    
+    }
+    
+    /**
+     * The bytes a thread has printed since its last finished line.
+     */
+    private static class LineBuffer {
+        
+        private byte[] bytes = new byte[128];
+        private int count;
+        
+        private void add(int b){
+            if (count==bytes.length){
+                bytes = Arrays.copyOf(bytes, count*2);
+            }
+            bytes[count++] = (byte) b;
+        }
+        
+        private String take(){
+            String text = new String(bytes, 0, count, UTF_8);
+            count = 0;
+            if (bytes.length>8192){
+                // don't keep a huge buffer around for one long line
+                bytes = new byte[128];
+            }
+            return text;
+        }
+        
+        private void writeTo(PrintStream out){
+            out.write(bytes, 0, count);
+            count = 0;
+        }
+    
+    }
+    
+    /**
+     * The stream under the <code>PrintStream</code> that replaces <code>System.out</code> or
+     * <code>System.err</code>.
+     */
+    private class CaptureStream extends OutputStream {
+        
+        private final MessageType type;
+        private final PrintStream original;
+        
+        private final ThreadLocal<LineBuffer> buffers = new ThreadLocal<LineBuffer>(){
+            @Override
+            protected LineBuffer initialValue(){
+                return new LineBuffer();
+            }
+        };
+        
+        private CaptureStream(MessageType type, PrintStream original){
+            this.type = type;
+            this.original = original;
+        }
+        
+        /**
+         * true if the text should go straight to the stream this replaced, because a listener of 
+         * the console printed it or because the capture was removed from the console while 
+         * something still held this stream. Then nothing would take it from the queue, so it 
+         * would only pile up. Any part of a line the thread printed before is written first.
+         */
+        private boolean passThrough(){
+            if (Thread.currentThread()==dispatcher){
+                return true;
+            }
+            if (console!=null){
+                return false;
+            }
+            LineBuffer buffer = buffers.get();
+            if (buffer.count>0){
+                buffer.writeTo(original);
+            }
+            return true;
+        }
+        
+        @Override
+        public void write(int b){
+            if (passThrough()){
+                // printed by a listener of the console, or the capture was removed
+                original.write(b);
+                return;
+            }
+            LineBuffer buffer = buffers.get();
+            buffer.add(b);
+            if (b=='\n'){
+                lines.add(new Line(buffer.take(), type));
+            }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len){
+            if (passThrough()){
+                original.write(b, off, len);
+                return;
+            }
+            LineBuffer buffer = buffers.get();
+            int end = off+len;
+            for (int q = off; q < end; q++){
+                buffer.add(b[q]);
+                if (b[q]=='\n'){
+                    lines.add(new Line(buffer.take(), type));
+                }
+            }
+        }
+        
+        /**
+         * hands the part of a line the current thread has printed to the console, so prompts
+         * without a <code>'\n'</code> show up.
+         */
+        @Override
+        public void flush(){
+            if (passThrough()){
+                original.flush();
+                return;
+            }
+            LineBuffer buffer = buffers.get();
+            if (buffer.count>0){
+                lines.add(new Line(buffer.take(), type));
+            }
+        }
+    
+    }
+    
+}
@@ -0,0 +1,83 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.extensions.command.samples;
+
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.extensions.command.CommandExtension;
+import io.github.lal872k.console.output.ExportFormat;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes the output to a file on a background thread. The format is <code>plain</code>, 
+ * <code>ansi</code> or <code>html</code>, and when it is left out it comes from the end of the 
+ * file name.
+ * @author L. Arthur Lewis II
+ */
+public final class Export extends CommandExtension {
+    
+    public static final String KEYWORD = "export";
+    public static final String FIELDS = "filePath format";
+    
+    public Export(){
+        super(KEYWORD, FIELDS);
+    }
+    
+    @Override
+    public void execute(Console console, String[] arguments) {
+        if (arguments.length==0){
+            console.printlnError("Need to provide file path");
+            return;
+        }
+        Path path;
+        try {
+            path = Paths.get(arguments[0]);
+        } catch (InvalidPathException ex) {
+            console.printlnError("Invalid file path: " + ex.getMessage());
+            return;
+        }
+        ExportFormat format;
+        if (arguments.length>1){
+            try {
+                format = ExportFormat.valueOf(arguments[1].toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                console.printlnError("Unknown format \"" + arguments[1] 
+                        + "\", use plain, ansi or html");
+                return;
+            }
+        } else {
+            format = ExportFormat.forFileName(arguments[0]);
+        }
+        console.exportOutput(path, format).whenComplete((lines, ex) -> {
+            if (ex!=null){
+                console.printlnError("Issue while exporting: " + ex.getMessage());
+            } else {
+                console.println("Exported " + lines + (lines==1 ? " line" : " lines") + " to " 
+                        + path.toAbsolutePath());
+            }
+        });
+    }
+    
+}
@@ -24,6 +24,7 @@
 package io.github.lal872k.console.extensions.command.samples;
 
 import io.github.lal872k.console.Console;
+import io.github.lal872k.console.Region;
 import io.github.lal872k.console.extensions.command.CommandExtension;
 import java.io.File;
 import java.io.FileInputStream;
@@ -67,6 +68,14 @@ public class SubstitutionCipher extends CommandExtension{
     }
     
     private static CipherStats cryptFolder(File in, File out, int code, CryptType type) throws InvalidFileTypeException, FileNotFoundException, IOException {
+        return cryptFolder(in, out, code, type, null);
+    }
+    
+    /**
+     * crypts every file in the folder. If <code>progress</code> isn't null it is updated with the 
+     * amount of files done after each file.
+     */
+    private static CipherStats cryptFolder(File in, File out, int code, CryptType type, Region progress) throws InvalidFileTypeException, FileNotFoundException, IOException {
         // make sure they are files
         if (isFile(in) || isFile(out)){
             throw new InvalidFileTypeException();
@@ -96,9 +105,15 @@ public class SubstitutionCipher extends CommandExtension{
         
         stats.setFilesEncrypted(files.size());
         
+        int done = 0;
         for (PendingFile oldFile : files){
             File newFile = oldFile.getNewFile(out);
             cryptFile(oldFile.getOldFile(), newFile, code, type);
+            done++;
+            if (progress!=null){
+                progress.update("Files: " + done + "/" + files.size() + " (" 
+                        + (done*100/files.size()) + "%)");
+            }
         }
         
         stats.end();
@@ -282,18 +297,10 @@ public class SubstitutionCipher extends CommandExtension{
             
             // dir
             if (!isFile(in) && !isFile(out)){
+                // one line that shows how many files are done instead of a line per file
+                Region progress = console.openRegion("Files: 0");
                 try {
-                    CipherStats stats;
-                    switch (direction) {
-                        case DECRYPT:
-                            stats = decryptFolder(in, out, code);
-                            break;
-                        case ENCRYPT:
-                            stats = encryptFolder(in, out, code);
-                            break;
-                        default:
-                            return;
-                    }
+                    CipherStats stats = cryptFolder(in, out, code, direction, progress);
                     console.println("Cipher Completed!");
                     stats.printData(console);
                 } catch (InvalidFileTypeException e){
@@ -302,6 +309,8 @@ public class SubstitutionCipher extends CommandExtension{
                 } catch (IOException ex) {
                     console.printlnError("An io issue occured. This could be do to file's not existing.");
                     ex.printStackTrace();
+                } finally {
+                    progress.close();
                 }
             }
             // file
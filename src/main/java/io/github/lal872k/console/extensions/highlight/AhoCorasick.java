@@ -0,0 +1,214 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.extensions.highlight;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An Aho-Corasick automaton that finds every place any of a list of words is in a text while
+ * only looking at each character once, however many words there are.
+ * <p>
+ * ASCII characters move between states through one table lookup. Other characters follow the
+ * edges of the trie and its failure links, which is slower but still linear.
+ * @author L. Arthur Lewis II
+ */
+final class AhoCorasick {
+    
+    private static final int ASCII = 128;
+    
+    /**
+     * Told about every word found.
+     */
+    interface Found {
+        
+        /**
+         * @param word the index of the word in the list the automaton was made with.
+         * @param start the index of the first character of the word in the text.
+         * @param end the index after the last character of the word.
+         */
+        void found(int word, int start, int end);
+    
+    }
+    
+    private final int[] lengths;
+    // next state for every state and ASCII character, failure links already followed
+    private final int[] ascii;
+    // trie edges for characters outside of ASCII, keyed by state and character
+    private final HashMap<Long, Integer> edges;
+    private final int[] fail;
+    // the words that end at each state, including the ones of its failure links
+    private final int[][] out;
+    
+    /**
+     * @param words the words to look for, none can be empty.
+     */
+    AhoCorasick(List<String> words){
+        lengths = new int[words.size()];
+        // build the trie
+        ArrayList<HashMap<Character, Integer>> trie = new ArrayList<HashMap<Character, Integer>>();
+        ArrayList<int[]> own = new ArrayList<int[]>();
+        trie.add(new HashMap<Character, Integer>());
+        own.add(new int[0]);
+        for (int w = 0; w < words.size(); w++){
+            String word = words.get(w);
+            lengths[w] = word.length();
+            int state = 0;
+            for (int q = 0; q < word.length(); q++){
+                Integer next = trie.get(state).get(word.charAt(q));
+                if (next==null){
+                    next = trie.size();
+                    trie.get(state).put(word.charAt(q), next);
+                    trie.add(new HashMap<Character, Integer>());
+                    own.add(new int[0]);
+                }
+                state = next;
+            }
+            int[] ends = own.get(state);
+            int[] more = new int[ends.length+1];
+            System.arraycopy(ends, 0, more, 0, ends.length);
+            more[ends.length] = w;
+            own.set(state, more);
+        }
+        int states = trie.size();
+        fail = new int[states];
+        out = new int[states][];
+        ascii = new int[states*ASCII];
+        edges = new HashMap<Long, Integer>();
+        // breadth first so the failure link of a state is always done before the state
+        ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+        out[0] = own.get(0);
+        for (int c = 0; c < ASCII; c++){
+            Integer next = trie.get(0).get((char) c);
+            ascii[c] = next==null ? 0 : next;
+        }
+        for (Map.Entry<Character, Integer> edge : trie.get(0).entrySet()){
+            fail[edge.getValue()] = 0;
+            queue.add(edge.getValue());
+            if (edge.getKey()>=ASCII){
+                edges.put(key(0, edge.getKey()), edge.getValue());
+            }
+        }
+        while (!queue.isEmpty()){
+            int state = queue.poll();
+            int[] ends = own.get(state);
+            int[] inherited = out[fail[state]];
+            if (inherited.length==0){
+                out[state] = ends;
+            } else {
+                int[] all = new int[ends.length+inherited.length];
+                System.arraycopy(ends, 0, all, 0, ends.length);
+                System.arraycopy(inherited, 0, all, ends.length, inherited.length);
+                out[state] = all;
+            }
+            HashMap<Character, Integer> children = trie.get(state);
+            for (int c = 0; c < ASCII; c++){
+                Integer next = children.get((char) c);
+                ascii[state*ASCII+c] = next==null ? ascii[fail[state]*ASCII+c] : next;
+            }
+            for (Map.Entry<Character, Integer> edge : children.entrySet()){
+                char c = edge.getKey();
+                int child = edge.getValue();
+                fail[child] = step(fail[state], c);
+                queue.add(child);
+                if (c>=ASCII){
+                    edges.put(key(state, c), child);
+                }
+            }
+        }
+    }
+    
+    private static long key(int state, char c){
+        return ((long) state<<16) | c;
+    }
+    
+    /**
+     * The state after the character, following failure links until there is an edge for it.
+     * Only used for the failure links of states that are already done, and for characters
+     * outside of ASCII.
+     */
+    private int step(int state, char c){
+        if (c<ASCII){
+            return ascii[state*ASCII+c];
+        }
+        while (true){
+            Integer next = edges.get(key(state, c));
+            if (next!=null){
+                return next;
+            }
+            if (state==0){
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+    
+    /**
+     * Finds every word in part of a text, including words that overlap.
+     * @param text the text to search.
+     * @param start the index to start at.
+     * @param end the index to stop before.
+     * @param found told about each word in the order their ends are found.
+     */
+    void scan(CharSequence text, int start, int end, Found found){
+        int state = 0;
+        for (int q = start; q < end; q++){
+            state = step(state, text.charAt(q));
+            int[] words = out[state];
+            for (int word : words){
+                found.found(word, q+1-lengths[word], q+1);
+            }
+        }
+    }
+    
+    /**
+     * @param text the text to search.
+     * @return the index where the first word in the text starts, or -1 if there are none.
+     */
+    int firstStart(CharSequence text){
+        int first = -1;
+        int state = 0;
+        for (int q = 0; q < text.length(); q++){
+            state = step(state, text.charAt(q));
+            for (int word : out[state]){
+                int start = q+1-lengths[word];
+                if (first<0 || start<first){
+                    first = start;
+                }
+            }
+        }
+        return first;
+    }
+    
+    /**
+     * @return the amount of states in the automaton.
+     */
+    int getStates(){
+        return fail.length;
+    }
+    
+}
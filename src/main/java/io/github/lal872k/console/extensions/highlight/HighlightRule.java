@@ -0,0 +1,164 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.extensions.highlight;
+
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import java.awt.Color;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * One rule of <code>{@link lal.console.extensions.highlight.HighlightRules}</code>: the text to
+ * look for and the colors to draw it in. The text is either a literal, which is found exactly as
+ * it is written, or a regular expression. A rule can color only the text it found or the whole
+ * line it was found on.
+ * <p>
+ * A <code>null</code> color keeps the color the text was printed with.
+ * @author L. Arthur Lewis II
+ */
+public final class HighlightRule {
+    
+    private final String pattern;
+    private final boolean regex;
+    private final Color foreground;
+    private final Color background;
+    private final boolean wholeLine;
+    
+    // the style of highlighted text for each style it was printed with
+    private final ConcurrentHashMap<TextStyle, TextStyle> styles;
+    
+    private HighlightRule(String pattern, boolean regex, Color foreground, Color background,
+            boolean wholeLine){
+        if (pattern.isEmpty()){
+            throw new IllegalArgumentException("A highlight rule can't look for empty text");
+        }
+        if (regex){
+            // fail here instead of when the rules are compiled together
+            Pattern.compile(pattern);
+        }
+        this.pattern = pattern;
+        this.regex = regex;
+        this.foreground = foreground;
+        this.background = background;
+        this.wholeLine = wholeLine;
+        styles = new ConcurrentHashMap<TextStyle, TextStyle>();
+    }
+    
+    /**
+     * @param text the text to look for.
+     * @param foreground the color to draw it in.
+     * @return a rule that colors the text.
+     */
+    public static HighlightRule literal(String text, Color foreground){
+        return new HighlightRule(text, false, foreground, null, false);
+    }
+    
+    /**
+     * @param text the text to look for.
+     * @param foreground the color to draw it in.
+     * @param background the background to draw it on.
+     * @param wholeLine true to color the whole line the text is on.
+     * @return the rule.
+     */
+    public static HighlightRule literal(String text, Color foreground, Color background,
+            boolean wholeLine){
+        return new HighlightRule(text, false, foreground, background, wholeLine);
+    }
+    
+    /**
+     * @param regex the regular expression to look for, it is matched within one line.
+     * @param foreground the color to draw it in.
+     * @return a rule that colors the text matched.
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid.
+     */
+    public static HighlightRule regex(String regex, Color foreground){
+        return new HighlightRule(regex, true, foreground, null, false);
+    }
+    
+    /**
+     * @param regex the regular expression to look for, it is matched within one line. Back
+     * references like <code>\1</code> are not supported since the expression is joined with
+     * the other rules.
+     * @param foreground the color to draw it in.
+     * @param background the background to draw it on.
+     * @param wholeLine true to color the whole line the text is on.
+     * @return the rule.
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid.
+     */
+    public static HighlightRule regex(String regex, Color foreground, Color background,
+            boolean wholeLine){
+        return new HighlightRule(regex, true, foreground, background, wholeLine);
+    }
+    
+    /**
+     * @param base the style the text was printed with.
+     * @return the style to draw the highlighted text with.
+     */
+    TextStyle apply(TextStyle base){
+        TextStyle style = styles.get(base);
+        if (style==null){
+            style = StyleTable.getShared().intern(
+                    foreground==null ? base.getForeground() : foreground,
+                    background==null ? base.getBackground() : background, base.getType());
+            styles.put(base, style);
+        }
+        return style;
+    }
+    
+    /**
+     * @return the literal text or regular expression looked for.
+     */
+    public String getPattern(){
+        return pattern;
+    }
+    
+    /**
+     * @return true if the pattern is a regular expression.
+     */
+    public boolean isRegex(){
+        return regex;
+    }
+    
+    public Color getForeground(){
+        return foreground;
+    }
+    
+    public Color getBackground(){
+        return background;
+    }
+    
+    /**
+     * @return true if the whole line the text is found on is colored.
+     */
+    public boolean isWholeLine(){
+        return wholeLine;
+    }
+    
+    @Override
+    public String toString(){
+        return (regex ? "regex " : "literal ") + pattern + (wholeLine ? " (whole line)" : "");
+    }
+    
+}
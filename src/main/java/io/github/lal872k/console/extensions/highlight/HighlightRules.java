@@ -0,0 +1,327 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.extensions.highlight;
+
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.extensions.ConsoleExtension;
+import io.github.lal872k.console.output.Highlighter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HighlightRules is a <code>ConsoleExtension</code> that colors the text printed to a console
+ * by a list of <code>{@link lal.console.extensions.highlight.HighlightRule}s</code>, for example
+ * every <code>"Exception"</code> in red or every line with <code>"WARN"</code> in yellow, without
+ * the code that prints having to pick any colors.
+ * <p>
+ * Whenever the rules change they are compiled into one
+ * <code>{@link lal.console.extensions.highlight.AhoCorasick}</code> automaton for all of the
+ * literal rules and one <code>Pattern</code> that joins all of the regular expressions, so the
+ * text of each print is looked through once by each of them however many rules there are. This
+ * happens on the thread that prints, never on the event dispatch thread.
+ * <p>
+ * A regular expression is much slower to run than the automaton. When every expression starts 
+ * with some literal text, like <code>"user=\\w+"</code>, that text is put in a second automaton 
+ * and the expressions are only run on text where it is found, starting from the first place it 
+ * is. Rules that can start with anything, like <code>"\\d+ ms"</code>, make the expressions run 
+ * on every print.
+ * <p>
+ * When rules overlap, the rule that was added first decides the colors. The regular expressions
+ * are joined into one, so when two of them match at the same place only the first one is used.
+ * A rule only sees the text of one print, so text split between two prints is not found.
+ * @author L. Arthur Lewis II
+ */
+public class HighlightRules implements ConsoleExtension, Highlighter {
+    
+    private final ArrayList<HighlightRule> rules;
+    
+    private volatile Compiled compiled;
+    
+    public HighlightRules(){
+        rules = new ArrayList<HighlightRule>();
+        compiled = new Compiled(rules);
+    }
+    
+    @Override
+    public void addToConsole(Console console) {
+        console.setHighlighter(this);
+    }
+    
+    @Override
+    public void removeFromConsole(Console console) {
+        if (console.getHighlighter()==this){
+            console.setHighlighter(null);
+        }
+    }
+    
+    /**
+     * Adds a rule after all of the others.
+     * @param rule the rule.
+     */
+    public synchronized void addRule(HighlightRule rule){
+        rules.add(rule);
+        compiled = new Compiled(rules);
+    }
+    
+    /**
+     * Adds rules after all of the others, compiling them only once.
+     * @param more the rules.
+     */
+    public synchronized void addRules(List<HighlightRule> more){
+        rules.addAll(more);
+        compiled = new Compiled(rules);
+    }
+    
+    /**
+     * @param rule the rule to remove.
+     */
+    public synchronized void removeRule(HighlightRule rule){
+        if (rules.remove(rule)){
+            compiled = new Compiled(rules);
+        }
+    }
+    
+    /**
+     * Removes every rule.
+     */
+    public synchronized void clearRules(){
+        rules.clear();
+        compiled = new Compiled(rules);
+    }
+    
+    /**
+     * @return the rules, in the order they were added.
+     */
+    public synchronized List<HighlightRule> getRules(){
+        return Collections.unmodifiableList(new ArrayList<HighlightRule>(rules));
+    }
+    
+    @Override
+    public void highlight(String text, TextStyle style, Runs out){
+        Compiled current = compiled;
+        if (current.rules.length==0 || text.isEmpty()){
+            out.add(text, style);
+            return;
+        }
+        Paint paint = new Paint(current, text);
+        if (current.literals!=null){
+            current.literals.scan(text, 0, text.length(), paint);
+        }
+        int from = current.regex==null ? -1 
+                : current.prefixes==null ? 0 : current.prefixes.firstStart(text);
+        if (from>=0){
+            Matcher matcher = current.regex.matcher(text);
+            matcher.useTransparentBounds(true);
+            matcher.useAnchoringBounds(false);
+            matcher.region(from, text.length());
+            while (matcher.find()){
+                if (matcher.end()==matcher.start()){
+                    continue;
+                }
+                for (int q = 0; q < current.groups.length; q++){
+                    if (matcher.start(current.groups[q])>=0){
+                        paint.paint(current.regexRules[q], matcher.start(), matcher.end());
+                        break;
+                    }
+                }
+            }
+        }
+        paint.emit(style, out);
+    }
+    
+    /**
+     * The rules compiled for searching. Never changed once it is made.
+     */
+    private static final class Compiled {
+        
+        private final HighlightRule[] rules;
+        // the automaton of the literal rules and the index of the rule of each word
+        private final AhoCorasick literals;
+        private final int[] literalRules;
+        // the joined expression, the group of each rule in it and the index of the rule
+        private final Pattern regex;
+        private final int[] groups;
+        private final int[] regexRules;
+        // the literal text every expression starts with, null if one of them has none
+        private final AhoCorasick prefixes;
+        
+        private Compiled(List<HighlightRule> list){
+            rules = list.toArray(new HighlightRule[list.size()]);
+            ArrayList<String> words = new ArrayList<String>();
+            ArrayList<Integer> wordRules = new ArrayList<Integer>();
+            StringBuilder joined = new StringBuilder();
+            ArrayList<Integer> groupList = new ArrayList<Integer>();
+            ArrayList<Integer> groupRules = new ArrayList<Integer>();
+            ArrayList<String> starts = new ArrayList<String>();
+            int group = 1;
+            for (int q = 0; q < rules.length; q++){
+                HighlightRule rule = rules[q];
+                if (!rule.isRegex()){
+                    words.add(rule.getPattern());
+                    wordRules.add(q);
+                    continue;
+                }
+                if (joined.length()>0){
+                    joined.append('|');
+                }
+                joined.append('(').append(rule.getPattern()).append(')');
+                groupList.add(group);
+                groupRules.add(q);
+                String start = literalPrefix(rule.getPattern());
+                if (starts!=null && !start.isEmpty()){
+                    starts.add(start);
+                } else {
+                    starts = null;
+                }
+                // the group around the rule plus the groups inside of it
+                group += 1 + Pattern.compile(rule.getPattern()).matcher("").groupCount();
+            }
+            literals = words.isEmpty() ? null : new AhoCorasick(words);
+            literalRules = toArray(wordRules);
+            regex = joined.length()==0 ? null : Pattern.compile(joined.toString(), Pattern.MULTILINE);
+            groups = toArray(groupList);
+            regexRules = toArray(groupRules);
+            prefixes = regex==null || starts==null ? null : new AhoCorasick(starts);
+        }
+        
+        /**
+         * Only understands simple expressions, anything it isn't sure of ends the prefix early.
+         * @return the literal text every match of the expression starts with, empty if there 
+         * isn't any.
+         */
+        static String literalPrefix(String regex){
+            if (regex.indexOf('|')>=0){
+                // the prefix of one side says nothing about the other
+                return "";
+            }
+            StringBuilder prefix = new StringBuilder();
+            int q = 0;
+            if (regex.startsWith("^")){
+                q++;
+            }
+            while (q<regex.length()){
+                char c = regex.charAt(q);
+                if (c=='\\' && q+1<regex.length()){
+                    char next = regex.charAt(q+1);
+                    if (next=='b' || next=='B'){
+                        // word boundaries don't match any text
+                        q += 2;
+                        continue;
+                    }
+                    if (Character.isLetterOrDigit(next)){
+                        // a class like \d or an escape like \Q
+                        break;
+                    }
+                    c = next;
+                    q++;
+                } else if (!Character.isLetterOrDigit(c) && " =-_:/,;'\"<>@#%&!~`".indexOf(c)<0){
+                    break;
+                }
+                q++;
+                if (q<regex.length() && "?*{".indexOf(regex.charAt(q))>=0){
+                    // the character might not be there
+                    break;
+                }
+                prefix.append(c);
+                if (q<regex.length() && regex.charAt(q)=='+'){
+                    break;
+                }
+            }
+            return prefix.toString();
+        }
+        
+        private static int[] toArray(List<Integer> list){
+            int[] array = new int[list.size()];
+            for (int q = 0; q < array.length; q++){
+                array[q] = list.get(q);
+            }
+            return array;
+        }
+    
+    }
+    
+    /**
+     * Keeps track of which rule colors each character of one print.
+     */
+    private static final class Paint implements AhoCorasick.Found {
+        
+        private final Compiled compiled;
+        private final String text;
+        // the index of the rule of each character plus one, 0 if none. Only made once needed
+        private int[] owners;
+        
+        private Paint(Compiled compiled, String text){
+            this.compiled = compiled;
+            this.text = text;
+        }
+        
+        // a word of the automaton was found
+        @Override
+        public void found(int word, int start, int end){
+            paint(compiled.literalRules[word], start, end);
+        }
+        
+        private void paint(int rule, int start, int end){
+            if (compiled.rules[rule].isWholeLine()){
+                start = text.lastIndexOf('\n', start-1)+1;
+                end = text.indexOf('\n', Math.max(start, end-1));
+                if (end<0){
+                    end = text.length();
+                }
+            }
+            if (owners==null){
+                owners = new int[text.length()];
+            }
+            int owner = rule+1;
+            for (int q = start; q < end; q++){
+                if (owners[q]==0 || owners[q]>owner){
+                    owners[q] = owner;
+                }
+            }
+        }
+        
+        // hands the text to out in runs of the same rule
+        private void emit(TextStyle style, Runs out){
+            if (owners==null){
+                out.add(text, style);
+                return;
+            }
+            int start = 0;
+            for (int q = 1; q <= owners.length; q++){
+                if (q==owners.length || owners[q]!=owners[start]){
+                    int owner = owners[start];
+                    out.add(text.substring(start, q),
+                            owner==0 ? style : compiled.rules[owner-1].apply(style));
+                    start = q;
+                }
+            }
+        }
+    
+    }
+    
+}
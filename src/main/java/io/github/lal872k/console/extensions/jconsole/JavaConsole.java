@@ -27,22 +27,27 @@ import io.github.lal872k.console.Console;
 import io.github.lal872k.console.Message;
 import io.github.lal872k.console.MessageType;
 import io.github.lal872k.console.extensions.ConsoleExtension;
+import io.github.lal872k.console.extensions.capture.SystemCapture;
 import io.github.lal872k.console.output.OutputListener;
 
 
 /**
  * JavaConsole is a simple class the implements <code>ConsoleExtension</code> and makes sure 
  * everything that is printed out to the console also get printed out to the java console.
+ * <p>
+ * If a <code>{@link lal.console.extensions.capture.SystemCapture}</code> is active the text is 
+ * printed to the streams it replaced so it doesn't come back into the console.
  * @author L. Arthur Lewis II
  */
 public class JavaConsole implements OutputListener, ConsoleExtension{
     
     @Override
     public void listen(Message message, Console console) {
-        if (message.getType().equals(MessageType.NORMAL)){
-            System.out.println(message.getText());
-        } else if (message.getType().equals(MessageType.ERROR)){
-            System.err.println(message.getText());
+        // warnings and errors go to System.err, every other level to System.out
+        if (message.getType().isAtLeast(MessageType.WARN)){
+            SystemCapture.getRealErr().println(message.getText());
+        } else {
+            SystemCapture.getRealOut().println(message.getText());
         }
     }
 
@@ -0,0 +1,572 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.headless;
+
+import io.github.lal872k.console.Channel;
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.Display;
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.Region;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.output.Exporter;
+import io.github.lal872k.console.output.FilterSet;
+import io.github.lal872k.console.output.FilteredLines;
+import io.github.lal872k.console.output.LineFilter;
+import io.github.lal872k.console.output.OutputQueue;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.ScrollbackPolicy;
+import io.github.lal872k.console.ui.ACManager;
+import io.github.lal872k.console.ui.preferences.DrawPreference;
+import io.github.lal872k.console.ui.preferences.exceptions.InvalidDrawPreferences;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * The <code>{@link lal.console.Display}</code> of a headless <code>{@link lal.console.Console}</code>.
+ * Output is written to a <code>Writer</code>, like <code>System.out</code>, and every line read
+ * from a <code>Reader</code>, like <code>System.in</code>, is handled as if it was typed in the
+ * input field of a window. Nothing here loads any <code>Swing</code> classes, so a headless
+ * console can run on a server without a display and starts much faster.
+ * <p>
+ * When ANSI is on, text in colors other than the normal colors of the <code>DrawPreference</code>
+ * is written with ANSI color codes, the window title is set with an escape code, and updates to a
+ * <code>{@link lal.console.Region}</code> clear the rest of the line. Without ANSI only the text
+ * is written.
+ * <p>
+ * A region can only be redrawn while it is the last line written, since a stream can only go
+ * back to the start of its current line. Updates to an older region still change its text in the
+ * scrollback but are not written. Queued output is written right away and
+ * <code>clearOutput()</code> only clears the scrollback, the text that was written stays.
+ * @author L. Arthur Lewis II
+ */
+public class HeadlessDisplay implements Display {
+    
+    /**
+     * The policy used until <code>{@link #setScrollbackPolicy(ScrollbackPolicy)}</code> is called.
+     * A headless console is often left running for a long time, so unlike the window it doesn't
+     * keep everything.
+     */
+    public static final ScrollbackPolicy DEFAULT_POLICY = ScrollbackPolicy.lines(10000);
+    
+    private static final String ESC = "\u001b[";
+    private static final String RESET = ESC + "0m";
+    private static final String CLEAR_LINE_END = ESC + "K";
+    private static final String NO_CODES = "";
+    
+    private final Console console;
+    private final BufferedReader in;
+    private final Writer out;
+    private final boolean ansi;
+    
+    private final Scrollback scrollback;
+    private final FilterSet filters;
+    private volatile ScrollbackPolicy scrollbackPolicy = DEFAULT_POLICY;
+    
+    private final ACManager acmanager;
+    
+    private volatile TextStyle normal;
+    // the color codes of each interned style by id, NO_CODES if it has none, only used while
+    // holding the output lock
+    private String[] codes = new String[0];
+    
+    // held while the scrollback and the writer are used so they always match
+    private final Object outputLock = new Object();
+    
+    // the region written last, its line hasn't been finished in the writer yet
+    private long regionLine = -1;
+    private int regionLength;
+    
+    // true when the last text added ended with a '\r' that hasn't been handled yet
+    private boolean pendingReturn;
+    
+    private volatile String input;
+    private Thread reader;
+    private volatile boolean trashed;
+    
+    /**
+     * @param console the console using this display.
+     * @param dp the colors of the console.
+     * @param in where the input lines come from, <code>null</code> for no input.
+     * @param out where the output is written.
+     * @param ansi true to write ANSI escape codes.
+     */
+    public HeadlessDisplay(Console console, DrawPreference dp, Reader in, Writer out, boolean ansi){
+        this.console = console;
+        this.in = in==null ? null
+                : in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.out = out;
+        this.ansi = ansi;
+        scrollback = new Scrollback();
+        filters = new FilterSet(scrollback);
+        acmanager = new ACManager();
+        normal = dp.getStyle(MessageType.NORMAL);
+    }
+    
+    /**
+     * Starts the thread that reads input lines, called by <code>{@link #show()}</code>. Each 
+     * line is handled by
+     * <code>{@link lal.console.Console#handleTextFromInput()}</code>. The thread stops at the end
+     * of the input or when the display is trashed.
+     */
+    public synchronized void startReading(){
+        if (in==null || reader!=null){
+            return;
+        }
+        reader = new Thread(this::read, "Console Input");
+        reader.setDaemon(true);
+        reader.start();
+    }
+    
+    private void read(){
+        try {
+            String line;
+            while (!trashed && (line = in.readLine())!=null){
+                input = line;
+                console.handleTextFromInput();
+            }
+        } catch (IOException ex) {
+            if (!trashed){
+                ex.printStackTrace();
+            }
+        }
+    }
+    
+    @Override
+    public void appendToOutput(String msg, TextStyle style){
+        if (msg.isEmpty()){
+            return;
+        }
+        synchronized (outputLock){
+            try {
+                endRegion();
+                insertOutput(msg, style);
+                write(msg, style);
+                out.flush();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+            filters.update();
+            trimOutput();
+        }
+    }
+    
+    @Override
+    public void appendLine(String msg, TextStyle style){
+        synchronized (outputLock){
+            try {
+                endRegion();
+                if (pendingReturn || msg.indexOf('\r')>=0){
+                    insertOutput(msg, style);
+                    insertOutput("\n", style);
+                } else {
+                    scrollback.appendLine(msg, style);
+                }
+                write(msg, style);
+                out.write('\n');
+                out.flush();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+            filters.update();
+            trimOutput();
+        }
+    }
+    
+    /**
+     * Adds text to the scrollback the same way the window does: a <code>'\r'</code> that isn't 
+     * part of a <code>"\r\n"</code> removes the text of the open line so the text after it 
+     * replaces the line. Only the writer gets the <code>'\r'</code> itself. Must hold the output 
+     * lock.
+     */
+    private void insertOutput(String msg, TextStyle style){
+        if (!pendingReturn && msg.indexOf('\r')<0){
+            scrollback.append(msg, style);
+            return;
+        }
+        if (msg.isEmpty()){
+            return;
+        }
+        if (pendingReturn){
+            pendingReturn = false;
+            if (msg.charAt(0)!='\n'){
+                scrollback.clearOpenLine();
+            }
+        }
+        int start = 0;
+        int ret;
+        while ((ret = msg.indexOf('\r', start))>=0){
+            scrollback.append(msg.substring(start, ret), style);
+            start = ret+1;
+            if (start==msg.length()){
+                // wait for the next text to see if this is a "\r\n"
+                pendingReturn = true;
+                return;
+            }
+            if (msg.charAt(start)!='\n'){
+                scrollback.clearOpenLine();
+            }
+        }
+        scrollback.append(msg.substring(start), style);
+    }
+    
+    /**
+     * There are no frames without a window, the text is written right away.
+     */
+    @Override
+    public void queueOutput(String msg, TextStyle style){
+        appendToOutput(msg, style);
+    }
+    
+    /**
+     * @return <code>null</code>, queued text is written right away.
+     */
+    @Override
+    public OutputQueue getOutputQueue(){
+        return null;
+    }
+    
+    @Override
+    public long openRegion(String text, TextStyle style){
+        synchronized (outputLock){
+            long line;
+            try {
+                endRegion();
+                if (scrollback.hasOpenLine()){
+                    scrollback.append("\n", style);
+                    out.write('\n');
+                }
+                line = scrollback.getEndLine();
+                scrollback.append(text+"\n", style);
+                // the '\n' is only written once something comes after the region
+                write(text, style);
+                out.flush();
+                regionLine = line;
+                regionLength = text.length();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                line = scrollback.getEndLine()-1;
+            }
+            filters.update();
+            trimOutput();
+            return line;
+        }
+    }
+    
+    @Override
+    public long getLastLine(){
+        synchronized (outputLock){
+            long end = scrollback.getEndLine();
+            if (scrollback.hasOpenLine() || end==scrollback.getFirstLine()){
+                return -1;
+            }
+            return end-1;
+        }
+    }
+    
+    /**
+     * Rewrites the region right away if it is the last line written.
+     */
+    @Override
+    public void queueRegionUpdate(Region region){
+        synchronized (outputLock){
+            long line = region.getLine();
+            if (!scrollback.contains(line)){
+                return;
+            }
+            String text = region.getText();
+            TextStyle style = region.getStyle();
+            scrollback.replaceLine(line, text, style);
+            if (line!=regionLine){
+                return;
+            }
+            try {
+                out.write('\r');
+                write(text, style);
+                if (ansi){
+                    out.write(CLEAR_LINE_END);
+                } else {
+                    for (int q = text.length(); q < regionLength; q++){
+                        out.write(' ');
+                    }
+                }
+                out.flush();
+                regionLength = text.length();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+    
+    // finishes the line of the last region so text can come after it
+    private void endRegion() throws IOException {
+        if (regionLine>=0){
+            out.write('\n');
+            regionLine = -1;
+        }
+    }
+    
+    private void write(String msg, TextStyle style) throws IOException {
+        String codes = ansi ? colorCodes(style) : null;
+        if (codes==null){
+            out.write(msg);
+        } else {
+            // the colors end before a last '\n' so they don't carry on to the next line
+            int end = msg.endsWith("\n") ? msg.length()-1 : msg.length();
+            out.write(codes);
+            out.write(msg, 0, end);
+            out.write(RESET);
+            out.write(msg, end, msg.length()-end);
+        }
+    }
+    
+    /**
+     * The colors of normal text are left to the terminal. The codes of each style are only made 
+     * once, until the normal colors change. Must hold the output lock.
+     */
+    private String colorCodes(TextStyle style){
+        int id = style.getId();
+        if (id>=codes.length){
+            codes = Arrays.copyOf(codes, Math.max(codes.length*2, id+16));
+        }
+        String styleCodes = codes[id];
+        if (styleCodes==null){
+            styleCodes = Exporter.ansiCodes(style, normal);
+            codes[id] = styleCodes==null ? NO_CODES : styleCodes;
+        }
+        return styleCodes==NO_CODES ? null : styleCodes;
+    }
+    
+    /**
+     * Clears the scrollback. The text already written can't be taken back.
+     */
+    @Override
+    public void clearOutput(){
+        synchronized (outputLock){
+            pendingReturn = false;
+            scrollback.clear();
+            filters.clear();
+            try {
+                endRegion();
+                out.flush();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+    
+    @Override
+    public void trimOutput(){
+        if (scrollback.trim(scrollbackPolicy)>0){
+            filters.trim(scrollback.getFirstLine());
+        }
+    }
+    
+    /**
+     * Lines added straight to the scrollback are kept and filtered, but not written.
+     */
+    @Override
+    public void reloadOutput(){
+        synchronized (outputLock){
+            trimOutput();
+            filters.update();
+        }
+    }
+    
+    @Override
+    public void setScrollbackPolicy(ScrollbackPolicy scrollbackPolicy){
+        this.scrollbackPolicy = scrollbackPolicy;
+    }
+    
+    @Override
+    public ScrollbackPolicy getScrollbackPolicy(){
+        return scrollbackPolicy;
+    }
+    
+    @Override
+    public int getOutputLineCount(){
+        return scrollback.getLineCount();
+    }
+    
+    @Override
+    public long getOutputBytes(){
+        return scrollback.getBytes();
+    }
+    
+    @Override
+    public Scrollback getScrollback(){
+        return scrollback;
+    }
+    
+    @Override
+    public FilteredLines addFilter(String name, LineFilter filter){
+        FilteredLines lines = filters.add(name, filter);
+        synchronized (outputLock){
+            filters.update();
+            filters.trim(scrollback.getFirstLine());
+        }
+        return lines;
+    }
+    
+    @Override
+    public void removeFilter(String name){
+        filters.remove(name);
+    }
+    
+    /**
+     * Text that has been written can't be taken back, so this does nothing. The filtered lines 
+     * can still be read from <code>{@link #getFilters()}</code>.
+     * @param name the name of the filter.
+     */
+    @Override
+    public void showFilter(String name){}
+    
+    @Override
+    public String getShownFilter(){
+        return null;
+    }
+    
+    @Override
+    public FilterSet getFilters(){
+        return filters;
+    }
+    
+    // channels are only kept in their own scrollback, nothing is written for them
+    @Override
+    public void addChannel(Channel channel){}
+    
+    @Override
+    public void removeChannel(Channel channel){}
+    
+    @Override
+    public void channelChanged(Channel channel){}
+    
+    @Override
+    public void showChannel(Channel channel){}
+    
+    @Override
+    public Channel getShownChannel(){
+        return null;
+    }
+    
+    @Override
+    public ACManager getACManager(){
+        return acmanager;
+    }
+    
+    @Override
+    public String takeInput(){
+        String text = input;
+        input = null;
+        return text;
+    }
+    
+    /**
+     * Only the normal colors are used, they decide which text needs color codes.
+     */
+    @Override
+    public void styleComponents(DrawPreference pref) throws InvalidDrawPreferences {
+        if (!pref.isValid()){
+            throw new InvalidDrawPreferences("Invalid Draw Preference: " + pref.toString());
+        }
+        synchronized (outputLock){
+            normal = pref.getStyle(MessageType.NORMAL);
+            codes = new String[0];
+        }
+    }
+    
+    /**
+     * There is no window, starts reading input if it hasn't started.
+     */
+    @Override
+    public void show(){
+        startReading();
+    }
+    
+    /**
+     * There is no window to hide.
+     */
+    @Override
+    public void hide(){}
+    
+    /**
+     * @return true until the display is trashed.
+     */
+    @Override
+    public boolean isShowing(){
+        return !trashed;
+    }
+    
+    /**
+     * Stops reading input and flushes the writer. Neither stream is closed since they are often
+     * <code>System.in</code> and <code>System.out</code>.
+     */
+    @Override
+    public void trash(){
+        trashed = true;
+        synchronized (outputLock){
+            try {
+                endRegion();
+                out.flush();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+            scrollback.close();
+        }
+    }
+    
+    /**
+     * Sets the title of the terminal window if ANSI is on.
+     */
+    @Override
+    public void setWindowTitle(String title){
+        if (!ansi){
+            return;
+        }
+        synchronized (outputLock){
+            try {
+                out.write("\u001b]0;" + title + "\u0007");
+                out.flush();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * There is no window to close.
+     */
+    @Override
+    public void setCloseOperation(int operation){}
+    
+    /**
+     * @return true if ANSI escape codes are written.
+     */
+    public boolean isAnsi(){
+        return ansi;
+    }
+    
+}
@@ -24,7 +24,7 @@
 package io.github.lal872k.console.input;
 
 import io.github.lal872k.console.Console;
-import io.github.lal872k.console.ui.Frame;
+import io.github.lal872k.console.Display;
 import java.util.ArrayList;
 
 /**
@@ -35,13 +35,13 @@ public class InputHandler {
     
     private final ArrayList<InputListener> listeners;
     
-    private final Frame frame;
+    private final Display display;
     
     private final Console console;
     
-    public InputHandler(Frame frame, Console console){
+    public InputHandler(Display display, Console console){
         this.console = console;
-        this.frame = frame;
+        this.display = display;
         listeners = new ArrayList<InputListener>();
     }
     
@@ -56,11 +56,14 @@ public class InputHandler {
     }
     
     /**
-     * handles the text in the input field and then clears the input field.
+     * handles the text in the input field and then clears the input field. On a headless console 
+     * this is the line that was just read.
      */
     public void handleTextFromInput() {
-        handle(frame.getInputField().getText());
-        frame.getInputField().setText("");
+        String text = display.takeInput();
+        if (text!=null){
+            handle(text);
+        }
     }
     
     /**
@@ -0,0 +1,347 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import java.awt.Color;
+
+/**
+ * Turns text with ANSI escape sequences into runs of plain text and the colors they should be
+ * drawn with. The parser is a state machine that keeps its state between calls to
+ * <code>{@link #parse(char[], int, int)}</code>, so a sequence split across two writes is still
+ * understood.
+ * <p>
+ * SGR sequences (<code>ESC [ ... m</code>) change the colors: the 8 normal and 8 bright colors,
+ * the 256 color palette (<code>38;5;n</code>), 24 bit colors (<code>38;2;r;g;b</code>), inverse,
+ * bold (which makes the normal colors bright) and the resets. Any other CSI sequence, like cursor
+ * movement, and any OSC sequence, like a window title, is removed from the text. A
+ * <code>null</code> color means the default color of the console.
+ * <p>
+ * Text is handed to the <code>{@link Handler}</code> whenever the colors change and when
+ * <code>{@link #flush()}</code> is called. A parser is not thread safe.
+ * @author L. Arthur Lewis II
+ */
+public class AnsiParser {
+    
+    private static final char ESC = 27;
+    private static final char BEL = 7;
+    
+    private static final int MAX_PARAMS = 16;
+    
+    private static final int TEXT = 0;
+    private static final int ESCAPE = 1;
+    private static final int CSI = 2;
+    private static final int OSC = 3;
+    private static final int OSC_ESCAPE = 4;
+    
+    // xterm's 16 colors, the first 8 are normal and the last 8 are bright
+    private static final int[] BASIC = {
+        0x000000, 0xCD0000, 0x00CD00, 0xCDCD00, 0x0000EE, 0xCD00CD, 0x00CDCD, 0xE5E5E5,
+        0x7F7F7F, 0xFF0000, 0x00FF00, 0xFFFF00, 0x5C5CFF, 0xFF00FF, 0x00FFFF, 0xFFFFFF
+    };
+    
+    private static final Color[] PALETTE = new Color[256];
+    
+    static {
+        for (int q = 0; q < 16; q++){
+            PALETTE[q] = new Color(BASIC[q]);
+        }
+        int[] levels = {0, 95, 135, 175, 215, 255};
+        for (int q = 0; q < 216; q++){
+            PALETTE[16+q] = new Color(levels[q/36], levels[(q/6)%6], levels[q%6]);
+        }
+        for (int q = 0; q < 24; q++){
+            int gray = 8+q*10;
+            PALETTE[232+q] = new Color(gray, gray, gray);
+        }
+    }
+    
+    private final Handler handler;
+    
+    private int state = TEXT;
+    private final int[] params = new int[MAX_PARAMS];
+    private int paramCount;
+    private boolean paramStarted;
+    private boolean privateSequence;
+    
+    private final StringBuilder run = new StringBuilder();
+    
+    // index into the palette, -1 if a 24 bit color or the default is used
+    private int foregroundIndex = -1;
+    private Color foreground;
+    private Color background;
+    private boolean bold;
+    private boolean inverse;
+    
+    /**
+     * @param handler receives the text and its colors.
+     */
+    public AnsiParser(Handler handler){
+        this.handler = handler;
+    }
+    
+    /**
+     * Parses more text, continuing from where the last call stopped.
+     * @param text array of characters.
+     * @param offset index of the first character.
+     * @param length amount of characters.
+     */
+    public void parse(char[] text, int offset, int length){
+        int end = offset+length;
+        for (int q = offset; q < end; q++){
+            char c = text[q];
+            switch (state){
+                case TEXT:
+                    if (c==ESC){
+                        state = ESCAPE;
+                    } else {
+                        run.append(c);
+                    }
+                    break;
+                case ESCAPE:
+                    if (c=='['){
+                        state = CSI;
+                        paramCount = 0;
+                        paramStarted = false;
+                        privateSequence = false;
+                        params[0] = 0;
+                    } else if (c==']'){
+                        state = OSC;
+                    } else {
+                        // a two character sequence, nothing to draw
+                        state = TEXT;
+                    }
+                    break;
+                case CSI:
+                    csi(c);
+                    break;
+                case OSC:
+                    if (c==BEL){
+                        state = TEXT;
+                    } else if (c==ESC){
+                        state = OSC_ESCAPE;
+                    }
+                    break;
+                case OSC_ESCAPE:
+                    state = c=='\\' ? TEXT : OSC;
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Parses more text, continuing from where the last call stopped.
+     * @param text text value.
+     */
+    public void parse(String text){
+        parse(text.toCharArray(), 0, text.length());
+    }
+    
+    private void csi(char c){
+        if (c>='0' && c<='9'){
+            if (paramCount<MAX_PARAMS){
+                if (!paramStarted){
+                    params[paramCount] = 0;
+                    paramStarted = true;
+                }
+                params[paramCount] = Math.min(params[paramCount]*10+(c-'0'), 0xFFFFFF);
+            }
+        } else if (c==';' || c==':'){
+            endParam();
+        } else if (c>='<' && c<='?'){
+            privateSequence = true;
+        } else if (c>=0x40 && c<=0x7E){
+            endParam();
+            if (c=='m' && !privateSequence){
+                sgr();
+            }
+            state = TEXT;
+        } else if (c<0x20 || c>0x7E){
+            // not part of a sequence, give up on it
+            state = TEXT;
+        }
+    }
+    
+    private void endParam(){
+        if (paramCount<MAX_PARAMS){
+            if (!paramStarted){
+                params[paramCount] = 0;
+            }
+            paramCount++;
+        }
+        paramStarted = false;
+    }
+    
+    // applies a select graphic rendition sequence
+    private void sgr(){
+        Color oldForeground = getForeground();
+        Color oldBackground = getBackground();
+        for (int q = 0; q < paramCount; q++){
+            int code = params[q];
+            if (code==0){
+                foregroundIndex = -1;
+                foreground = null;
+                background = null;
+                bold = false;
+                inverse = false;
+            } else if (code==1){
+                bold = true;
+            } else if (code==22){
+                bold = false;
+            } else if (code==7){
+                inverse = true;
+            } else if (code==27){
+                inverse = false;
+            } else if (code>=30 && code<=37){
+                setForeground(code-30);
+            } else if (code>=90 && code<=97){
+                setForeground(code-90+8);
+            } else if (code==39){
+                foregroundIndex = -1;
+                foreground = null;
+            } else if (code>=40 && code<=47){
+                background = PALETTE[code-40];
+            } else if (code>=100 && code<=107){
+                background = PALETTE[code-100+8];
+            } else if (code==49){
+                background = null;
+            } else if (code==38 || code==48){
+                q = extendedColor(code==38, q);
+            }
+        }
+        if (!same(oldForeground, getForeground()) || !same(oldBackground, getBackground())){
+            // the text before this sequence keeps the old colors
+            emit(oldForeground, oldBackground);
+        }
+    }
+    
+    // reads a 38/48 color and returns the index of its last parameter
+    private int extendedColor(boolean isForeground, int q){
+        if (q+1>=paramCount){
+            return q;
+        }
+        if (params[q+1]==5 && q+2<paramCount){
+            int index = params[q+2] & 0xFF;
+            if (isForeground){
+                setForeground(index);
+            } else {
+                background = PALETTE[index];
+            }
+            return q+2;
+        }
+        if (params[q+1]==2 && q+4<paramCount){
+            Color color = new Color(params[q+2] & 0xFF, params[q+3] & 0xFF, params[q+4] & 0xFF);
+            if (isForeground){
+                foregroundIndex = -1;
+                foreground = color;
+            } else {
+                background = color;
+            }
+            return q+4;
+        }
+        return q+1;
+    }
+    
+    private void setForeground(int index){
+        foregroundIndex = index;
+        foreground = PALETTE[index];
+    }
+    
+    private static boolean same(Color a, Color b){
+        return a==null ? b==null : a.equals(b);
+    }
+    
+    private void emit(Color foreground, Color background){
+        if (run.length()>0){
+            handler.text(run.toString(), foreground, background);
+            run.setLength(0);
+        }
+    }
+    
+    /**
+     * Hands any text that has been parsed to the handler. A sequence that has only been partly
+     * parsed is kept for the next call to <code>{@link #parse(char[], int, int)}</code>.
+     */
+    public void flush(){
+        emit(getForeground(), getBackground());
+    }
+    
+    /**
+     * Forgets the colors and any sequence that has been partly parsed. Text that hasn't been
+     * flushed is dropped.
+     */
+    public void reset(){
+        state = TEXT;
+        run.setLength(0);
+        foregroundIndex = -1;
+        foreground = null;
+        background = null;
+        bold = false;
+        inverse = false;
+    }
+    
+    /**
+     * @return the foreground color text is drawn with right now, <code>null</code> for the
+     * default.
+     */
+    public Color getForeground(){
+        if (inverse){
+            return background;
+        }
+        return foregroundColor();
+    }
+    
+    /**
+     * @return the background color text is drawn with right now, <code>null</code> for the
+     * default.
+     */
+    public Color getBackground(){
+        if (inverse){
+            return foregroundColor();
+        }
+        return background;
+    }
+    
+    private Color foregroundColor(){
+        if (bold && foregroundIndex>=0 && foregroundIndex<8){
+            return PALETTE[foregroundIndex+8];
+        }
+        return foreground;
+    }
+    
+    /**
+     * Receives the text from an <code>{@link AnsiParser}</code>.
+     */
+    public interface Handler {
+        
+        /**
+         * Called with a run of text that has the same colors.
+         * @param text the text without any escape sequences.
+         * @param foreground the foreground color, <code>null</code> for the default.
+         * @param background the background color, <code>null</code> for the default.
+         */
+        void text(String text, Color foreground, Color background);
+    
+    }
+    
+}
@@ -0,0 +1,179 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.Console;
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.TextStyle;
+import java.awt.Color;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * An <code>OutputStream</code> that prints to a <code>{@link lal.console.Console}</code>, made by
+ * <code>{@link lal.console.Console#asOutputStream()}</code>. Bytes are kept in a buffer and only
+ * decoded and printed when a write has a <code>'\n'</code> in it, when the stream is flushed or
+ * when the buffer is full, so writing one byte at a time does not print one character at a time
+ * and a write with many lines is printed all at once.
+ * <p>
+ * ANSI escape sequences are parsed by an <code>{@link lal.console.output.AnsiParser}</code>, so
+ * text colored by other tools is printed in those colors instead of showing the codes. Characters
+ * and escape sequences split between two writes are handled. Text with the default colors uses
+ * the colors of <code>MessageType.NORMAL</code> from the console's <code>DrawPreference</code>.
+ * <p>
+ * The methods are synchronized so the stream can be shared between threads.
+ * @author L. Arthur Lewis II
+ */
+public class ConsoleOutputStream extends OutputStream {
+    
+    /**
+     * Size of the byte buffer used by <code>{@link #ConsoleOutputStream(Console)}</code>.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+    
+    private final Console console;
+    private final CharsetDecoder decoder;
+    private final AnsiParser parser;
+    
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    
+    private boolean closed;
+    
+    /**
+     * Makes a stream that decodes UTF-8.
+     * @param console console to print to.
+     */
+    public ConsoleOutputStream(Console console){
+        this(console, Charset.forName("UTF-8"), DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * @param console console to print to.
+     * @param charset how to decode the bytes.
+     * @param bufferSize amount of bytes kept before they are printed.
+     */
+    public ConsoleOutputStream(Console console, Charset charset, int bufferSize){
+        this.console = console;
+        decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        parser = new AnsiParser(this::print);
+        bytes = ByteBuffer.allocate(Math.max(bufferSize, 16));
+        chars = CharBuffer.allocate(bytes.capacity());
+    }
+    
+    @Override
+    public synchronized void write(int b) throws IOException {
+        ensureOpen();
+        if (!bytes.hasRemaining()){
+            decode();
+        }
+        bytes.put((byte) b);
+        if (b=='\n'){
+            printBuffered();
+        }
+    }
+    
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off<0 || len<0 || off+len>b.length){
+            throw new IndexOutOfBoundsException();
+        }
+        boolean newLine = false;
+        for (int q = off; q < off+len && !newLine; q++){
+            newLine = b[q]=='\n';
+        }
+        while (len>0){
+            if (!bytes.hasRemaining()){
+                decode();
+            }
+            int count = Math.min(len, bytes.remaining());
+            bytes.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+        if (newLine){
+            printBuffered();
+        }
+    }
+    
+    /**
+     * Prints everything written so far. Bytes that are only part of a character and escape
+     * sequences that are not finished are kept until the rest of them is written.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        printBuffered();
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed){
+            return;
+        }
+        printBuffered();
+        closed = true;
+    }
+    
+    private void printBuffered(){
+        decode();
+        parser.flush();
+    }
+    
+    // decodes the buffered bytes into the parser, leaving an unfinished character in the buffer
+    private void decode(){
+        bytes.flip();
+        while (decoder.decode(bytes, chars, false).isOverflow()){
+            parseChars();
+        }
+        bytes.compact();
+        parseChars();
+    }
+    
+    private void parseChars(){
+        parser.parse(chars.array(), 0, chars.position());
+        chars.clear();
+    }
+    
+    private void print(String text, Color foreground, Color background){
+        TextStyle normal = console.getDrawPreference().getStyle(MessageType.NORMAL);
+        console.print(text, foreground==null ? normal.getForeground() : foreground,
+                background==null ? normal.getBackground() : background);
+    }
+    
+    private void ensureOpen() throws IOException {
+        if (closed){
+            throw new IOException("Stream closed");
+        }
+    }
+    
+}
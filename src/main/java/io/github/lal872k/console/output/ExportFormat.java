@@ -0,0 +1,61 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+/**
+ * The kinds of file <code>{@link lal.console.output.Exporter}</code> can write the output to.
+ * @author L. Arthur Lewis II
+ */
+public enum ExportFormat {
+    /**
+     * Only the text, without any colors.
+     */
+    PLAIN,
+    /**
+     * The text with ANSI escape codes for its colors, for viewing in a terminal with something
+     * like <code>less -R</code>.
+     */
+    ANSI,
+    /**
+     * A web page with the text in its colors.
+     */
+    HTML;
+    
+    /**
+     * @param fileName the name of the file being written.
+     * @return <code>HTML</code> for names ending in <code>.html</code> or <code>.htm</code>,
+     * <code>ANSI</code> for <code>.ansi</code>, otherwise <code>PLAIN</code>.
+     */
+    public static ExportFormat forFileName(String fileName){
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".html") || lower.endsWith(".htm")){
+            return HTML;
+        }
+        if (lower.endsWith(".ansi")){
+            return ANSI;
+        }
+        return PLAIN;
+    }
+    
+}
@@ -0,0 +1,295 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the lines of a <code>{@link lal.console.output.Scrollback}</code> to a file as plain
+ * text, text with ANSI colors or HTML, see <code>{@link lal.console.output.ExportFormat}</code>.
+ * <p>
+ * The lines are copied from the scrollback <code>{@link #CHUNK_LINES}</code> at a time, only
+ * holding it while they are copied, and written through one fixed size buffer that is encoded as
+ * UTF-8 straight into a <code>FileChannel</code>. Memory use stays the same however many lines
+ * are written, and output can keep being added the whole time. Lines printed after the export
+ * starts are not written and lines removed from the scrollback before they are reached are
+ * skipped.
+ * @author L. Arthur Lewis II
+ */
+public final class Exporter {
+    
+    /**
+     * The most lines copied from the scrollback at once.
+     */
+    public static final int CHUNK_LINES = 4096;
+    
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private static final String ESC = "\u001b[";
+    private static final String RESET = ESC + "0m";
+    
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+    
+    private Exporter(FileChannel channel){
+        this.channel = channel;
+        encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        chars = CharBuffer.allocate(BUFFER_SIZE);
+        bytes = ByteBuffer.allocateDirect(BUFFER_SIZE*3);
+    }
+    
+    /**
+     * Writes every line in the scrollback to a file, replacing it if it is already there. This
+     * runs on the thread that calls it, see
+     * <code>{@link lal.console.Console#exportOutput(Path, ExportFormat)}</code> to export on a
+     * background thread.
+     * @param scrollback the lines to write.
+     * @param path the file.
+     * @param format how the lines are written.
+     * @param normal the style of normal text, its colors are the page's colors in HTML and text
+     * in it has no color codes in ANSI.
+     * @return the amount of lines written.
+     * @throws IOException if the file can't be written.
+     */
+    public static long export(Scrollback scrollback, Path path, ExportFormat format,
+            TextStyle normal) throws IOException {
+        String[] texts = new String[CHUNK_LINES];
+        int[][] runs = new int[CHUNK_LINES][];
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)){
+            Exporter out = new Exporter(channel);
+            if (format==ExportFormat.HTML){
+                out.startPage(normal);
+            }
+            long next, stop;
+            synchronized (scrollback){
+                next = scrollback.getFirstLine();
+                stop = scrollback.getEndLine();
+            }
+            StyleTable styles = StyleTable.getShared();
+            while (true){
+                int count;
+                synchronized (scrollback){
+                    next = Math.max(next, scrollback.getFirstLine());
+                    long end = Math.min(stop, Math.min(next+CHUNK_LINES, scrollback.getEndLine()));
+                    if (next>=end){
+                        break;
+                    }
+                    count = (int) (end-next);
+                    for (int q = 0; q < count; q++){
+                        texts[q] = scrollback.getText(next+q);
+                        runs[q] = scrollback.getRuns(next+q);
+                    }
+                    next = end;
+                }
+                for (int q = 0; q < count; q++){
+                    String text = texts[q];
+                    int[] lineRuns = runs[q];
+                    if (format==ExportFormat.PLAIN || lineRuns.length==0){
+                        out.write(format==ExportFormat.HTML ? escape(text) : text);
+                    }
+                    for (int r = 0; format!=ExportFormat.PLAIN && r < lineRuns.length; r+=2){
+                        int end = r+2<lineRuns.length ? lineRuns[r+2] : text.length();
+                        String part = text.substring(lineRuns[r], end);
+                        TextStyle style = styles.get(lineRuns[r+1]);
+                        if (format==ExportFormat.HTML){
+                            out.writeHtml(part, style, normal);
+                        } else {
+                            out.writeAnsi(part, style, normal);
+                        }
+                    }
+                    out.write("\n");
+                    texts[q] = null;
+                    runs[q] = null;
+                }
+                written += count;
+            }
+            if (format==ExportFormat.HTML){
+                out.write("</pre>\n</body>\n</html>\n");
+            }
+            out.flush();
+        }
+        return written;
+    }
+    
+    /**
+     * @param style the style of some text.
+     * @param base the style of normal text.
+     * @return the ANSI codes that draw text in the style's colors where they are different from
+     * the normal colors, or <code>null</code> if there aren't any differences.
+     */
+    public static String ansiCodes(TextStyle style, TextStyle base){
+        if (style==null || style==base){
+            return null;
+        }
+        StringBuilder codes = null;
+        Color fore = style.getForeground();
+        if (fore!=null && (base==null || !fore.equals(base.getForeground()))){
+            codes = new StringBuilder(ESC);
+            codes.append("38;2;").append(fore.getRed()).append(';').append(fore.getGreen())
+                    .append(';').append(fore.getBlue());
+        }
+        Color back = style.getBackground();
+        if (back!=null && (base==null || !back.equals(base.getBackground()))){
+            codes = codes==null ? new StringBuilder(ESC) : codes.append(';');
+            codes.append("48;2;").append(back.getRed()).append(';').append(back.getGreen())
+                    .append(';').append(back.getBlue());
+        }
+        return codes==null ? null : codes.append('m').toString();
+    }
+    
+    private void startPage(TextStyle normal) throws IOException {
+        write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Console</title>\n"
+                + "</head>\n<body style=\"margin:0\">\n<pre style=\"margin:0;padding:4px;");
+        if (normal!=null){
+            write(css(normal.getForeground(), normal.getBackground()));
+        }
+        write("\">");
+    }
+    
+    private void writeAnsi(String text, TextStyle style, TextStyle normal) throws IOException {
+        String codes = ansiCodes(style, normal);
+        if (codes==null){
+            write(text);
+            return;
+        }
+        write(codes);
+        write(text);
+        write(RESET);
+    }
+    
+    private void writeHtml(String text, TextStyle style, TextStyle normal) throws IOException {
+        String css = style==null || style==normal ? ""
+                : css(style.getForeground(), style.getBackground());
+        if (css.isEmpty()){
+            write(escape(text));
+            return;
+        }
+        write("<span style=\"");
+        write(css);
+        write("\">");
+        write(escape(text));
+        write("</span>");
+    }
+    
+    private static String css(Color fore, Color back){
+        StringBuilder css = new StringBuilder();
+        if (fore!=null){
+            css.append("color:").append(hex(fore)).append(';');
+        }
+        if (back!=null){
+            css.append("background:").append(hex(back)).append(';');
+        }
+        return css.toString();
+    }
+    
+    private static String hex(Color color){
+        return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+    }
+    
+    private static String escape(String text){
+        StringBuilder escaped = null;
+        for (int q = 0; q < text.length(); q++){
+            char c = text.charAt(q);
+            String replacement = c=='&' ? "&amp;" : c=='<' ? "&lt;" : c=='>' ? "&gt;" : null;
+            if (replacement!=null && escaped==null){
+                escaped = new StringBuilder(text.length()+16).append(text, 0, q);
+            }
+            if (escaped!=null){
+                if (replacement==null){
+                    escaped.append(c);
+                } else {
+                    escaped.append(replacement);
+                }
+            }
+        }
+        return escaped==null ? text : escaped.toString();
+    }
+    
+    // adds text to the buffer, encoding and writing it to the file whenever the buffer fills
+    private void write(String text) throws IOException {
+        int from = 0;
+        while (from<text.length()){
+            int count = Math.min(chars.remaining(), text.length()-from);
+            chars.put(text, from, from+count);
+            from += count;
+            if (!chars.hasRemaining()){
+                drain(false);
+            }
+        }
+    }
+    
+    private void drain(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true){
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isOverflow()){
+                writeBytes();
+                continue;
+            }
+            if (result.isError()){
+                result.throwException();
+            }
+            break;
+        }
+        if (endOfInput){
+            while (encoder.flush(bytes).isOverflow()){
+                writeBytes();
+            }
+        }
+        writeBytes();
+        // keeps half of a surrogate pair for the next time
+        chars.compact();
+    }
+    
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()){
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+    
+    private void flush() throws IOException {
+        drain(true);
+    }
+    
+}
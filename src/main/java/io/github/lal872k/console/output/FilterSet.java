@@ -0,0 +1,274 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The named <code>{@link lal.console.output.FilteredLines}</code> of one
+ * <code>{@link lal.console.output.Scrollback}</code>, kept up to date as lines are added and
+ * removed.
+ * <p>
+ * When a filter is added the lines already in the scrollback are split into segments of
+ * <code>{@link #SEGMENT}</code> lines that are filtered in parallel on the common
+ * <code>ForkJoinPool</code>. Each segment only holds the scrollback's lock while it copies its
+ * lines, so output keeps being added while the filter is built. After that
+ * <code>{@link #update()}</code> only looks at the lines finished since the last time it was
+ * called, reading each line once for all of the filters.
+ * @author L. Arthur Lewis II
+ */
+public class FilterSet {
+    
+    /**
+     * The most lines filtered by one task when a filter is built.
+     */
+    public static final int SEGMENT = 4096;
+    
+    private final Scrollback scrollback;
+    
+    // copied whenever a filter is added or removed so update() doesn't need to copy it
+    private volatile FilteredLines[] filters = new FilteredLines[0];
+    
+    public FilterSet(Scrollback scrollback){
+        this.scrollback = scrollback;
+    }
+    
+    /**
+     * Filters every finished line in the scrollback and adds the filter, replacing any filter
+     * with the same name. Blocks until the lines have been filtered.
+     * @param name the name of the filter.
+     * @param filter decides which lines are shown.
+     * @return the lines the filter shows.
+     */
+    public FilteredLines add(String name, LineFilter filter){
+        FilteredLines lines = new FilteredLines(name, filter);
+        long first, end;
+        synchronized (scrollback){
+            first = scrollback.getFirstLine();
+            end = finishedEnd();
+        }
+        long[] found = ForkJoinPool.commonPool().invoke(new Scan(filter, first, end));
+        for (long line : found){
+            lines.lines.mark(line);
+        }
+        lines.scannedEnd = end;
+        synchronized (this){
+            FilteredLines[] current = filters;
+            int index = indexOf(name);
+            FilteredLines[] next = Arrays.copyOf(current, current.length+(index<0 ? 1 : 0));
+            next[index<0 ? current.length : index] = lines;
+            filters = next;
+        }
+        return lines;
+    }
+    
+    /**
+     * @param name the name of the filter.
+     * @return the lines the filter showed, or <code>null</code> if there wasn't one.
+     */
+    public synchronized FilteredLines remove(String name){
+        int index = indexOf(name);
+        if (index<0){
+            return null;
+        }
+        FilteredLines[] current = filters;
+        FilteredLines[] next = new FilteredLines[current.length-1];
+        System.arraycopy(current, 0, next, 0, index);
+        System.arraycopy(current, index+1, next, index, next.length-index);
+        filters = next;
+        return current[index];
+    }
+    
+    /**
+     * @param name the name of the filter.
+     * @return the lines the filter shows, or <code>null</code> if there isn't one.
+     */
+    public FilteredLines get(String name){
+        for (FilteredLines lines : filters){
+            if (lines.getName().equals(name)){
+                return lines;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * @return the names of the filters, in the order they were added.
+     */
+    public List<String> getNames(){
+        List<String> names = new ArrayList<String>();
+        for (FilteredLines lines : filters){
+            names.add(lines.getName());
+        }
+        return names;
+    }
+    
+    /**
+     * @return true if there are no filters.
+     */
+    public boolean isEmpty(){
+        return filters.length==0;
+    }
+    
+    private int indexOf(String name){
+        FilteredLines[] current = filters;
+        for (int q = 0; q < current.length; q++){
+            if (current[q].getName().equals(name)){
+                return q;
+            }
+        }
+        return -1;
+    }
+    
+    // the line after the last finished line, must hold the scrollback's lock
+    private long finishedEnd(){
+        return scrollback.getEndLine()-(scrollback.hasOpenLine() ? 1 : 0);
+    }
+    
+    /**
+     * Filters the lines finished since the last time this was called. Should be called by the
+     * display after it adds output.
+     */
+    public synchronized void update(){
+        FilteredLines[] current = filters;
+        if (current.length==0){
+            return;
+        }
+        long from, end;
+        String[] texts;
+        int[][] runs;
+        MessageType[] types;
+        // copy the new lines so the filters don't run while the scrollback is held
+        synchronized (scrollback){
+            end = finishedEnd();
+            from = end;
+            for (FilteredLines lines : current){
+                from = Math.min(from, lines.scannedEnd);
+            }
+            from = Math.max(from, scrollback.getFirstLine());
+            if (from>=end){
+                return;
+            }
+            int count = (int) (end-from);
+            texts = new String[count];
+            runs = new int[count][];
+            types = new MessageType[count];
+            for (int q = 0; q < count; q++){
+                texts[q] = scrollback.getText(from+q);
+                runs[q] = scrollback.getRuns(from+q);
+                types[q] = scrollback.getType(from+q);
+            }
+        }
+        for (FilteredLines lines : current){
+            LineFilter filter = lines.getFilter();
+            for (long line = Math.max(from, lines.scannedEnd); line < end; line++){
+                int q = (int) (line-from);
+                if (filter.accept(texts[q], runs[q], types[q])){
+                    lines.lines.mark(line);
+                }
+            }
+            lines.scannedEnd = end;
+        }
+    }
+    
+    /**
+     * Forgets the lines that have been removed from the scrollback.
+     * @param first the oldest line still in the scrollback.
+     */
+    public void trim(long first){
+        for (FilteredLines lines : filters){
+            lines.lines.trim(first);
+        }
+    }
+    
+    /**
+     * Empties every filter, called after the scrollback is cleared.
+     */
+    public synchronized void clear(){
+        long end = scrollback.getEndLine();
+        for (FilteredLines lines : filters){
+            lines.lines.clear();
+            lines.scannedEnd = end;
+        }
+    }
+    
+    /**
+     * Filters a range of lines, splitting it in half until it is no more than a segment.
+     */
+    private final class Scan extends RecursiveTask<long[]> {
+        
+        private final LineFilter filter;
+        private final long start, end;
+        
+        private Scan(LineFilter filter, long start, long end){
+            this.filter = filter;
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        protected long[] compute(){
+            if (end-start>SEGMENT){
+                long middle = start+(end-start)/2;
+                Scan older = new Scan(filter, start, middle);
+                older.fork();
+                long[] newer = new Scan(filter, middle, end).compute();
+                long[] found = older.join();
+                long[] both = Arrays.copyOf(found, found.length+newer.length);
+                System.arraycopy(newer, 0, both, found.length, newer.length);
+                return both;
+            }
+            int count = (int) (end-start);
+            String[] texts = new String[count];
+            int[][] runs = new int[count][];
+            MessageType[] types = new MessageType[count];
+            // only copy under the lock so the other segments and the output aren't held up
+            synchronized (scrollback){
+                for (int q = 0; q < count; q++){
+                    long line = start+q;
+                    if (scrollback.contains(line)){
+                        texts[q] = scrollback.getText(line);
+                        runs[q] = scrollback.getRuns(line);
+                        types[q] = scrollback.getType(line);
+                    }
+                }
+            }
+            long[] found = new long[count];
+            int size = 0;
+            for (int q = 0; q < count; q++){
+                if (texts[q]!=null && filter.accept(texts[q], runs[q], types[q])){
+                    found[size++] = start+q;
+                }
+            }
+            return Arrays.copyOf(found, size);
+        }
+    
+    }
+    
+}
@@ -0,0 +1,100 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+/**
+ * The lines of a <code>{@link lal.console.output.Scrollback}</code> a
+ * <code>{@link lal.console.output.LineFilter}</code> shows, kept as a sorted list of line
+ * numbers instead of a copy of their text. Each row of the filtered view is one of the lines,
+ * where row 0 is the oldest line still in the scrollback.
+ * <p>
+ * It is made and kept up to date by a <code>{@link lal.console.output.FilterSet}</code>. A line
+ * is only looked at once it is finished with a <code>'\n'</code>, and is not looked at again if
+ * a <code>{@link lal.console.Region}</code> changes its text later.
+ * @author L. Arthur Lewis II
+ */
+public class FilteredLines {
+    
+    private final String name;
+    private final LineFilter filter;
+    
+    final LineMarks lines;
+    // the line after the last one the filter looked at, only used by the FilterSet
+    long scannedEnd;
+    
+    FilteredLines(String name, LineFilter filter){
+        this.name = name;
+        this.filter = filter;
+        lines = new LineMarks();
+    }
+    
+    /**
+     * @return the name the filter was added with.
+     */
+    public String getName(){
+        return name;
+    }
+    
+    public LineFilter getFilter(){
+        return filter;
+    }
+    
+    /**
+     * @return the amount of lines shown.
+     */
+    public int size(){
+        return lines.size();
+    }
+    
+    /**
+     * @param row the row, where 0 is the oldest line shown.
+     * @return the number of the line in the scrollback, or -1 if there isn't a line on the row. 
+     * Lines can be removed by another thread at any time.
+     */
+    public long getLine(int row){
+        return lines.get(row);
+    }
+    
+    /**
+     * @param line the number of the line in the scrollback.
+     * @return the row of the line, or of the first line shown after it if it isn't shown.
+     */
+    public int getRow(long line){
+        return lines.indexOf(line);
+    }
+    
+    /**
+     * @param line the number of the line in the scrollback.
+     * @return true if the line is shown.
+     */
+    public boolean contains(long line){
+        return lines.isMarked(line);
+    }
+    
+    @Override
+    public String toString(){
+        return name;
+    }
+    
+}
@@ -0,0 +1,162 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import java.util.Arrays;
+
+/**
+ * A <code>{@link lal.console.output.LineStore}</code> that keeps every line on the heap in a ring
+ * of arrays. Lines that only use one style share the same runs array, so most lines cost just
+ * their <code>String</code>.
+ * @author L. Arthur Lewis II
+ */
+public class HeapLineStore implements LineStore {
+    
+    private static final MessageType[] TYPES = MessageType.values();
+    
+    private String[] texts;
+    private int[][] runs;
+    private byte[] types;
+    private int head;
+    private int size;
+    
+    // runs arrays for lines with one style, indexed by style id + 1
+    private int[][] singleRuns;
+    
+    public HeapLineStore(){
+        texts = new String[1024];
+        runs = new int[1024][];
+        types = new byte[1024];
+        singleRuns = new int[64][];
+    }
+    
+    @Override
+    public void add(String text, int[] lineRuns, MessageType type){
+        if (size==texts.length){
+            grow();
+        }
+        int index = (head+size) & (texts.length-1);
+        texts[index] = text;
+        runs[index] = share(lineRuns);
+        types[index] = (byte) type.ordinal();
+        size++;
+    }
+    
+    @Override
+    public void set(int index, String text, int[] lineRuns, MessageType type){
+        int slot = slot(index);
+        texts[slot] = text;
+        runs[slot] = share(lineRuns);
+        types[slot] = (byte) type.ordinal();
+    }
+    
+    private int[] share(int[] lineRuns){
+        if (lineRuns.length!=2 || lineRuns[0]!=0){
+            return lineRuns;
+        }
+        int slot = lineRuns[1]+1;
+        if (slot>=singleRuns.length){
+            singleRuns = Arrays.copyOf(singleRuns, Math.max(singleRuns.length*2, slot+1));
+        }
+        if (singleRuns[slot]==null){
+            singleRuns[slot] = lineRuns;
+        }
+        return singleRuns[slot];
+    }
+    
+    private void grow(){
+        int length = texts.length*2;
+        int first = texts.length-head;
+        String[] newTexts = new String[length];
+        int[][] newRuns = new int[length][];
+        byte[] newTypes = new byte[length];
+        System.arraycopy(texts, head, newTexts, 0, first);
+        System.arraycopy(texts, 0, newTexts, first, head);
+        System.arraycopy(runs, head, newRuns, 0, first);
+        System.arraycopy(runs, 0, newRuns, first, head);
+        System.arraycopy(types, head, newTypes, 0, first);
+        System.arraycopy(types, 0, newTypes, first, head);
+        texts = newTexts;
+        runs = newRuns;
+        types = newTypes;
+        head = 0;
+    }
+    
+    @Override
+    public void removeFirst(int count){
+        count = Math.min(count, size);
+        for (int q = 0; q < count; q++){
+            int index = (head+q) & (texts.length-1);
+            texts[index] = null;
+            runs[index] = null;
+        }
+        head = (head+count) & (texts.length-1);
+        size -= count;
+    }
+    
+    @Override
+    public void clear(){
+        removeFirst(size);
+        head = 0;
+    }
+    
+    @Override
+    public int size(){
+        return size;
+    }
+    
+    @Override
+    public String getText(int index){
+        return texts[slot(index)];
+    }
+    
+    @Override
+    public int getLength(int index){
+        return texts[slot(index)].length();
+    }
+    
+    @Override
+    public int[] getRuns(int index){
+        return runs[slot(index)];
+    }
+    
+    @Override
+    public MessageType getType(int index){
+        return TYPES[types[slot(index)]];
+    }
+    
+    @Override
+    public void close(){
+        clear();
+    }
+    
+    private int slot(int index){
+        if (index<0 || index>=size){
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+        }
+        return (head+index) & (texts.length-1);
+    }
+    
+}
@@ -0,0 +1,62 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.TextStyle;
+
+/**
+ * Changes the colors of parts of the text printed to a console before it is added to the output,
+ * for example to draw every <code>"Exception"</code> in red. It is set with
+ * <code>{@link lal.console.Console#setHighlighter(Highlighter)}</code> and runs on the thread that
+ * prints, never on the event dispatch thread.
+ * <p>
+ * The <code>{@link lal.console.output.OutputListener}s</code> are told about the text the way it
+ * was printed.
+ * @author L. Arthur Lewis II
+ */
+public interface Highlighter {
+    
+    /**
+     * Splits the text into runs and hands each to <code>out</code> in order. Text that isn't
+     * highlighted must still be handed over with the style it came with.
+     * @param text the text being printed.
+     * @param style the style it was printed with.
+     * @param out where the runs go.
+     */
+    void highlight(String text, TextStyle style, Runs out);
+    
+    /**
+     * Takes the runs made by a <code>Highlighter</code>.
+     */
+    interface Runs {
+        
+        /**
+         * @param text the text of the run.
+         * @param style the style to draw it with.
+         */
+        void add(String text, TextStyle style);
+    
+    }
+    
+}
@@ -0,0 +1,88 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.TextStyle;
+import java.util.EnumSet;
+import java.util.regex.Pattern;
+
+/**
+ * Decides which lines of a <code>{@link lal.console.output.Scrollback}</code> are shown by a
+ * <code>{@link lal.console.output.FilteredLines}</code>. A filter is run on many threads at once
+ * when it is first built, so it must be thread safe.
+ * @author L. Arthur Lewis II
+ */
+public interface LineFilter {
+    
+    /**
+     * @param text the text of the line without the <code>'\n'</code>.
+     * @param runs the style runs of the line.
+     * @param type the type of message the line is.
+     * @return true if the line is shown.
+     */
+    boolean accept(String text, int[] runs, MessageType type);
+    
+    /**
+     * @param types the types of message to show.
+     * @return a filter that shows the lines of any of the types.
+     */
+    static LineFilter types(MessageType... types){
+        EnumSet<MessageType> set = EnumSet.noneOf(MessageType.class);
+        for (MessageType type : types){
+            set.add(type);
+        }
+        return (text, runs, type) -> set.contains(type);
+    }
+    
+    /**
+     * @param regex the regular expression, for example a request id.
+     * @return a filter that shows the lines the expression is found in.
+     * @throws java.util.regex.PatternSyntaxException if the expression is not valid.
+     */
+    static LineFilter regex(String regex){
+        Pattern pattern = Pattern.compile(regex);
+        return (text, runs, type) -> pattern.matcher(text).find();
+    }
+    
+    /**
+     * Lines don't remember where they were printed from, but anything that prints in its own
+     * style, like <code>{@link lal.console.extensions.capture.SystemCapture}</code> or an
+     * extension with its own colors, can be told apart by it.
+     * @param style the style the source prints with.
+     * @return a filter that shows the lines with any text in the style.
+     */
+    static LineFilter source(TextStyle style){
+        int id = style.getId();
+        return (text, runs, type) -> {
+            for (int q = 1; q < runs.length; q+=2){
+                if (runs[q]==id){
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+    
+}
@@ -0,0 +1,205 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import java.util.Arrays;
+
+/**
+ * A set of marked line numbers, like the lines with errors in them or the lines a search found,
+ * kept so an overview of the whole output can be drawn quickly however many lines there are.
+ * <p>
+ * Lines are marked in order as they are added to the output and the oldest are removed when the
+ * output is trimmed. Besides the sorted list of marked lines, the marks are counted in buckets of
+ * <code>{@link #BUCKET}</code> lines, and the bucket counts are kept as running totals. Counting
+ * the marks in a range of lines only takes two lookups, so drawing a mark for each pixel of a
+ * scroll bar costs the same for a hundred lines as for a hundred million. Ranges shorter than a
+ * bucket are counted exactly with two binary searches of the list instead, so a mark is never
+ * drawn on a pixel whose lines don't have one.
+ * @author L. Arthur Lewis II
+ */
+public class LineMarks {
+    
+    /**
+     * The amount of lines counted together by {@link #count(long, long)}.
+     */
+    public static final int BUCKET = 64;
+    
+    // the marked lines, sorted, from head to head+size
+    private long[] lines = new long[16];
+    private int head;
+    private int size;
+    
+    // totals[q] is how many lines were marked before bucket firstBucket+q
+    private long[] totals = new long[16];
+    private int bucketHead;
+    private int buckets;
+    private long firstBucket;
+    private long marked;
+    
+    /**
+     * Marks a line. Lines must be marked in order, a line before the last one marked is ignored.
+     * @param line the number of the line.
+     */
+    public synchronized void mark(long line){
+        if (size>0 && line<=lines[head+size-1]){
+            return;
+        }
+        if (head+size==lines.length){
+            lines = compact(lines, head, size);
+            head = 0;
+        }
+        lines[head+size++] = line;
+        long bucket = line/BUCKET;
+        if (buckets==0){
+            firstBucket = bucket;
+        }
+        // start every bucket up to the line's, the ones skipped have no marks
+        while (firstBucket+buckets<=bucket){
+            if (bucketHead+buckets==totals.length){
+                totals = compact(totals, bucketHead, buckets);
+                bucketHead = 0;
+            }
+            totals[bucketHead+buckets++] = marked;
+        }
+        marked++;
+    }
+    
+    // moves the values to the front, growing the array if it is more than half full
+    private static long[] compact(long[] array, int head, int size){
+        long[] to = size>array.length/2 ? new long[array.length*2] : array;
+        System.arraycopy(array, head, to, 0, size);
+        return to;
+    }
+    
+    /**
+     * Forgets the marks of lines that have been removed from the output.
+     * @param first the oldest line still in the output.
+     */
+    public synchronized void trim(long first){
+        int q = lowerBound(first);
+        size -= q-head;
+        head = q;
+        long bucket = first/BUCKET;
+        while (buckets>0 && firstBucket<bucket){
+            bucketHead++;
+            buckets--;
+            firstBucket++;
+        }
+        if (buckets==0){
+            bucketHead = 0;
+        }
+    }
+    
+    /**
+     * Removes every mark.
+     */
+    public synchronized void clear(){
+        head = 0;
+        size = 0;
+        bucketHead = 0;
+        buckets = 0;
+        marked = 0;
+    }
+    
+    // the running total before a bucket
+    private long totalBefore(long bucket){
+        if (bucket<=firstBucket){
+            return buckets==0 ? marked : totals[bucketHead];
+        }
+        if (bucket>=firstBucket+buckets){
+            return marked;
+        }
+        return totals[bucketHead+(int) (bucket-firstBucket)];
+    }
+    
+    /**
+     * Counts the marks in a range of lines. A range of fewer than <code>BUCKET</code> lines is
+     * counted exactly. A longer one is counted by the buckets that hold it, so marks up to
+     * <code>BUCKET-1</code> lines outside of the range can be counted too.
+     * @param from the first line of the range.
+     * @param to the line after the last line of the range.
+     * @return how many lines in the range are marked, or about how many for long ranges.
+     */
+    public synchronized long count(long from, long to){
+        if (to<=from){
+            return 0;
+        }
+        if (to-from<BUCKET){
+            return lowerBound(to)-lowerBound(from);
+        }
+        return totalBefore((to-1)/BUCKET+1)-totalBefore(from/BUCKET);
+    }
+    
+    /**
+     * @param from the first line looked at.
+     * @return the first marked line at or after it, or -1 if there isn't one.
+     */
+    public synchronized long next(long from){
+        int q = lowerBound(from);
+        return q<head+size ? lines[q] : -1;
+    }
+    
+    /**
+     * @param line the number of the line.
+     * @return true if the line is marked.
+     */
+    public synchronized boolean isMarked(long line){
+        int q = lowerBound(line);
+        return q<head+size && lines[q]==line;
+    }
+    
+    /**
+     * @param index the index of the mark, where 0 is the oldest mark.
+     * @return the marked line, or -1 if there aren't that many marks.
+     */
+    public synchronized long get(int index){
+        if (index<0 || index>=size){
+            return -1;
+        }
+        return lines[head+index];
+    }
+    
+    /**
+     * @param line the number of the line.
+     * @return how many marked lines come before it, which is the index of the line if it is 
+     * marked.
+     */
+    public synchronized int indexOf(long line){
+        return lowerBound(line)-head;
+    }
+    
+    /**
+     * @return the amount of marked lines.
+     */
+    public synchronized int size(){
+        return size;
+    }
+    
+    // the index of the first marked line at or after the line
+    private int lowerBound(long line){
+        int q = Arrays.binarySearch(lines, head, head+size, line);
+        return q<0 ? -q-1 : q;
+    }
+    
+}
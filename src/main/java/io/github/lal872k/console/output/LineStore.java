@@ -0,0 +1,106 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+
+/**
+ * Holds the finished lines of a <code>{@link lal.console.output.Scrollback}</code>. Lines are
+ * added to the end and removed from the start, and are looked up by their index where 0 is the
+ * oldest line still being held. A line can be replaced, which is rare and only done for
+ * mutable regions of output.
+ * <p>
+ * The style of a line is stored as runs: pairs of ints where the first is the index of the
+ * character the run starts at and the second is the id of the
+ * <code>{@link lal.console.TextStyle}</code> from the shared <code>StyleTable</code>.
+ * <p>
+ * A <code>LineStore</code> does not need to be thread safe, the <code>Scrollback</code> that
+ * owns it makes sure only one thread uses it at a time.
+ * @author L. Arthur Lewis II
+ */
+public interface LineStore {
+    
+    /**
+     * Adds a line to the end.
+     * @param text text of the line without the <code>'\n'</code>.
+     * @param runs style runs of the line.
+     * @param type type of message the line is.
+     */
+    void add(String text, int[] runs, MessageType type);
+    
+    /**
+     * Replaces a line that is already held.
+     * @param index index of the line.
+     * @param text new text of the line without the <code>'\n'</code>.
+     * @param runs new style runs of the line.
+     * @param type new type of message the line is.
+     */
+    void set(int index, String text, int[] runs, MessageType type);
+    
+    /**
+     * Removes the oldest lines.
+     * @param count amount of lines to remove.
+     */
+    void removeFirst(int count);
+    
+    /**
+     * Removes every line.
+     */
+    void clear();
+    
+    /**
+     * @return the amount of lines held.
+     */
+    int size();
+    
+    /**
+     * @param index index of the line.
+     * @return the text of the line.
+     */
+    String getText(int index);
+    
+    /**
+     * @param index index of the line.
+     * @return the amount of characters in the line.
+     */
+    int getLength(int index);
+    
+    /**
+     * @param index index of the line.
+     * @return the style runs of the line.
+     */
+    int[] getRuns(int index);
+    
+    /**
+     * @param index index of the line.
+     * @return the type of message the line is.
+     */
+    MessageType getType(int index);
+    
+    /**
+     * Releases anything the store is holding on to. The store can't be used after this.
+     */
+    void close();
+    
+}
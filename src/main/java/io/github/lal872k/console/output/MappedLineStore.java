@@ -0,0 +1,388 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A <code>{@link lal.console.output.LineStore}</code> that keeps lines outside of the Java heap in
+ * memory-mapped segment files, so the garbage collector never sees the history. Only a few small
+ * arrays are kept on the heap no matter how many lines are held.
+ * <p>
+ * The text of every line is written as UTF-8 followed by its style runs, run-length encoded as
+ * variable length ints: the amount of runs, then for every run the amount of characters since
+ * the last run started and the style id. Each line also gets a fixed size record in a second set
+ * of segments (the line-offset index) saying where its bytes start, so any line can be found
+ * without reading the ones before it.
+ * <p>
+ * Segment files are made in a directory (the temp directory by default). Where the system allows
+ * it a file is deleted as soon as it is mapped, so it takes no name on disk and is freed when the
+ * mapping is, even if the program stops without closing the store. Otherwise it is deleted once
+ * every line in it has been removed, or when the store is closed. A replaced line is written
+ * again at the end and its record points at the new bytes; the old bytes are freed with the
+ * segment they are in.
+ * @author L. Arthur Lewis II
+ */
+public class MappedLineStore implements LineStore {
+    
+    /**
+     * Default size of a segment file of line text, 16 MB.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 24;
+    
+    // offset (8), offset when first added (8), text bytes (4), chars (4), run bytes (4), type (4)
+    private static final int RECORD_SIZE = 32;
+    private static final int RECORDS_PER_SEGMENT = 1 << 16;
+    
+    private static final MessageType[] TYPES = MessageType.values();
+    
+    private final Segments data;
+    private final Segments index;
+    
+    // number of the first line held and the number after the last, counted since the store was made
+    private long head;
+    private long tail;
+    private long position;
+    
+    // reused when a record or runs are read
+    private byte[] buffer = new byte[256];
+    private int[][] singleRuns = new int[64][];
+    
+    /**
+     * Makes a store with segment files in the temp directory.
+     */
+    public MappedLineStore(){
+        this(new File(System.getProperty("java.io.tmpdir")), DEFAULT_SEGMENT_SIZE);
+    }
+    
+    /**
+     * @param directory directory segment files are made in.
+     * @param segmentSize size of a segment file of line text in bytes.
+     */
+    public MappedLineStore(File directory, int segmentSize){
+        if (segmentSize<=0){
+            throw new IllegalArgumentException("segmentSize must be positive: " + segmentSize);
+        }
+        data = new Segments(directory, segmentSize);
+        index = new Segments(directory, RECORD_SIZE*RECORDS_PER_SEGMENT);
+    }
+    
+    @Override
+    public void add(String text, int[] runs, MessageType type){
+        long start = position;
+        long record = tail*RECORD_SIZE;
+        write(record, text, runs, type);
+        index.segmentFor(record).putLong(index.offsetOf(record)+8, start);
+        tail++;
+    }
+    
+    @Override
+    public void set(int line, String text, int[] runs, MessageType type){
+        write(record(line), text, runs, type);
+    }
+    
+    // writes the line at the end of the data and fills in its record, except for where it was
+    // first added
+    private void write(long record, String text, int[] runs, MessageType type){
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int runBytes = encodeRuns(runs);
+        long start = position;
+        data.write(position, bytes, 0, bytes.length);
+        position += bytes.length;
+        data.write(position, buffer, 0, runBytes);
+        position += runBytes;
+        
+        MappedByteBuffer segment = index.segmentFor(record);
+        int offset = index.offsetOf(record);
+        segment.putLong(offset, start);
+        segment.putInt(offset+16, bytes.length);
+        segment.putInt(offset+20, text.length());
+        segment.putInt(offset+24, runBytes);
+        segment.putInt(offset+28, type.ordinal());
+    }
+    
+    // writes the runs into the buffer and returns how many bytes they took
+    private int encodeRuns(int[] runs){
+        ensureBuffer(5+runs.length*5);
+        int length = putVarInt(0, runs.length/2);
+        int last = 0;
+        for (int q = 0; q < runs.length; q += 2){
+            length = putVarInt(length, runs[q]-last);
+            length = putVarInt(length, runs[q+1]+1);
+            last = runs[q];
+        }
+        return length;
+    }
+    
+    private int putVarInt(int at, int value){
+        while ((value & ~0x7F)!=0){
+            buffer[at++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[at++] = (byte) value;
+        return at;
+    }
+    
+    private void ensureBuffer(int length){
+        if (buffer.length<length){
+            buffer = new byte[Math.max(length, buffer.length*2)];
+        }
+    }
+    
+    @Override
+    public void removeFirst(int count){
+        head += Math.min(count, size());
+        if (head==tail){
+            data.dropBefore(position);
+        } else {
+            // lines are only ever written after where they were first added, so nothing still
+            // held is before where the oldest line was first added
+            data.dropBefore(getLong(0, 8));
+        }
+        index.dropBefore(head*RECORD_SIZE);
+    }
+    
+    @Override
+    public void clear(){
+        removeFirst(size());
+    }
+    
+    @Override
+    public int size(){
+        return (int) (tail-head);
+    }
+    
+    @Override
+    public String getText(int line){
+        int length = getInt(line, 16);
+        ensureBuffer(length);
+        data.read(getLong(line), buffer, 0, length);
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    public int getLength(int line){
+        return getInt(line, 20);
+    }
+    
+    @Override
+    public int[] getRuns(int line){
+        int length = getInt(line, 24);
+        ensureBuffer(length);
+        data.read(getLong(line)+getInt(line, 16), buffer, 0, length);
+        int[] read = new int[1];
+        int count = getVarInt(read);
+        int[] runs = new int[count*2];
+        int last = 0;
+        for (int q = 0; q < runs.length; q += 2){
+            last += getVarInt(read);
+            runs[q] = last;
+            runs[q+1] = getVarInt(read)-1;
+        }
+        return share(runs);
+    }
+    
+    private int getVarInt(int[] at){
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer[at[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80)!=0);
+        return value;
+    }
+    
+    private int[] share(int[] runs){
+        if (runs.length!=2 || runs[0]!=0){
+            return runs;
+        }
+        int slot = runs[1]+1;
+        if (slot>=singleRuns.length){
+            singleRuns = Arrays.copyOf(singleRuns, Math.max(singleRuns.length*2, slot+1));
+        }
+        if (singleRuns[slot]==null){
+            singleRuns[slot] = runs;
+        }
+        return singleRuns[slot];
+    }
+    
+    @Override
+    public MessageType getType(int line){
+        return TYPES[getInt(line, 28)];
+    }
+    
+    @Override
+    public void close(){
+        data.close();
+        index.close();
+        head = tail = position = 0;
+    }
+    
+    /**
+     * @return the amount of bytes of line text and style runs held in the segment files.
+     */
+    public long getMappedBytes(){
+        return size()==0 ? 0 : position-getLong(0, 8);
+    }
+    
+    private long getLong(int line){
+        return getLong(line, 0);
+    }
+    
+    private long getLong(int line, int field){
+        long record = record(line);
+        return index.segmentFor(record).getLong(index.offsetOf(record)+field);
+    }
+    
+    private int getInt(int line, int field){
+        long record = record(line);
+        return index.segmentFor(record).getInt(index.offsetOf(record)+field);
+    }
+    
+    private long record(int line){
+        if (line<0 || line>=size()){
+            throw new IndexOutOfBoundsException("index: " + line + ", size: " + size());
+        }
+        return (head+line)*RECORD_SIZE;
+    }
+    
+    /**
+     * Fixed size memory-mapped files that together make one long run of bytes. Position 0 is the
+     * start of the first segment ever made; segments before a position can be dropped.
+     */
+    private static class Segments {
+        
+        private final File directory;
+        private final int size;
+        
+        private final ArrayList<MappedByteBuffer> buffers;
+        // null for the files that were deleted once they were mapped
+        private final ArrayList<File> files;
+        // number of the first segment in the lists
+        private long first;
+        
+        Segments(File directory, int size){
+            this.directory = directory;
+            this.size = size;
+            buffers = new ArrayList<>();
+            files = new ArrayList<>();
+        }
+        
+        MappedByteBuffer segmentFor(long position){
+            long number = position/size;
+            while (first+buffers.size()<=number){
+                map();
+            }
+            return buffers.get((int) (number-first));
+        }
+        
+        int offsetOf(long position){
+            return (int) (position%size);
+        }
+        
+        private void map(){
+            try {
+                File file = File.createTempFile("console-scrollback", ".seg", directory);
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw")){
+                    raf.setLength(size);
+                    buffers.add(raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size));
+                }
+                // the mapping keeps the bytes, systems that won't delete a mapped file keep it
+                // until the segment is dropped
+                files.add(file.delete() ? null : file);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        
+        void write(long position, byte[] bytes, int from, int length){
+            while (length>0){
+                MappedByteBuffer segment = segmentFor(position);
+                int offset = offsetOf(position);
+                int count = Math.min(length, size-offset);
+                ByteBuffer view = segment.duplicate();
+                view.position(offset);
+                view.put(bytes, from, count);
+                position += count;
+                from += count;
+                length -= count;
+            }
+        }
+        
+        void read(long position, byte[] bytes, int from, int length){
+            while (length>0){
+                MappedByteBuffer segment = segmentFor(position);
+                int offset = offsetOf(position);
+                int count = Math.min(length, size-offset);
+                ByteBuffer view = segment.duplicate();
+                view.position(offset);
+                view.get(bytes, from, count);
+                position += count;
+                from += count;
+                length -= count;
+            }
+        }
+        
+        // drops every segment that ends at or before the position
+        void dropBefore(long position){
+            long keep = position/size;
+            while (first<keep && !buffers.isEmpty()){
+                buffers.remove(0);
+                File file = files.remove(0);
+                if (file!=null){
+                    file.delete();
+                }
+                first++;
+            }
+            if (buffers.isEmpty()){
+                first = keep;
+            }
+        }
+        
+        void close(){
+            buffers.clear();
+            for (File file : files){
+                if (file!=null){
+                    file.delete();
+                }
+            }
+            files.clear();
+            first = 0;
+        }
+    
+    }
+    
+}
@@ -34,6 +34,8 @@ import java.util.ArrayList;
 public class OutputHandler {
     
     private ArrayList<OutputListener> listeners;
+    // listeners that also hear the lines a RateLimiter suppressed
+    private ArrayList<OutputListener> unlimited;
     
     private final Console console;
     
@@ -44,20 +46,64 @@ public class OutputHandler {
     
     private void init(){
         listeners = new ArrayList<OutputListener>();
+        unlimited = new ArrayList<OutputListener>();
     }
     
     public synchronized void addListener(OutputListener listener) {
         listeners.add(listener);
     }
     
+    /**
+     * @param listener the listener to add.
+     * @param everything true if the listener should also hear lines that were suppressed by a 
+     * <code>{@link lal.console.output.RateLimiter}</code>.
+     */
+    public synchronized void addListener(OutputListener listener, boolean everything) {
+        listeners.add(listener);
+        if (everything){
+            unlimited.add(listener);
+        }
+    }
+    
     public synchronized void removeListener(OutputListener listener) {
         listeners.remove(listener);
+        unlimited.remove(listener);
     }
     
+    // index loops so telling the listeners doesn't make an iterator for every print
     public synchronized void alertListeners(Message message){
-        for (OutputListener listener : listeners){
-            listener.listen(message, console);
+        for (int q = 0; q < listeners.size(); q++){
+            listeners.get(q).listen(message, console);
+        }
+    }
+    
+    /**
+     * @param message message printed.
+     * @param shown false if the message was suppressed, then only the listeners that hear 
+     * everything are told.
+     */
+    public synchronized void alertListeners(Message message, boolean shown){
+        if (shown){
+            alertListeners(message);
+            return;
+        }
+        for (int q = 0; q < unlimited.size(); q++){
+            unlimited.get(q).listen(message, console);
         }
     }
     
+    /**
+     * @return true if there are any listeners.
+     */
+    public synchronized boolean hasListeners(){
+        return !listeners.isEmpty();
+    }
+    
+    /**
+     * @return true if a listener wants to hear lines that were suppressed.
+     */
+    public synchronized boolean hasUnlimitedListeners(){
+        return !unlimited.isEmpty();
+    }
+    
 }
@@ -0,0 +1,300 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.TextStyle;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A thread safe queue of text waiting to be added to the output. Any thread can
+ * <code>{@link #offer(String, TextStyle)}</code> text and whoever owns the queue drains it
+ * using <code>{@link #poll()}</code>.
+ * <p>
+ * There are two lanes, each with a priority: one for <code>ERROR</code> and one for 
+ * <code>NORMAL</code> that every other <code>{@link lal.console.MessageType}</code> shares (see 
+ * <code>{@link #laneOf(MessageType)}</code>), so the levels stay in the order they were printed. 
+ * <code>poll()</code> always takes from the lane with the highest priority that has anything 
+ * waiting, so errors are never stuck behind a flood of normal output. By default errors have the 
+ * highest priority. Text in the same lane stays in the order it was offered, and lanes with the 
+ * same priority are drained in the order of the <code>MessageType</code>s. The methods that read 
+ * a lane take any type and read the lane it shares.
+ * <p>
+ * The queue also keeps track of whether or not a flush has been scheduled so that only one flush
+ * is ever waiting no matter how many times text is offered.
+ * @author L. Arthur Lewis II
+ */
+public class OutputQueue {
+    
+    /**
+     * The most entries the owner should add to the output in one frame. Anything more waits for 
+     * the next frame, so a flood of output can't hold up the window for long.
+     */
+    public static final int FRAME_BUDGET = 10000;
+    
+    private final Lane[] lanes;
+    
+    // ordinals of the lanes from the highest priority to the lowest
+    private volatile int[] order;
+    
+    private final AtomicBoolean flushScheduled;
+    
+    public OutputQueue(){
+        MessageType[] types = MessageType.values();
+        lanes = new Lane[types.length];
+        for (MessageType type : types){
+            if (laneOf(type)==type){
+                lanes[type.ordinal()] = new Lane(defaultPriority(type));
+            }
+        }
+        // the types without a lane of their own use the same lane object
+        for (MessageType type : types){
+            lanes[type.ordinal()] = lanes[laneOf(type).ordinal()];
+        }
+        sortLanes();
+        flushScheduled = new AtomicBoolean(false);
+    }
+    
+    /**
+     * @param type the type of the text.
+     * @return the priority the lane of the type starts with, 1 for errors and 0 for everything 
+     * else.
+     */
+    public static int defaultPriority(MessageType type){
+        return type==MessageType.ERROR ? 1 : 0;
+    }
+    
+    /**
+     * @param type the type of the text.
+     * @return the type whose lane the text is queued in, <code>ERROR</code> for errors and 
+     * <code>NORMAL</code> for everything else.
+     */
+    public static MessageType laneOf(MessageType type){
+        return type==MessageType.ERROR ? MessageType.ERROR : MessageType.NORMAL;
+    }
+    
+    /**
+     * Adds text to the end of the lane of its <code>MessageType</code>.
+     * @param text text value.
+     * @param style the style of the text.
+     * @return true if a flush needs to be scheduled by the caller, false if one is already waiting.
+     */
+    public boolean offer(String text, TextStyle style){
+        Lane lane = lanes[style.getType().ordinal()];
+        lane.entries.add(new Entry(text, style));
+        lane.depth.incrementAndGet();
+        return flushScheduled.compareAndSet(false, true);
+    }
+    
+    /**
+     * Removes the oldest entry from the lane with the highest priority that isn't empty.
+     * @return the entry or <code>null</code> if the queue is empty.
+     */
+    public Entry poll(){
+        for (int index : order){
+            Lane lane = lanes[index];
+            Entry entry = lane.entries.poll();
+            if (entry!=null){
+                lane.depth.decrementAndGet();
+                lane.lastWait = System.nanoTime()-entry.offered;
+                return entry;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Must be called by the owner right before it starts draining the queue. Anything offered after
+     * this point will ask for a new flush.
+     */
+    public void beginFlush(){
+        flushScheduled.set(false);
+    }
+    
+    /**
+     * Used by the owner when it stops draining with entries still waiting.
+     * @return true if a flush needs to be scheduled by the caller, false if one is already waiting.
+     */
+    public boolean requestFlush(){
+        return flushScheduled.compareAndSet(false, true);
+    }
+    
+    /**
+     * Removes everything from the queue without handling it.
+     */
+    public void clear(){
+        for (Lane lane : lanes){
+            Entry entry;
+            while ((entry = lane.entries.poll())!=null){
+                lane.depth.decrementAndGet();
+            }
+        }
+    }
+    
+    /**
+     * @return true if there is nothing waiting in the queue.
+     */
+    public boolean isEmpty(){
+        for (Lane lane : lanes){
+            if (!lane.entries.isEmpty()){
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Lanes with a higher priority are drained first.
+     * @param type the type of the lane, <code>ERROR</code> or <code>NORMAL</code>.
+     * @param priority the new priority of the lane.
+     * @throws IllegalArgumentException if the type doesn't have a lane of its own.
+     */
+    public synchronized void setPriority(MessageType type, int priority){
+        checkLane(type);
+        lanes[type.ordinal()].priority = priority;
+        sortLanes();
+    }
+    
+    /**
+     * @param type the type of the lane, any other type than <code>ERROR</code> reads the lane of 
+     * <code>NORMAL</code>.
+     * @return the priority of the lane.
+     */
+    public int getPriority(MessageType type){
+        return lanes[type.ordinal()].priority;
+    }
+    
+    /**
+     * @param type a type of message.
+     * @throws IllegalArgumentException if the type shares the lane of another type.
+     */
+    public static void checkLane(MessageType type){
+        if (laneOf(type)!=type){
+            throw new IllegalArgumentException(type + " shares the lane of " + laneOf(type));
+        }
+    }
+    
+    private void sortLanes(){
+        // each lane is only in the order once, under the type it belongs to
+        int count = 0;
+        for (MessageType type : MessageType.values()){
+            if (laneOf(type)==type){
+                count++;
+            }
+        }
+        int[] sorted = new int[count];
+        count = 0;
+        for (MessageType type : MessageType.values()){
+            if (laneOf(type)==type){
+                sorted[count++] = type.ordinal();
+            }
+        }
+        // insertion sort, there are only a few lanes and it keeps equal priorities in order
+        for (int q = 1; q < sorted.length; q++){
+            int index = sorted[q];
+            int w = q-1;
+            while (w>=0 && lanes[sorted[w]].priority<lanes[index].priority){
+                sorted[w+1] = sorted[w];
+                w--;
+            }
+            sorted[w+1] = index;
+        }
+        order = sorted;
+    }
+    
+    /**
+     * @param type the type of the lane.
+     * @return the amount of entries waiting in the lane.
+     */
+    public int getDepth(MessageType type){
+        return lanes[type.ordinal()].depth.get();
+    }
+    
+    /**
+     * How far behind the output is for the lane.
+     * @param type the type of the lane.
+     * @return how many milliseconds the oldest entry in the lane has been waiting, 0 if the lane 
+     * is empty.
+     */
+    public long getWait(MessageType type){
+        Entry oldest = lanes[type.ordinal()].entries.peek();
+        if (oldest==null){
+            return 0;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime()-oldest.offered);
+    }
+    
+    /**
+     * @param type the type of the lane.
+     * @return how many milliseconds the last entry taken from the lane had waited.
+     */
+    public long getLastWait(MessageType type){
+        return TimeUnit.NANOSECONDS.toMillis(lanes[type.ordinal()].lastWait);
+    }
+    
+    /**
+     * The entries of one <code>MessageType</code>.
+     */
+    private static final class Lane {
+        
+        private final ConcurrentLinkedQueue<Entry> entries = new ConcurrentLinkedQueue<Entry>();
+        // ConcurrentLinkedQueue.size() walks the whole queue
+        private final AtomicInteger depth = new AtomicInteger();
+        private volatile int priority;
+        private volatile long lastWait;
+        
+        private Lane(int priority){
+            this.priority = priority;
+        }
+    
+    }
+    
+    /**
+     * A piece of text waiting in the queue along with its style.
+     */
+    public static final class Entry {
+        
+        private final String text;
+        private final TextStyle style;
+        private final long offered = System.nanoTime();
+        
+        private Entry(String text, TextStyle style){
+            this.text = text;
+            this.style = style;
+        }
+        
+        public String getText(){
+            return text;
+        }
+        
+        public TextStyle getStyle(){
+            return style;
+        }
+    
+    }
+    
+}
@@ -0,0 +1,251 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits how many lines a console draws per second so a runaway loop printing to it can't flood
+ * the output and freeze the window. Every source of output gets its own token bucket: it can
+ * print <code>burst</code> lines at once and then <code>linesPerSecond</code> lines every
+ * second. The source is either the thread printing or the
+ * <code>{@link lal.console.MessageType}</code> of the text, so one noisy thread (or a flood of
+ * errors) doesn't stop everything else from being drawn.
+ * <p>
+ * Only finished lines are charged in full. A print without a <code>'\n'</code> pays
+ * <code>{@link #PARTIAL_COST}</code> of a line up front and the <code>'\n'</code> that finishes
+ * the line pays the rest, so a line built from a few prints still costs one line while a loop
+ * printing text without a <code>'\n'</code> can't print for free.
+ * <p>
+ * Lines over the limit are counted instead of drawn, and the console prints how many were
+ * suppressed once every <code>{@link #SUMMARY_INTERVAL}</code> milliseconds. A single print of
+ * many lines is let through as long as its source has any tokens left, it just takes longer for
+ * the bucket to fill up again.
+ * <p>
+ * <code>{@link lal.console.output.OutputListener}s</code> are only told about the lines that are
+ * drawn, unless they were added with
+ * <code>{@link lal.console.Console#addOutputListener(OutputListener, boolean)}</code> to hear
+ * everything.
+ * @author L. Arthur Lewis II
+ */
+public final class RateLimiter {
+    
+    /**
+     * What the lines are counted by.
+     */
+    public enum Source {
+        
+        /**
+         * Each thread that prints has its own bucket.
+         */
+        THREAD,
+        
+        /**
+         * Each <code>MessageType</code> has its own bucket.
+         */
+        MESSAGE_TYPE
+    
+    }
+    
+    /**
+     * How often, in milliseconds, the console prints how many lines were suppressed.
+     */
+    public static final long SUMMARY_INTERVAL = 1000;
+    
+    /**
+     * The part of a line a print without a <code>'\n'</code> costs.
+     */
+    public static final double PARTIAL_COST = 0.125;
+    
+    private final Source source;
+    private final double linesPerSecond;
+    private final int burst;
+    
+    private final ThreadLocal<Bucket> threadBuckets;
+    private final Bucket[] typeBuckets;
+    
+    // suppressed since the last summary and since this was made
+    private final AtomicLong suppressed = new AtomicLong();
+    private final AtomicLong totalSuppressed = new AtomicLong();
+    
+    private RateLimiter(Source source, double linesPerSecond, int burst){
+        if (!(linesPerSecond>0)){
+            throw new IllegalArgumentException("linesPerSecond must be positive: " + linesPerSecond);
+        }
+        if (burst<1){
+            throw new IllegalArgumentException("burst must be positive: " + burst);
+        }
+        this.source = source;
+        this.linesPerSecond = linesPerSecond;
+        this.burst = burst;
+        if (source==Source.THREAD){
+            threadBuckets = new ThreadLocal<Bucket>(){
+                @Override
+                protected Bucket initialValue(){
+                    return new Bucket();
+                }
+            };
+            typeBuckets = null;
+        } else {
+            threadBuckets = null;
+            typeBuckets = new Bucket[MessageType.values().length];
+            for (int q = 0; q < typeBuckets.length; q++){
+                typeBuckets[q] = new Bucket();
+            }
+        }
+    }
+    
+    /**
+     * @param linesPerSecond how many lines each thread can print per second.
+     * @param burst how many lines a thread can print at once.
+     * @return a limiter with a bucket for each thread.
+     */
+    public static RateLimiter perThread(double linesPerSecond, int burst){
+        return new RateLimiter(Source.THREAD, linesPerSecond, burst);
+    }
+    
+    /**
+     * @param linesPerSecond how many lines of each <code>MessageType</code> can be printed per
+     * second.
+     * @param burst how many lines of each <code>MessageType</code> can be printed at once.
+     * @return a limiter with a bucket for each <code>MessageType</code>.
+     */
+    public static RateLimiter perType(double linesPerSecond, int burst){
+        return new RateLimiter(Source.MESSAGE_TYPE, linesPerSecond, burst);
+    }
+    
+    /**
+     * Takes the lines the text finishes from the bucket of its source, with 
+     * <code>{@link #PARTIAL_COST}</code> for text after the last <code>'\n'</code>. A line that 
+     * is suppressed is only counted once, however many prints it took.
+     * @param text the text being printed.
+     * @param type the type of the text.
+     * @return true if the text can be drawn, false if it is suppressed.
+     */
+    public boolean tryPrint(String text, MessageType type){
+        if (text.isEmpty()){
+            return true;
+        }
+        int newLines = 0;
+        for (int q = 0; q < text.length(); q++){
+            if (text.charAt(q)=='\n'){
+                newLines++;
+            }
+        }
+        boolean open = text.charAt(text.length()-1)!='\n';
+        Bucket bucket = source==Source.THREAD ? threadBuckets.get() : typeBuckets[type.ordinal()];
+        return bucket.take(newLines, open);
+    }
+    
+    /**
+     * Used by the console to print its summary.
+     * @return how many lines were suppressed since the last time this was called.
+     */
+    public long takeSuppressed(){
+        return suppressed.getAndSet(0);
+    }
+    
+    /**
+     * @return how many lines have been suppressed since this limiter was made.
+     */
+    public long getTotalSuppressed(){
+        return totalSuppressed.get();
+    }
+    
+    /**
+     * @return what the lines are counted by.
+     */
+    public Source getSource(){
+        return source;
+    }
+    
+    /**
+     * @return how many lines each source can print per second.
+     */
+    public double getLinesPerSecond(){
+        return linesPerSecond;
+    }
+    
+    /**
+     * @return how many lines each source can print at once.
+     */
+    public int getBurst(){
+        return burst;
+    }
+    
+    @Override
+    public String toString(){
+        return linesPerSecond + " lines/s (burst " + burst + ") per "
+                + (source==Source.THREAD ? "thread" : "message type");
+    }
+    
+    /**
+     * A token bucket, one token per line. Starts full.
+     */
+    private class Bucket {
+        
+        private double tokens = burst;
+        private long last = System.nanoTime();
+        
+        // how much of the unfinished line has been paid, and if it has been counted as suppressed
+        private double paid;
+        private boolean openSuppressed;
+        
+        /**
+         * @param newLines the amount of <code>'\n'</code>s in the text.
+         * @param open true if there is text after the last <code>'\n'</code>.
+         */
+        private synchronized boolean take(int newLines, boolean open){
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now-last)*linesPerSecond/1e9);
+            last = now;
+            if (tokens<=0){
+                // the first '\n' finishes the open line, which may already be counted
+                long lines = newLines + (open ? 1 : 0) - (openSuppressed ? 1 : 0);
+                suppressed.addAndGet(lines);
+                totalSuppressed.addAndGet(lines);
+                openSuppressed = open;
+                if (newLines>0){
+                    paid = 0;
+                }
+                return false;
+            }
+            double cost;
+            if (newLines==0){
+                cost = PARTIAL_COST;
+                paid += PARTIAL_COST;
+            } else {
+                cost = Math.max(0, 1-paid) + (newLines-1) + (open ? PARTIAL_COST : 0);
+                paid = open ? PARTIAL_COST : 0;
+                openSuppressed = false;
+            }
+            // a big print can go below zero, it then has to wait until the bucket fills back up
+            tokens -= cost;
+            return true;
+        }
+    
+    }
+    
+}
@@ -0,0 +1,381 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.TextStyle;
+import java.util.Arrays;
+
+/**
+ * The lines that have been printed to a console. Every line has a number that never changes,
+ * starting at 0 for the first line ever printed, so a line can still be found after older lines
+ * have been removed by a <code>{@link lal.console.output.ScrollbackPolicy}</code>.
+ * <p>
+ * Finished lines are kept in a <code>{@link lal.console.output.LineStore}</code>. The last line
+ * stays open until a <code>'\n'</code> is added and is counted as a line once it has any text.
+ * <p>
+ * All of the methods are thread safe.
+ * @author L. Arthur Lewis II
+ */
+public class Scrollback {
+    
+    private static final int[] NO_RUNS = new int[0];
+    
+    private LineStore store;
+    private long firstLine;
+    
+    private final StringBuilder open;
+    private int[] openRuns;
+    private int openRunLength;
+    private MessageType openType;
+    
+    // runs arrays for lines with one style, indexed by style id + 1, so finishing a line in one
+    // style doesn't make a new array
+    private int[][] singleRuns = new int[64][];
+    
+    // characters including one '\n' for every finished line
+    private long chars;
+    private int longestLine;
+    
+    public Scrollback(){
+        this(new HeapLineStore());
+    }
+    
+    public Scrollback(LineStore store){
+        this.store = store;
+        open = new StringBuilder();
+        openRuns = new int[8];
+    }
+    
+    /**
+     * Adds text to the end. The text is split into lines at every <code>'\n'</code>.
+     * @param text text to add.
+     * @param style the style of the text.
+     */
+    public synchronized void append(CharSequence text, TextStyle style){
+        int length = text.length();
+        int start = 0;
+        for (int q = 0; q < length; q++){
+            if (text.charAt(q)=='\n'){
+                addToOpen(text, start, q, style);
+                finishLine();
+                start = q+1;
+            }
+        }
+        addToOpen(text, start, length, style);
+        chars += length;
+    }
+    
+    /**
+     * Adds text and a <code>'\n'</code> to the end, the same as appending 
+     * <code>text + "\n"</code> without joining them. If the open line is empty and the text has 
+     * no <code>'\n'</code> the text is kept as it is, nothing is copied.
+     * @param text text of the line.
+     * @param style the style of the text.
+     */
+    public synchronized void appendLine(String text, TextStyle style){
+        if (open.length()>0 || text.indexOf('\n')>=0){
+            append(text, style);
+            finishLine();
+            chars++;
+            return;
+        }
+        store.add(text, text.isEmpty() ? NO_RUNS : singleRun(style.getId()), style.getType());
+        longestLine = Math.max(longestLine, text.length());
+        chars += text.length()+1;
+    }
+    
+    private void addToOpen(CharSequence text, int start, int end, TextStyle style){
+        if (start==end){
+            return;
+        }
+        int id = style.getId();
+        if (openRunLength==0 || openRuns[openRunLength-1]!=id){
+            if (openRunLength==openRuns.length){
+                openRuns = Arrays.copyOf(openRuns, openRuns.length*2);
+            }
+            openRuns[openRunLength++] = open.length();
+            openRuns[openRunLength++] = id;
+        }
+        if (openType==null || style.getType()==MessageType.ERROR){
+            openType = style.getType();
+        }
+        open.append(text, start, end);
+    }
+    
+    private void finishLine(){
+        int[] runs = openRunLength==0 ? NO_RUNS
+                : openRunLength==2 && openRuns[0]==0 ? singleRun(openRuns[1])
+                : Arrays.copyOf(openRuns, openRunLength);
+        String text = open.length()==0 ? "" : open.toString();
+        store.add(text, runs, openType==null ? MessageType.NORMAL : openType);
+        longestLine = Math.max(longestLine, open.length());
+        open.setLength(0);
+        openRunLength = 0;
+        openType = null;
+    }
+    
+    private int[] singleRun(int id){
+        int slot = id+1;
+        if (slot>=singleRuns.length){
+            singleRuns = Arrays.copyOf(singleRuns, Math.max(singleRuns.length*2, slot+1));
+        }
+        if (singleRuns[slot]==null){
+            singleRuns[slot] = new int[]{0, id};
+        }
+        return singleRuns[slot];
+    }
+    
+    /**
+     * Adds finished lines to the end in one go, much faster than appending their text, used to 
+     * restore a saved session. If the open line has text it is finished first.
+     * @param texts the text of each line without the <code>'\n'</code>.
+     * @param runs the style runs of each line.
+     * @param types the type of message each line is.
+     * @param count the amount of lines, from the start of the arrays.
+     */
+    public synchronized void addLines(String[] texts, int[][] runs, MessageType[] types, int count){
+        if (open.length()>0){
+            finishLine();
+            chars++;
+        }
+        for (int q = 0; q < count; q++){
+            int length = texts[q].length();
+            store.add(texts[q], runs[q].length==0 ? NO_RUNS : runs[q], types[q]);
+            chars += length+1;
+            longestLine = Math.max(longestLine, length);
+        }
+    }
+    
+    /**
+     * Removes the text of the open line, like a <code>'\r'</code> followed by text that replaces
+     * the whole line.
+     */
+    public synchronized void clearOpenLine(){
+        chars -= open.length();
+        open.setLength(0);
+        openRunLength = 0;
+        openType = null;
+    }
+    
+    /**
+     * Replaces the text of a line with text in one style. Nothing happens if the line is no longer
+     * held.
+     * @param line number of the line.
+     * @param text new text of the line, must not have a <code>'\n'</code>.
+     * @param style the style of the text.
+     */
+    public synchronized void replaceLine(long line, String text, TextStyle style){
+        if (!contains(line)){
+            return;
+        }
+        int index = (int) (line-firstLine);
+        if (index==store.size()){
+            clearOpenLine();
+            append(text, style);
+            return;
+        }
+        int[] runs = text.isEmpty() ? NO_RUNS : singleRun(style.getId());
+        chars += text.length()-store.getLength(index);
+        store.set(index, text, runs, style.getType());
+        longestLine = Math.max(longestLine, text.length());
+    }
+    
+    /**
+     * Removes the oldest lines if there are more than the policy allows. Once the policy is
+     * exceeded enough lines are removed to get down to
+     * <code>{@link ScrollbackPolicy#TRIM_TARGET}</code> of the limit. The open line is never
+     * removed.
+     * @param policy the policy to fit in.
+     * @return the amount of lines removed.
+     */
+    public synchronized int trim(ScrollbackPolicy policy){
+        if (!policy.isExceeded(getLineCount(), getBytes())){
+            return 0;
+        }
+        int keepLines = policy.getMaxLines()>0
+                ? (int) (policy.getMaxLines()*ScrollbackPolicy.TRIM_TARGET) : Integer.MAX_VALUE;
+        long keepChars = policy.getMaxBytes()>0
+                ? (long) (policy.getMaxBytes()*ScrollbackPolicy.TRIM_TARGET)/2 : Long.MAX_VALUE;
+        int size = store.size();
+        int openCount = getLineCount()-size;
+        int count = 0;
+        long removed = 0;
+        while (count<size && (size-count+openCount>keepLines || chars-removed>keepChars)){
+            removed += store.getLength(count)+1;
+            count++;
+        }
+        removeFirst(count, removed);
+        return count;
+    }
+    
+    private void removeFirst(int count, long removedChars){
+        store.removeFirst(count);
+        firstLine += count;
+        chars -= removedChars;
+    }
+    
+    /**
+     * Removes every line, including the open line.
+     */
+    public synchronized void clear(){
+        firstLine += getLineCount();
+        store.clear();
+        open.setLength(0);
+        openRunLength = 0;
+        openType = null;
+        chars = 0;
+    }
+    
+    /**
+     * @return the number of the oldest line still held.
+     */
+    public synchronized long getFirstLine(){
+        return firstLine;
+    }
+    
+    /**
+     * @return the number after the newest line.
+     */
+    public synchronized long getEndLine(){
+        return firstLine+getLineCount();
+    }
+    
+    /**
+     * @return the amount of lines held, counting the open line if it has any text.
+     */
+    public synchronized int getLineCount(){
+        return open.length()>0 ? store.size()+1 : store.size();
+    }
+    
+    /**
+     * @return true if the last line has text but no <code>'\n'</code> yet.
+     */
+    public synchronized boolean hasOpenLine(){
+        return open.length()>0;
+    }
+    
+    /**
+     * @return the amount of characters held, with one <code>'\n'</code> for every finished line.
+     */
+    public synchronized long getCharCount(){
+        return chars;
+    }
+    
+    /**
+     * @return the amount of bytes the characters take in memory (two per character).
+     */
+    public synchronized long getBytes(){
+        return chars*2;
+    }
+    
+    /**
+     * @return the most characters any line has had.
+     */
+    public synchronized int getLongestLine(){
+        return Math.max(longestLine, open.length());
+    }
+    
+    /**
+     * @param line number of the line.
+     * @return true if the line is still held.
+     */
+    public synchronized boolean contains(long line){
+        return line>=firstLine && line<getEndLine();
+    }
+    
+    /**
+     * @param line number of the line.
+     * @return the text of the line without the <code>'\n'</code>.
+     */
+    public synchronized String getText(long line){
+        int index = index(line);
+        return index==store.size() ? open.toString() : store.getText(index);
+    }
+    
+    /**
+     * The style of a line as pairs of ints: the index of the character the run starts at and the
+     * id of its <code>{@link lal.console.TextStyle}</code>. The array must not be changed.
+     * @param line number of the line.
+     * @return the style runs of the line.
+     */
+    public synchronized int[] getRuns(long line){
+        int index = index(line);
+        return index==store.size() ? Arrays.copyOf(openRuns, openRunLength) : store.getRuns(index);
+    }
+    
+    /**
+     * The type of a line is <code>ERROR</code> if any of its text is an error, otherwise it is the
+     * type of the first text on the line.
+     * @param line number of the line.
+     * @return the type of message the line is.
+     */
+    public synchronized MessageType getType(long line){
+        int index = index(line);
+        if (index==store.size()){
+            return openType==null ? MessageType.NORMAL : openType;
+        }
+        return store.getType(index);
+    }
+    
+    /**
+     * Moves every finished line into a different <code>LineStore</code> and closes the old one.
+     * Line numbers and the open line are kept.
+     * @param store the store lines are kept in from now on.
+     */
+    public synchronized void setStore(LineStore store){
+        if (store==this.store){
+            return;
+        }
+        int size = this.store.size();
+        for (int q = 0; q < size; q++){
+            store.add(this.store.getText(q), this.store.getRuns(q), this.store.getType(q));
+        }
+        this.store.close();
+        this.store = store;
+    }
+    
+    /**
+     * @return the store the finished lines are kept in.
+     */
+    public synchronized LineStore getStore(){
+        return store;
+    }
+    
+    /**
+     * Releases the <code>LineStore</code>. Nothing can be added after this.
+     */
+    public synchronized void close(){
+        store.close();
+    }
+    
+    private int index(long line){
+        if (!contains(line)){
+            throw new IndexOutOfBoundsException("line: " + line + ", first: " + firstLine
+                    + ", end: " + getEndLine());
+        }
+        return (int) (line-firstLine);
+    }
+    
+}
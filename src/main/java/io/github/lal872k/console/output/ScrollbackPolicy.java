@@ -0,0 +1,117 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+/**
+ * Decides how much output a console keeps before the oldest lines are removed. A policy can limit
+ * the amount of lines, the amount of bytes, or neither (see {@link #UNBOUNDED}).
+ * <p>
+ * Bytes are counted as two per character, which is how much room the text takes in memory.
+ * <p>
+ * Lines are not removed one at a time. Once a limit is passed, lines are removed from the top in
+ * one batch until the output is back down to {@link #TRIM_TARGET} of the limit, so the output only
+ * has to be trimmed once in a while.
+ * @author L. Arthur Lewis II
+ */
+public final class ScrollbackPolicy {
+    
+    /**
+     * A policy that never removes anything. This is the default for every console.
+     */
+    public static final ScrollbackPolicy UNBOUNDED = new ScrollbackPolicy(0, 0);
+    
+    /**
+     * How full the output is after it has been trimmed, as a fraction of the limit.
+     */
+    public static final double TRIM_TARGET = 0.9;
+    
+    private final int maxLines;
+    private final long maxBytes;
+    
+    private ScrollbackPolicy(int maxLines, long maxBytes){
+        this.maxLines = maxLines;
+        this.maxBytes = maxBytes;
+    }
+    
+    /**
+     * @param maxLines the most lines the output can have.
+     * @return a policy that limits the amount of lines.
+     */
+    public static ScrollbackPolicy lines(int maxLines){
+        if (maxLines<1){
+            throw new IllegalArgumentException("maxLines must be positive: " + maxLines);
+        }
+        return new ScrollbackPolicy(maxLines, 0);
+    }
+    
+    /**
+     * @param maxBytes the most bytes the output can have.
+     * @return a policy that limits the amount of bytes.
+     */
+    public static ScrollbackPolicy bytes(long maxBytes){
+        if (maxBytes<2){
+            throw new IllegalArgumentException("maxBytes must be at least 2: " + maxBytes);
+        }
+        return new ScrollbackPolicy(0, maxBytes);
+    }
+    
+    /**
+     * @return the most lines the output can have, or 0 if lines are not limited.
+     */
+    public int getMaxLines(){
+        return maxLines;
+    }
+    
+    /**
+     * @return the most bytes the output can have, or 0 if bytes are not limited.
+     */
+    public long getMaxBytes(){
+        return maxBytes;
+    }
+    
+    /**
+     * @return true if this policy never removes anything.
+     */
+    public boolean isUnbounded(){
+        return maxLines==0 && maxBytes==0;
+    }
+    
+    /**
+     * @param lines the amount of lines in the output.
+     * @param bytes the amount of bytes in the output.
+     * @return true if either amount is over its limit.
+     */
+    public boolean isExceeded(int lines, long bytes){
+        return (maxLines>0 && lines>maxLines) || (maxBytes>0 && bytes>maxBytes);
+    }
+    
+    @Override
+    public String toString(){
+        if (isUnbounded()){
+            return "unbounded";
+        }
+        return maxLines>0 ? maxLines+" lines" : maxBytes+" bytes";
+    }
+    
+}
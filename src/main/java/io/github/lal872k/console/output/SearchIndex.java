@@ -0,0 +1,487 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A trigram index over the lines of a <code>{@link lal.console.output.Scrollback}</code> that makes
+ * finding text in hundreds of thousands of lines fast. For every run of three characters (ignoring
+ * case) the index keeps the numbers of the lines it shows up in. A search only looks at the lines
+ * that have every trigram of the query, then checks the text of those lines.
+ * <p>
+ * Lines are indexed on a background thread after <code>{@link #update()}</code> is called, so the
+ * thread adding output never waits for the index. Lines that are not indexed yet, including the
+ * open line, are still searched by reading them. Queries shorter than three characters can't use
+ * the index and read every line.
+ * <p>
+ * Line numbers of trimmed lines are removed from the index every so often, until then they are
+ * skipped by searches. All of the methods are thread safe.
+ * @author L. Arthur Lewis II
+ */
+public class SearchIndex {
+    
+    /**
+     * Amount of characters in every indexed piece of text.
+     */
+    public static final int GRAM = 3;
+    
+    // lines copied out of the scrollback at a time
+    private static final int BATCH = 4096;
+    
+    private final Scrollback scrollback;
+    
+    // open addressing map from trigram to the lines it is on
+    private long[] keys;
+    private LineList[] lists;
+    private int count;
+    
+    // line numbers are kept as ints counted from base
+    private long base;
+    private long indexedEnd;
+    private long prunedTo;
+    
+    private final ExecutorService worker;
+    private final AtomicBoolean scheduled;
+    private volatile boolean closed;
+    
+    /**
+     * Makes an index and starts indexing every line already in the scrollback.
+     * @param scrollback lines to index.
+     */
+    public SearchIndex(Scrollback scrollback){
+        this.scrollback = scrollback;
+        keys = new long[1024];
+        lists = new LineList[1024];
+        base = scrollback.getFirstLine();
+        indexedEnd = base;
+        prunedTo = base;
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Console search index");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduled = new AtomicBoolean();
+        update();
+    }
+    
+    /**
+     * Lets the index know that lines were added or removed. Indexing happens later on the index's
+     * own thread, so this returns right away.
+     */
+    public void update(){
+        if (!closed && scheduled.compareAndSet(false, true)){
+            worker.execute(this::indexNewLines);
+        }
+    }
+    
+    private void indexNewLines(){
+        scheduled.set(false);
+        ArrayList<String> texts = new ArrayList<>(BATCH);
+        while (!closed){
+            long first, start;
+            texts.clear();
+            // never wait for this while holding the scrollback, searches lock them the other way
+            synchronized (this){
+                start = indexedEnd;
+            }
+            synchronized (scrollback){
+                first = scrollback.getFirstLine();
+                long end = scrollback.getEndLine()-(scrollback.hasOpenLine() ? 1 : 0);
+                start = Math.max(start, first);
+                long stop = Math.min(end, start+BATCH);
+                for (long line = start; line < stop; line++){
+                    texts.add(scrollback.getText(line));
+                }
+            }
+            synchronized (this){
+                if (first-prunedTo>=BATCH){
+                    prune(first);
+                }
+                if (start+texts.size()-base>=Integer.MAX_VALUE){
+                    // line numbers no longer fit, start again from the oldest line still held
+                    clearIndex(first);
+                    continue;
+                }
+                for (int q = 0; q < texts.size(); q++){
+                    addLine(texts.get(q), (int) (start+q-base));
+                }
+                indexedEnd = start+texts.size();
+            }
+            if (texts.size()<BATCH){
+                return;
+            }
+        }
+    }
+    
+    private void addLine(String text, int line){
+        int length = text.length();
+        if (length<GRAM){
+            return;
+        }
+        char a = Character.toLowerCase(text.charAt(0));
+        char b = Character.toLowerCase(text.charAt(1));
+        for (int q = GRAM-1; q < length; q++){
+            char c = Character.toLowerCase(text.charAt(q));
+            LineList list = getOrAdd(key(a, b, c));
+            if (list.size==0 || list.last()!=line){
+                list.add(line);
+            }
+            a = b;
+            b = c;
+        }
+    }
+    
+    private static long key(char a, char b, char c){
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+    
+    // keys are stored plus one so 0 can mean an empty slot
+    private int slot(long key){
+        long stored = key+1;
+        int mask = keys.length-1;
+        int slot = (int) ((stored*0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (keys[slot]!=0 && keys[slot]!=stored){
+            slot = (slot+1) & mask;
+        }
+        return slot;
+    }
+    
+    private LineList get(long key){
+        int slot = slot(key);
+        return keys[slot]==0 ? null : lists[slot];
+    }
+    
+    private LineList getOrAdd(long key){
+        int slot = slot(key);
+        if (keys[slot]!=0){
+            return lists[slot];
+        }
+        if ((count+1)*2>keys.length){
+            rehash(keys.length*2);
+            slot = slot(key);
+        }
+        keys[slot] = key+1;
+        lists[slot] = new LineList();
+        count++;
+        return lists[slot];
+    }
+    
+    private void rehash(int size){
+        long[] oldKeys = keys;
+        LineList[] oldLists = lists;
+        keys = new long[size];
+        lists = new LineList[size];
+        count = 0;
+        for (int q = 0; q < oldKeys.length; q++){
+            if (oldKeys[q]!=0 && oldLists[q].size>0){
+                int slot = slot(oldKeys[q]-1);
+                keys[slot] = oldKeys[q];
+                lists[slot] = oldLists[q];
+                count++;
+            }
+        }
+    }
+    
+    // removes trimmed lines from every list and drops the lists left empty
+    private void prune(long first){
+        int line = (int) Math.max(0, first-base);
+        for (LineList list : lists){
+            if (list!=null){
+                list.removeBefore(line);
+            }
+        }
+        int size = keys.length;
+        while (size>1024 && count*8<size){
+            size /= 2;
+        }
+        rehash(size);
+        prunedTo = first;
+    }
+    
+    private void clearIndex(long first){
+        keys = new long[1024];
+        lists = new LineList[1024];
+        count = 0;
+        base = first;
+        indexedEnd = first;
+        prunedTo = first;
+    }
+    
+    /**
+     * Finds the first line at or after a line that has the query in it, ignoring case.
+     * @param query text to find.
+     * @param from number of the first line looked at.
+     * @return the number of the line, or -1 if no line after it has the query or the thread is 
+     * interrupted while looking through lines that are not indexed.
+     */
+    public long findNext(String query, long from){
+        if (query.isEmpty()){
+            return -1;
+        }
+        String lower = lower(query);
+        synchronized (this){
+            from = Math.max(from, scrollback.getFirstLine());
+            if (lower.length()>=GRAM){
+                LineList[] needed = listsFor(lower);
+                if (needed==null){
+                    from = Math.max(from, indexedEnd);
+                } else {
+                    LineList rarest = needed[0];
+                    for (int q = rarest.lowerBound((int) Math.max(0, from-base)); q < rarest.size; q++){
+                        long line = base+rarest.get(q);
+                        if (line>=indexedEnd){
+                            break;
+                        }
+                        if (inAll(needed, rarest.get(q)) && matches(line, lower)){
+                            return line;
+                        }
+                    }
+                    from = Math.max(from, indexedEnd);
+                }
+            }
+        }
+        // lines that are not in the index
+        long end = scrollback.getEndLine();
+        for (long line = from; line < end && !Thread.currentThread().isInterrupted(); line++){
+            if (matches(line, lower)){
+                return line;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Finds the last line at or before a line that has the query in it, ignoring case.
+     * @param query text to find.
+     * @param from number of the first line looked at.
+     * @return the number of the line, or -1 if no line before it has the query or the thread is 
+     * interrupted while looking through lines that are not indexed.
+     */
+    public long findPrevious(String query, long from){
+        if (query.isEmpty()){
+            return -1;
+        }
+        String lower = lower(query);
+        long first = scrollback.getFirstLine();
+        from = Math.min(from, scrollback.getEndLine()-1);
+        synchronized (this){
+            long indexed = lower.length()>=GRAM ? Math.max(indexedEnd, first) : first;
+            // lines that are not in the index
+            for (long line = from; line >= indexed; line--){
+                if (Thread.currentThread().isInterrupted()){
+                    return -1;
+                }
+                if (matches(line, lower)){
+                    return line;
+                }
+            }
+            if (lower.length()<GRAM){
+                return -1;
+            }
+            LineList[] needed = listsFor(lower);
+            if (needed==null){
+                return -1;
+            }
+            LineList rarest = needed[0];
+            long last = Math.min(from, indexedEnd-1);
+            for (int q = rarest.lowerBound((int) (last-base+1))-1; q >= 0; q--){
+                long line = base+rarest.get(q);
+                if (line<first){
+                    break;
+                }
+                if (inAll(needed, rarest.get(q)) && matches(line, lower)){
+                    return line;
+                }
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Counts the lines that have the query in them, ignoring case.
+     * @param query text to find.
+     * @return the amount of lines.
+     */
+    public int countMatches(String query){
+        int matches = 0;
+        long line = findNext(query, scrollback.getFirstLine());
+        while (line>=0){
+            matches++;
+            line = findNext(query, line+1);
+        }
+        return matches;
+    }
+    
+    // the lists for every trigram in the query, shortest first, or null if one isn't indexed
+    private LineList[] listsFor(String lower){
+        LineList[] needed = new LineList[lower.length()-GRAM+1];
+        for (int q = 0; q < needed.length; q++){
+            needed[q] = get(key(lower.charAt(q), lower.charAt(q+1), lower.charAt(q+2)));
+            if (needed[q]==null || needed[q].size==0){
+                return null;
+            }
+        }
+        Arrays.sort(needed, (a, b) -> Integer.compare(a.size, b.size));
+        return needed;
+    }
+    
+    // folds case one char at a time like addLine, so a query matches the keys it was indexed under
+    private static String lower(String query){
+        char[] chars = new char[query.length()];
+        for (int q = 0; q < chars.length; q++){
+            chars[q] = Character.toLowerCase(query.charAt(q));
+        }
+        return new String(chars);
+    }
+    
+    private static boolean inAll(LineList[] needed, int line){
+        for (int q = 1; q < needed.length; q++){
+            if (!needed[q].contains(line)){
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean matches(long line, String lower){
+        synchronized (scrollback){
+            return scrollback.contains(line)
+                    && indexOfIgnoreCase(scrollback.getText(line), lower, 0)>=0;
+        }
+    }
+    
+    /**
+     * Finds text without looking at case.
+     * @param text text looked in.
+     * @param query text to find.
+     * @param from index to start looking at.
+     * @return the index the query starts at, or -1 if it isn't found.
+     */
+    public static int indexOfIgnoreCase(String text, String query, int from){
+        int last = text.length()-query.length();
+        for (int q = Math.max(0, from); q <= last; q++){
+            if (text.regionMatches(true, q, query, 0, query.length())){
+                return q;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * @return the number after the last line that has been indexed.
+     */
+    public synchronized long getIndexedEnd(){
+        return indexedEnd;
+    }
+    
+    /**
+     * @return the amount of different trigrams in the index.
+     */
+    public synchronized int getGramCount(){
+        return count;
+    }
+    
+    /**
+     * Stops the indexing thread and empties the index.
+     */
+    public void close(){
+        closed = true;
+        worker.shutdownNow();
+        synchronized (this){
+            clearIndex(scrollback.getFirstLine());
+        }
+    }
+    
+    /**
+     * A growing, sorted list of line numbers that can have its start removed.
+     */
+    private static class LineList {
+        
+        private int[] lines = new int[4];
+        private int head;
+        private int size;
+        
+        void add(int line){
+            if (head+size==lines.length){
+                if (head>0 && size<=lines.length/2){
+                    System.arraycopy(lines, head, lines, 0, size);
+                } else {
+                    int[] grown = new int[lines.length*2];
+                    System.arraycopy(lines, head, grown, 0, size);
+                    lines = grown;
+                }
+                head = 0;
+            }
+            lines[head+size++] = line;
+        }
+        
+        int get(int index){
+            return lines[head+index];
+        }
+        
+        int last(){
+            return lines[head+size-1];
+        }
+        
+        // index of the first line at or after the line
+        int lowerBound(int line){
+            int low = head;
+            int high = head+size;
+            while (low<high){
+                int mid = (low+high) >>> 1;
+                if (lines[mid]<line){
+                    low = mid+1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low-head;
+        }
+        
+        boolean contains(int line){
+            int index = lowerBound(line);
+            return index<size && get(index)==line;
+        }
+        
+        void removeBefore(int line){
+            int remove = lowerBound(line);
+            head += remove;
+            size -= remove;
+            if (size==0){
+                head = 0;
+            } else if (size*4<lines.length && lines.length>4){
+                lines = Arrays.copyOfRange(lines, head, head+Math.max(4, size*2));
+                head = 0;
+            }
+        }
+    
+    }
+    
+}
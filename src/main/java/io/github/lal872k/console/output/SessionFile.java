@@ -0,0 +1,399 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.output;
+
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Saves the lines of a <code>{@link lal.console.output.Scrollback}</code> to a file and adds them
+ * back to a scrollback later, so the history of a console can outlive the program.
+ * <p>
+ * The file starts with a header, then the lines in blocks of <code>{@link #BLOCK_LINES}</code>,
+ * then the styles used and the position of the styles. Each block starts with how many lines
+ * and characters it has and how many bytes it takes. Each line is its
+ * <code>MessageType</code>, its text as UTF-8 and its style runs as variable length ints, where
+ * a style is its index in the file's list of styles instead of its id, since ids are only good
+ * for the program that made them.
+ * <p>
+ * To restore, the file is memory-mapped and only the block headers are read at first, so the
+ * blocks the <code>{@link lal.console.output.ScrollbackPolicy}</code> would remove are never
+ * read. The rest of the blocks are decoded in parallel on the common <code>ForkJoinPool</code>
+ * and added to the scrollback in order with
+ * <code>{@link lal.console.output.Scrollback#addLines(String[], int[][], MessageType[], int)}
+ * </code>, without going through the output queue or the view.
+ * @author L. Arthur Lewis II
+ */
+public final class SessionFile {
+    
+    /**
+     * The most lines in one block.
+     */
+    public static final int BLOCK_LINES = 4096;
+    
+    // "LALCONS" and the version
+    private static final long MAGIC = 0x4C414C434F4E5301L;
+    private static final int HEADER_SIZE = 8;
+    private static final int BLOCK_HEADER_SIZE = 16;
+    // the most bytes mapped at once
+    private static final int WINDOW_SIZE = 1 << 30;
+    
+    private static final MessageType[] TYPES = MessageType.values();
+    
+    private SessionFile(){}
+    
+    /**
+     * Writes every line in the scrollback to a file, replacing it if it is already there. The
+     * scrollback is only held while each block is copied, so output can keep being added. Lines
+     * added after this starts are not saved. The open line is saved as a finished line.
+     * @param scrollback the lines to save.
+     * @param path the file.
+     * @return the amount of lines saved.
+     * @throws IOException if the file can't be written.
+     */
+    public static long save(Scrollback scrollback, Path path) throws IOException {
+        HashMap<Integer, Integer> styleIndex = new HashMap<Integer, Integer>();
+        List<TextStyle> styles = new ArrayList<TextStyle>();
+        String[] texts = new String[BLOCK_LINES];
+        int[][] runs = new int[BLOCK_LINES][];
+        MessageType[] types = new MessageType[BLOCK_LINES];
+        Encoder block = new Encoder();
+        long saved = 0;
+        long written = HEADER_SIZE;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(path), 1 << 16))){
+            out.writeLong(MAGIC);
+            long next, stop;
+            synchronized (scrollback){
+                next = scrollback.getFirstLine();
+                stop = scrollback.getEndLine();
+            }
+            while (true){
+                int count;
+                synchronized (scrollback){
+                    // lines removed while saving are skipped
+                    next = Math.max(next, scrollback.getFirstLine());
+                    long end = Math.min(stop, Math.min(next+BLOCK_LINES, scrollback.getEndLine()));
+                    if (next>=end){
+                        break;
+                    }
+                    count = (int) (end-next);
+                    for (int q = 0; q < count; q++){
+                        texts[q] = scrollback.getText(next+q);
+                        runs[q] = scrollback.getRuns(next+q);
+                        types[q] = scrollback.getType(next+q);
+                    }
+                    next = end;
+                }
+                block.reset();
+                long chars = 0;
+                for (int q = 0; q < count; q++){
+                    block.line(texts[q], runs[q], types[q], styleIndex, styles);
+                    chars += texts[q].length()+1;
+                }
+                out.writeInt(count);
+                out.writeLong(chars);
+                out.writeInt(block.length);
+                out.write(block.bytes, 0, block.length);
+                written += BLOCK_HEADER_SIZE+block.length;
+                saved += count;
+            }
+            out.writeInt(styles.size());
+            for (TextStyle style : styles){
+                Color fore = style==null ? null : style.getForeground();
+                Color back = style==null ? null : style.getBackground();
+                out.writeByte(style==null ? MessageType.NORMAL.ordinal() : style.getType().ordinal());
+                out.writeByte((fore==null ? 0 : 1) | (back==null ? 0 : 2));
+                out.writeInt(fore==null ? 0 : fore.getRGB());
+                out.writeInt(back==null ? 0 : back.getRGB());
+            }
+            out.writeLong(written);
+        }
+        return saved;
+    }
+    
+    /**
+     * Adds the lines saved in a file to the end of a scrollback. When the policy would remove
+     * the oldest of them right away they aren't read at all.
+     * @param path the file made by {@link #save(Scrollback, Path)}.
+     * @param scrollback the scrollback the lines are added to.
+     * @param policy the policy the scrollback is kept to.
+     * @return the amount of lines added.
+     * @throws IOException if the file can't be read or wasn't made by <code>save()</code>.
+     */
+    public static long restore(Path path, Scrollback scrollback, ScrollbackPolicy policy)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)){
+            long size = channel.size();
+            if (size<HEADER_SIZE+12 || readFully(channel, 0, 8).getLong()!=MAGIC){
+                throw new IOException("Not a console session: " + path);
+            }
+            long footer = readFully(channel, size-8, 8).getLong();
+            if (footer<HEADER_SIZE || footer>size-12){
+                throw new IOException("Broken console session: " + path);
+            }
+            int[] styleIds = readStyles(channel.map(FileChannel.MapMode.READ_ONLY, footer,
+                    size-8-footer));
+            
+            // the header of every block
+            ArrayList<long[]> headers = new ArrayList<long[]>();
+            long position = HEADER_SIZE;
+            while (position<footer){
+                ByteBuffer header = readFully(channel, position, BLOCK_HEADER_SIZE);
+                int count = header.getInt();
+                long chars = header.getLong();
+                int length = header.getInt();
+                headers.add(new long[]{position+BLOCK_HEADER_SIZE, length, count, chars});
+                position += BLOCK_HEADER_SIZE+length;
+            }
+            
+            // skip the blocks the policy would remove as soon as they were added
+            int keepLines = policy.getMaxLines()>0
+                    ? (int) (policy.getMaxLines()*ScrollbackPolicy.TRIM_TARGET) : Integer.MAX_VALUE;
+            long keepChars = policy.getMaxBytes()>0
+                    ? (long) (policy.getMaxBytes()*ScrollbackPolicy.TRIM_TARGET)/2 : Long.MAX_VALUE;
+            int firstBlock = headers.size();
+            long lines = 0;
+            long chars = 0;
+            while (firstBlock>0 && lines<keepLines && chars<keepChars){
+                firstBlock--;
+                lines += headers.get(firstBlock)[2];
+                chars += headers.get(firstBlock)[3];
+            }
+            
+            // map the blocks in windows, a block is never split between two
+            int count = headers.size()-firstBlock;
+            Block[] blocks = new Block[count];
+            MappedByteBuffer window = null;
+            long windowStart = 0;
+            long windowEnd = 0;
+            for (int q = 0; q < count; q++){
+                long[] header = headers.get(firstBlock+q);
+                long start = header[0];
+                long end = start+header[1];
+                if (window==null || end>windowEnd){
+                    windowStart = start;
+                    windowEnd = Math.min(footer, start+Math.max(WINDOW_SIZE, header[1]));
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                            windowEnd-windowStart);
+                }
+                blocks[q] = new Block(window, (int) (start-windowStart), (int) header[2]);
+            }
+            ForkJoinPool.commonPool().invoke(new Decode(blocks, styleIds, 0, count));
+            
+            long added = 0;
+            for (Block block : blocks){
+                scrollback.addLines(block.texts, block.runs, block.types, block.count);
+                added += block.count;
+            }
+            return added;
+        }
+    }
+    
+    private static ByteBuffer readFully(FileChannel channel, long position, int length)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()){
+            if (channel.read(buffer, position+buffer.position())<0){
+                throw new IOException("Unexpected end of console session");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+    
+    // interns every style in the file and returns the id of each in this program
+    private static int[] readStyles(ByteBuffer buffer){
+        int[] ids = new int[buffer.getInt()];
+        for (int q = 0; q < ids.length; q++){
+            MessageType type = TYPES[buffer.get()];
+            int flags = buffer.get();
+            int fore = buffer.getInt();
+            int back = buffer.getInt();
+            ids[q] = StyleTable.getShared().intern((flags & 1)==0 ? null : new Color(fore, true),
+                    (flags & 2)==0 ? null : new Color(back, true), type).getId();
+        }
+        return ids;
+    }
+    
+    /**
+     * Writes the lines of one block into a growing array.
+     */
+    private static final class Encoder {
+        
+        private byte[] bytes = new byte[1 << 16];
+        private int length;
+        
+        void reset(){
+            length = 0;
+        }
+        
+        void line(String text, int[] runs, MessageType type, HashMap<Integer, Integer> styleIndex,
+                List<TextStyle> styles){
+            byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+            ensure(1+5+utf8.length+5+runs.length*5);
+            bytes[length++] = (byte) type.ordinal();
+            putVarInt(utf8.length);
+            System.arraycopy(utf8, 0, bytes, length, utf8.length);
+            length += utf8.length;
+            putVarInt(runs.length/2);
+            int last = 0;
+            for (int q = 0; q < runs.length; q+=2){
+                Integer index = styleIndex.get(runs[q+1]);
+                if (index==null){
+                    TextStyle style = StyleTable.getShared().get(runs[q+1]);
+                    index = styles.size();
+                    // a style missing from the table is restored in the default colors
+                    styles.add(style);
+                    styleIndex.put(runs[q+1], index);
+                }
+                putVarInt(runs[q]-last);
+                putVarInt(index);
+                last = runs[q];
+            }
+        }
+        
+        private void putVarInt(int value){
+            while ((value & ~0x7F)!=0){
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+        
+        private void ensure(int more){
+            if (length+more>bytes.length){
+                bytes = Arrays.copyOf(bytes, Math.max(length+more, bytes.length*2));
+            }
+        }
+    
+    }
+    
+    /**
+     * One block of a session being restored, and its lines once they have been decoded.
+     */
+    private static final class Block {
+        
+        private final ByteBuffer buffer;
+        private final int count;
+        
+        private String[] texts;
+        private int[][] runs;
+        private MessageType[] types;
+        
+        Block(MappedByteBuffer window, int offset, int count){
+            ByteBuffer view = window.duplicate();
+            view.position(offset);
+            buffer = view.slice();
+            this.count = count;
+        }
+        
+        void decode(int[] styleIds){
+            texts = new String[count];
+            runs = new int[count][];
+            types = new MessageType[count];
+            byte[] text = new byte[256];
+            for (int q = 0; q < count; q++){
+                types[q] = TYPES[buffer.get()];
+                int length = getVarInt();
+                if (text.length<length){
+                    text = new byte[Math.max(length, text.length*2)];
+                }
+                buffer.get(text, 0, length);
+                texts[q] = new String(text, 0, length, StandardCharsets.UTF_8);
+                int[] lineRuns = new int[getVarInt()*2];
+                int last = 0;
+                for (int r = 0; r < lineRuns.length; r+=2){
+                    last += getVarInt();
+                    lineRuns[r] = last;
+                    lineRuns[r+1] = styleIds[getVarInt()];
+                }
+                runs[q] = lineRuns;
+            }
+        }
+        
+        private int getVarInt(){
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80)!=0);
+            return value;
+        }
+    
+    }
+    
+    /**
+     * Decodes a range of blocks, splitting it until it is one block.
+     */
+    private static final class Decode extends RecursiveAction {
+        
+        private final Block[] blocks;
+        private final int[] styleIds;
+        private final int from, to;
+        
+        Decode(Block[] blocks, int[] styleIds, int from, int to){
+            this.blocks = blocks;
+            this.styleIds = styleIds;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute(){
+            if (to-from<=1){
+                if (to>from){
+                    blocks[from].decode(styleIds);
+                }
+                return;
+            }
+            int middle = (from+to) >>> 1;
+            invokeAll(new Decode(blocks, styleIds, from, middle),
+                    new Decode(blocks, styleIds, middle, to));
+        }
+    
+    }
+    
+}
@@ -23,16 +23,27 @@
  */
 package io.github.lal872k.console.ui;
 
+import io.github.lal872k.console.output.LineMarks;
+import io.github.lal872k.console.output.Scrollback;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
 import javax.swing.JButton;
 import javax.swing.JComponent;
 import javax.swing.plaf.basic.BasicScrollBarUI;
 
 /**
- *
+ * Draws a scroll bar in flat colors. When it is given a <code>{@link lal.console.ui.Frame}</code> 
+ * with <code>{@link #setOverview(Frame, Color, Color)}</code> the track also shows where the 
+ * errors and the lines found by the find bar are in the whole output, and clicking on one of the 
+ * marks scrolls to its line.
+ * <p>
+ * Each pixel of the track stands for a range of lines and is only marked if the
+ * <code>{@link lal.console.output.LineMarks}</code> count any marks in it, so drawing the marks 
+ * takes as long for a short output as for a long one. Lines that wrap take more space in the 
+ * output than on the track, so the marks are only about where the lines are.
  * @author L. Arthur Lewis II
  */
 public class ColorScrollBarUI extends BasicScrollBarUI {
@@ -40,6 +51,13 @@ public class ColorScrollBarUI extends BasicScrollBarUI {
     private final int margin;
     private final Color thumb, thumbDrag, track, back;
     
+    // the frame whose output marks are drawn, null to draw none
+    private Frame overview;
+    private Color errorMark, searchMark;
+    
+    // how many pixels away from a mark a click can be and still go to it
+    private static final int CLICK_SLOP = 2;
+    
     public ColorScrollBarUI(Color thumb, Color thumbDrag, Color track, Color back, int margin){
         this.track = track;
         this.thumb = thumb;
@@ -69,6 +87,101 @@ public class ColorScrollBarUI extends BasicScrollBarUI {
                 thumbBounds.height-margin*2);
     }
     
+    /**
+     * Draws the errors and the lines found by the find bar of a frame on the track.
+     * @param frame the frame, <code>null</code> to stop drawing marks.
+     * @param errorMark the color of lines with errors.
+     * @param searchMark the color of lines found by the find bar, drawn over errors.
+     */
+    public void setOverview(Frame frame, Color errorMark, Color searchMark){
+        this.overview = frame;
+        this.errorMark = errorMark;
+        this.searchMark = searchMark;
+        if (scrollbar!=null){
+            scrollbar.repaint();
+        }
+    }
+    
+    @Override
+    public void paint(Graphics g, JComponent c){
+        super.paint(g, c);
+        // the marks are placed by line number, which doesn't match the rows of a filter or a 
+        // channel
+        if (overview!=null && overview.getShownFilter()==null 
+                && overview.getShownChannel()==null){
+            paintMarks(g, getTrackBounds());
+        }
+    }
+    
+    // draws a mark for every pixel of the track whose lines have a mark
+    private void paintMarks(Graphics g, Rectangle bounds){
+        Scrollback scrollback = overview.getScrollback();
+        long first = scrollback.getFirstLine();
+        long lines = scrollback.getEndLine()-first;
+        if (lines<=0 || bounds.height<=0){
+            return;
+        }
+        LineMarks errors = overview.getErrorMarks();
+        LineMarks found = overview.getSearchMarks();
+        int x = bounds.x+margin;
+        int width = Math.max(1, bounds.width-margin*2);
+        for (int y = 0; y < bounds.height; y++){
+            long from = first+y*lines/bounds.height;
+            long to = Math.max(from+1, first+(y+1)*lines/bounds.height);
+            if (found!=null && found.count(from, to)>0){
+                g.setColor(searchMark);
+            } else if (errors.count(from, to)>0){
+                g.setColor(errorMark);
+            } else {
+                continue;
+            }
+            g.fillRect(x, bounds.y+y, width, 2);
+        }
+    }
+    
+    // the marked line closest to a point on the track, -1 if there isn't one near it
+    private long markAt(int y){
+        Rectangle bounds = getTrackBounds();
+        Scrollback scrollback = overview.getScrollback();
+        long first = scrollback.getFirstLine();
+        long lines = scrollback.getEndLine()-first;
+        if (lines<=0 || bounds.height<=0){
+            return -1;
+        }
+        int top = Math.max(0, y-bounds.y-CLICK_SLOP);
+        int bottom = Math.min(bounds.height, y-bounds.y+CLICK_SLOP+1);
+        long from = first+top*lines/bounds.height;
+        long to = Math.max(from+1, first+bottom*lines/bounds.height);
+        LineMarks found = overview.getSearchMarks();
+        if (found!=null){
+            long line = found.next(from);
+            if (line>=0 && line<to){
+                return line;
+            }
+        }
+        long line = overview.getErrorMarks().next(from);
+        return line>=0 && line<to ? line : -1;
+    }
+    
+    @Override
+    protected TrackListener createTrackListener(){
+        return new TrackListener(){
+            @Override
+            public void mousePressed(MouseEvent e){
+                if (overview!=null && overview.getShownFilter()==null 
+                        && overview.getShownChannel()==null 
+                        && !getThumbBounds().contains(e.getPoint())){
+                    long line = markAt(e.getY());
+                    if (line>=0){
+                        overview.scrollToLine(line);
+                        return;
+                    }
+                }
+                super.mousePressed(e);
+            }
+        };
+    }
+    
     @Override
     protected JButton createDecreaseButton(int orientation) {
         return createZeroButton();
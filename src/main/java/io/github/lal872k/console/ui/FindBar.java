@@ -0,0 +1,284 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import io.github.lal872k.console.output.LineMarks;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.SearchIndex;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.concurrent.ExecutionException;
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+/**
+ * The bar shown above the output of a <code>{@link lal.console.ui.Frame}</code> when the menu
+ * shortcut key and F are pressed. Searches use the frame's
+ * <code>{@link lal.console.output.SearchIndex}</code> and ignore case.
+ * <p>
+ * Typing searches from the current match, enter goes to the next match and shift enter to the
+ * previous one, wrapping around at the ends of the output. Escape closes the bar. Only the
+ * matches in the part of the output that can be seen are highlighted.
+ * @author L. Arthur Lewis II
+ */
+public class FindBar extends JPanel {
+    
+    private final Frame frame;
+    
+    private final JTextField field;
+    private final JButton previous;
+    private final JButton next;
+    private final JButton close;
+    private final JLabel status;
+    
+    // line of the current match, -1 if there isn't one
+    private long current = -1;
+    
+    // finds every line with the query for the scroll bar
+    private SwingWorker<LineMarks, Void> marker;
+    
+    // looks for the match to go to, lines that are not indexed yet are read one at a time
+    private SwingWorker<Long, Void> finder;
+    
+    public FindBar(Frame frame){
+        super(new BorderLayout());
+        this.frame = frame;
+        field = new JTextField();
+        previous = new JButton("Previous");
+        next = new JButton("Next");
+        close = new JButton("Close");
+        status = new JLabel();
+        
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 2, 0));
+        buttons.add(status);
+        buttons.add(previous);
+        buttons.add(next);
+        buttons.add(close);
+        add(new JLabel(" Find: "), BorderLayout.WEST);
+        add(field, BorderLayout.CENTER);
+        add(buttons, BorderLayout.EAST);
+        
+        previous.addActionListener(e -> find(false, false));
+        next.addActionListener(e -> find(true, false));
+        close.addActionListener(e -> frame.hideFindBar());
+        setupKeys();
+        field.getDocument().addDocumentListener(new DocumentListener(){
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                find(true, true);
+                markMatches(field.getText());
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                find(true, true);
+                markMatches(field.getText());
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
+    }
+    
+    private void setupKeys(){
+        field.getInputMap(JComponent.WHEN_FOCUSED).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "find-next");
+        field.getInputMap(JComponent.WHEN_FOCUSED).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, InputEvent.SHIFT_DOWN_MASK), "find-previous");
+        getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close-find");
+        field.getActionMap().put("find-next", new AbstractAction(){
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                find(true, false);
+            }
+        });
+        field.getActionMap().put("find-previous", new AbstractAction(){
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                find(false, false);
+            }
+        });
+        getActionMap().put("close-find", new AbstractAction(){
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                frame.hideFindBar();
+            }
+        });
+    }
+    
+    /**
+     * Finds the next or previous match on a background thread and scrolls to it. A find that is 
+     * still running is stopped, only the last one moves the view.
+     * @param forward true to look after the current match, false to look before it.
+     * @param inclusive true if the current match can be found again, used while typing.
+     */
+    public void find(boolean forward, boolean inclusive){
+        if (finder!=null){
+            finder.cancel(true);
+            finder = null;
+        }
+        String query = field.getText();
+        OutputView view = frame.getOutputView();
+        if (query.isEmpty()){
+            current = -1;
+            status.setText("");
+            view.setHighlight(null, -1);
+            return;
+        }
+        Scrollback scrollback = frame.getScrollback();
+        SearchIndex index = frame.getSearchIndex();
+        long first = scrollback.getFirstLine();
+        long last = scrollback.getEndLine()-1;
+        long from;
+        if (current<first || current>last){
+            from = forward ? first : last;
+        } else if (inclusive){
+            from = current;
+        } else {
+            from = forward ? current+1 : current-1;
+        }
+        finder = new SwingWorker<Long, Void>(){
+            @Override
+            protected Long doInBackground(){
+                long line = forward ? index.findNext(query, from) : index.findPrevious(query, from);
+                if (line<0 && !isCancelled()){
+                    // wrap around
+                    line = forward ? index.findNext(query, first) : index.findPrevious(query, last);
+                }
+                return line;
+            }
+            
+            @Override
+            protected void done(){
+                if (isCancelled() || finder!=this){
+                    return;
+                }
+                finder = null;
+                try {
+                    show(query, get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        };
+        finder.execute();
+    }
+    
+    // moves the view to a match that was found, or says there are none
+    private void show(String query, long line){
+        OutputView view = frame.getOutputView();
+        long start = frame.getScrollback().getFirstLine();
+        if (line<start){
+            current = -1;
+            status.setText("No matches ");
+            view.setHighlight(query, -1);
+            return;
+        }
+        current = line;
+        status.setText("Line " + (line+1) + " ");
+        int row = (int) (line-start);
+        view.scrollToRow(row);
+        view.setHighlight(query, row);
+    }
+    
+    /**
+     * Finds every line with the query on a background thread and hands them to the frame to be 
+     * drawn on the scroll bar. A search that is still running is stopped. Lines printed after the 
+     * search are not marked until the query changes.
+     * @param query the text being searched for.
+     */
+    private void markMatches(String query){
+        if (marker!=null){
+            marker.cancel(true);
+            marker = null;
+        }
+        if (query.isEmpty()){
+            frame.setSearchMarks(null);
+            return;
+        }
+        Scrollback scrollback = frame.getScrollback();
+        SearchIndex index = frame.getSearchIndex();
+        marker = new SwingWorker<LineMarks, Void>(){
+            @Override
+            protected LineMarks doInBackground(){
+                LineMarks marks = new LineMarks();
+                long line = index.findNext(query, scrollback.getFirstLine());
+                while (line>=0 && !isCancelled()){
+                    marks.mark(line);
+                    line = index.findNext(query, line+1);
+                }
+                return marks;
+            }
+            
+            @Override
+            protected void done(){
+                if (isCancelled()){
+                    return;
+                }
+                try {
+                    frame.setSearchMarks(get());
+                } catch (InterruptedException | ExecutionException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        };
+        marker.execute();
+    }
+    
+    /**
+     * Selects the text in the field and gives it the focus.
+     */
+    public void focusField(){
+        field.selectAll();
+        field.requestFocusInWindow();
+    }
+    
+    /**
+     * @return the field the query is typed in.
+     */
+    public JTextField getField(){
+        return field;
+    }
+    
+    /**
+     * @return the line of the current match, -1 if there isn't one.
+     */
+    public long getCurrentMatch(){
+        return current;
+    }
+    
+}
@@ -0,0 +1,121 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.Timer;
+
+/**
+ * Draws the queued output of one or more <code>{@link lal.console.ui.Frame}s</code> once per 
+ * frame (see <code>{@link lal.console.ui.Frame#FRAME_RATE}</code>). A frame with output waiting 
+ * asks to be flushed, and on the next tick every frame that asked is flushed in the same event on 
+ * the event dispatch thread. Consoles made by a <code>{@link lal.console.ConsoleManager}</code> 
+ * share one scheduler, so hundreds of consoles printing at once still only take one event per 
+ * frame. Every other console has its own.
+ * <p>
+ * <code>{@link #request(Frame)}</code> can be called from any thread.
+ * @author L. Arthur Lewis II
+ */
+public final class FlushScheduler {
+    
+    private final Set<Frame> waiting = ConcurrentHashMap.newKeySet();
+    // true from the first request after a tick until the next tick
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private Timer timer;
+    
+    private final AtomicLong ticks = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    
+    /**
+     * Flushes the frame on the next tick. Asking again before then does nothing.
+     * @param frame the frame with output waiting.
+     */
+    public void request(Frame frame){
+        if (waiting.add(frame) && scheduled.compareAndSet(false, true)){
+            getTimer().start();
+        }
+    }
+    
+    /**
+     * Stops a frame from being flushed, used when it is thrown away.
+     * @param frame the frame.
+     */
+    public void cancel(Frame frame){
+        waiting.remove(frame);
+    }
+    
+    // the timer is only made the first time it is needed, so making a console doesn't load Swing
+    private synchronized Timer getTimer(){
+        if (timer==null){
+            timer = new Timer(1000/Frame.FRAME_RATE, e -> flush());
+            timer.setRepeats(false);
+        }
+        return timer;
+    }
+    
+    private void flush(){
+        // anything asked for after this starts the timer again for the next tick
+        scheduled.set(false);
+        ticks.incrementAndGet();
+        List<Frame> frames = new ArrayList<>(waiting.size());
+        Iterator<Frame> iterator = waiting.iterator();
+        while (iterator.hasNext()){
+            frames.add(iterator.next());
+            iterator.remove();
+        }
+        // frames that ask again while they are flushed are flushed on the next tick
+        for (Frame frame : frames){
+            frame.flushOutput();
+        }
+        flushes.addAndGet(frames.size());
+    }
+    
+    /**
+     * @return how many times the scheduler has run on the event dispatch thread.
+     */
+    public long getTicks(){
+        return ticks.get();
+    }
+    
+    /**
+     * @return how many times a frame has been flushed, the same frame is counted once per tick.
+     */
+    public long getFlushes(){
+        return flushes.get();
+    }
+    
+    /**
+     * @return how many frames are waiting for the next tick.
+     */
+    public int getWaiting(){
+        return waiting.size();
+    }
+    
+}
@@ -23,8 +23,23 @@
  */
 package io.github.lal872k.console.ui;
 
+import io.github.lal872k.console.Channel;
 import io.github.lal872k.console.Console;
+import io.github.lal872k.console.Display;
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.Region;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.output.FilterSet;
+import io.github.lal872k.console.output.FilteredLines;
+import io.github.lal872k.console.output.LineFilter;
+import io.github.lal872k.console.output.LineMarks;
+import io.github.lal872k.console.output.OutputQueue;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.ScrollbackPolicy;
+import io.github.lal872k.console.output.SearchIndex;
 import io.github.lal872k.console.ui.preferences.DrawPreference;
+import io.github.lal872k.console.ui.preferences.OutputComponent;
 import io.github.lal872k.console.ui.preferences.exceptions.InvalidDrawPreferences;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -33,38 +48,99 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import javax.swing.*;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.Style;
-import javax.swing.text.StyleConstants;
-import javax.swing.text.StyleContext;
-import javax.swing.text.StyledDocument;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 /**
  * This is the main GUI class that uses many <code>Swing</code> components to make the console. 
  * All of the components can be accessed through the getters. This class contains its own 
  * <code>ACManager</code> for its <code>AutoCompleteGUI</code>.
+ * <p>
+ * This is the <code>{@link lal.console.Display}</code> of every console that isn't headless.
  * @author L. Arthur Lewis II
  */
-public class Frame implements ActionListener, KeyListener{
+public class Frame implements Display, ActionListener, KeyListener{
     
     private final Console console;
     
     private JFrame frame;
+    // the window and its components are only made when they are first needed
+    private volatile boolean created;
+    private DrawPreference style;
+    private String title;
+    private int closeOperation = JFrame.HIDE_ON_CLOSE;
     
-    private JTextPane output;
+    private OutputView view;
     private JScrollPane outScroll;
     private AutoCompleteGUI autoComplete;
     private JLayeredPane outputArea;
     
     private JTextField input;
     
+    private FindBar findBar;
+    private JPanel findPanel;
+    private volatile SearchIndex searchIndex;
+    
     private JButton send;
     
     private ACManager acmanager;
     
+    private OutputQueue pending;
+    private final FlushScheduler scheduler;
+    
+    // regions with text waiting to be drawn, each is only drawn once per frame
+    private Set<Region> changedRegions;
+    
+    // true when the last text added ended with a '\r' that hasn't been handled yet
+    private boolean pendingReturn;
+    
+    private Scrollback scrollback;
+    
+    // the lines with errors and the lines the find bar found, drawn on the scroll bar
+    private final LineMarks errorMarks = new LineMarks();
+    private volatile LineMarks searchMarks;
+    // the line after the last one looked at for errors
+    private long markedEnd;
+    
+    // the filtered views of the output, the one being shown and the component it is shown in
+    private FilterSet filters;
+    private volatile FilteredLines shownFilter;
+    private ViewportView filterView;
+    private JComboBox<String> filterBox;
+    private JPanel filterPanel;
+    // true while the filter box is being filled, so it doesn't switch the filter
+    private boolean fillingFilterBox;
+    
+    // the channels with a tab, the one being shown and the component it is shown in
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
+    private volatile Channel shownChannel;
+    private ViewportView channelView;
+    // the first line of the shown channel the last time its view was updated
+    private long channelFirst;
+    private volatile boolean channelDirty;
+    private JTabbedPane channelTabs;
+    private JPanel channelPanel;
+    // true while the tabs are being made, so they don't switch the channel
+    private boolean fillingChannelTabs;
+    
+    private volatile ScrollbackPolicy scrollbackPolicy = ScrollbackPolicy.UNBOUNDED;
+    
+    // held while the scrollback and the view are changed so they always match
+    private final Object outputLock = new Object();
+    
     public static final String WINDOW_TITLE = "Console";
     
+    /**
+     * How many times a second queued output is added to the <code>JTextPane</code>.
+     */
+    public static final int FRAME_RATE = 60;
+    
     // TODO : may move this to DrawPref
     public static final int SEND_KEY = KeyEvent.VK_ENTER;
     
@@ -73,29 +149,81 @@ public class Frame implements ActionListener, KeyListener{
     private final Dimension initialSize = new Dimension(1000, 540);
     
     public Frame(Console console, DrawPreference dp){
+        this(console, dp, new FlushScheduler());
+    }
+    
+    /**
+     * @param console the console the frame belongs to.
+     * @param dp how the frame is styled.
+     * @param scheduler flushes the queued output once per frame, it can be shared with other 
+     * frames.
+     */
+    public Frame(Console console, DrawPreference dp, FlushScheduler scheduler){
         this.console = console;
+        this.scheduler = scheduler;
         init(dp);
     }
     
     private void init(DrawPreference dp){
         acmanager = new ACManager();
-        setupFrame();
-        setupComponents();
+        setupOutputQueue();
         try {
             styleComponents(dp);
         } catch (InvalidDrawPreferences ex) {
             ex.printStackTrace();
         }
-        finalizeFrame();
+    }
+    
+    /**
+     * makes the window and its components the first time they are needed, normally when the 
+     * console is first shown, so making a console and printing to it never waits on 
+     * <code>Swing</code>. Everything printed before then is already in the scrollback and is 
+     * loaded into the output in one batch.
+     */
+    private void ensureCreated(){
+        if (created){
+            return;
+        }
+        synchronized (outputLock){
+            // the components ask the frame for each other while they are made
+            if (frame!=null){
+                return;
+            }
+            setupFrame();
+            setupComponents();
+            if (style==null || style.getOutputComponent()==view.getType()){
+                view.load(scrollback);
+            }
+            created = true;
+            if (style!=null){
+                applyStyle(style);
+            }
+            if (title!=null){
+                frame.setTitle(title);
+            }
+            frame.setDefaultCloseOperation(closeOperation);
+            finalizeFrame();
+        }
+        moveToBottomOfOutput();
     }
     
     private void setupFrame(){
         frame = new JFrame();
-        frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        frame.setDefaultCloseOperation(closeOperation);
         frame.setSize(initialSize);
         frame.setTitle(WINDOW_TITLE);
     }
     
+    /**
+     * sets up the queue used by {@link #queueOutput(String, TextStyle)}.
+     */
+    private void setupOutputQueue(){
+        pending = new OutputQueue();
+        changedRegions = ConcurrentHashMap.newKeySet();
+        scrollback = new Scrollback();
+        filters = new FilterSet(scrollback);
+    }
+    
     /**
      * sets up and adds all the components used on the console including the "send" button, input field, and
      * output area.
@@ -109,8 +237,8 @@ public class Frame implements ActionListener, KeyListener{
         input = new JTextField();
         input.addKeyListener(this);
         
-        output = new JTextPane();
-        outScroll = new JScrollPane(output, JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        view = new TextPaneView();
+        outScroll = new JScrollPane(view.getComponent(), JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED, JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
         
         autoComplete = new AutoCompleteGUI(this, acmanager);
         
@@ -141,15 +269,384 @@ public class Frame implements ActionListener, KeyListener{
         send = new JButton();
         send.addActionListener(this);
         
-        main.add(addComponent(outputArea, 0, 0, 2, 1, 1.0, 1.0, bag), bag);
+        findBar = new FindBar(this);
+        filterBox = new JComboBox<String>();
+        filterBox.addActionListener(new ActionListener(){
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (!fillingFilterBox){
+                    int index = filterBox.getSelectedIndex();
+                    showFilter(index<=0 ? null : filterBox.getItemAt(index));
+                }
+            }
+        });
+        filterPanel = addComponent(filterBox, 2, 3, 1, 1, 0, 0, bag);
+        
+        findPanel = addComponent(findBar, 0, 0, 3, 1, 1.0, 0, bag);
+        findPanel.setVisible(false);
+        main.add(findPanel, bag);
         
-        main.add(addComponent(input, 0, 1, 1, 1, 1.0, 0, bag), bag);
+        channelTabs = new JTabbedPane();
+        channelTabs.addChangeListener(new ChangeListener(){
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if (!fillingChannelTabs){
+                    int index = channelTabs.getSelectedIndex()-1;
+                    showChannel(index<0 || index>=channels.size() ? null : channels.get(index));
+                }
+            }
+        });
+        channelPanel = addComponent(channelTabs, 0, 1, 3, 1, 1.0, 0, bag);
+        main.add(channelPanel, bag);
+        fillChannelTabs();
+        
+        main.add(addComponent(outputArea, 0, 2, 3, 1, 1.0, 1.0, bag), bag);
+        
+        main.add(addComponent(input, 0, 3, 1, 1, 1.0, 0, bag), bag);
+        
+        main.add(addComponent(send, 1, 3, 1, 1, 0, 0, bag), bag);
+        
+        main.add(filterPanel, bag);
+        fillFilterBox();
         
-        main.add(addComponent(send, 1, 1, 1, 1, 0, 0, bag), bag);
+        // menu shortcut and F opens the find bar from anywhere in the window
+        int shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
+        frame.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+                .put(KeyStroke.getKeyStroke(KeyEvent.VK_F, shortcut), "show-find");
+        frame.getRootPane().getActionMap().put("show-find", new AbstractAction(){
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showFindBar();
+            }
+        });
+    }
+    
+    /**
+     * shows the find bar above the output and gives it the focus. The first time this is called 
+     * the search index is made and starts indexing the output on its own thread.
+     */
+    public void showFindBar(){
+        ensureCreated();
+        // the find bar works on every line
+        showFilter(null);
+        getSearchIndex();
+        findPanel.setVisible(true);
+        frame.getContentPane().revalidate();
+        findBar.focusField();
+    }
+    
+    /**
+     * hides the find bar and removes the highlights it added to the output.
+     */
+    public void hideFindBar(){
+        if (!created){
+            return;
+        }
+        findPanel.setVisible(false);
+        frame.getContentPane().revalidate();
+        view.setHighlight(null, -1);
+        setSearchMarks(null);
+        input.requestFocus();
+    }
+    
+    /**
+     * Adds a filtered view of the output that can be picked from the box next to the send button. 
+     * The lines already in the output are filtered in parallel before this returns, after that 
+     * each line is filtered once as it is finished. A filter with the same name is replaced.
+     * @param name the name shown in the box.
+     * @param filter decides which lines are shown.
+     * @return the lines the filter shows.
+     */
+    public FilteredLines addFilter(String name, LineFilter filter){
+        FilteredLines lines = filters.add(name, filter);
+        synchronized (outputLock){
+            // catch up with the lines added and removed while it was being built
+            filters.update();
+            filters.trim(scrollback.getFirstLine());
+        }
+        FilteredLines shown = shownFilter;
+        if (shown!=null && shown.getName().equals(name)){
+            showFilter(name);
+        }
+        if (created){
+            SwingUtilities.invokeLater(this::fillFilterBox);
+        }
+        return lines;
+    }
+    
+    /**
+     * Removes a filtered view, going back to all of the output if it was being shown.
+     * @param name the name of the filter.
+     */
+    public void removeFilter(String name){
+        FilteredLines removed = filters.remove(name);
+        if (removed!=null && removed==shownFilter){
+            showFilter(null);
+        }
+        if (created){
+            SwingUtilities.invokeLater(this::fillFilterBox);
+        }
+    }
+    
+    /**
+     * Shows only the lines of a filter in place of the output, or all of the output again. The 
+     * filtered lines are drawn by a <code>{@link lal.console.ui.ViewportView}</code> reading 
+     * from the scrollback whatever <code>OutputComponent</code> is used, so the text is never 
+     * copied and the output keeps being added to while it is hidden.
+     * @param name the name of the filter, <code>null</code> to show all of the output.
+     * @throws IllegalArgumentException if there isn't a filter with the name.
+     */
+    public void showFilter(String name){
+        FilteredLines lines = name==null ? null : filters.get(name);
+        if (name!=null && lines==null){
+            throw new IllegalArgumentException("There is no filter named " + name);
+        }
+        if (lines==shownFilter && shownChannel==null 
+                && (lines==null || filterView.getFilter()==lines)){
+            return;
+        }
+        ensureCreated();
+        if (lines!=null && findPanel.isVisible()){
+            hideFindBar();
+        }
+        boolean leftChannel = shownChannel!=null;
+        synchronized (outputLock){
+            // filters are views of the output, not of a channel
+            shownChannel = null;
+            shownFilter = lines;
+            if (lines==null){
+                showOutputView();
+            } else {
+                if (filterView==null){
+                    filterView = new ViewportView(view.getType()==OutputComponent.GLYPH_ATLAS);
+                    styleFilterView();
+                }
+                filterView.load(scrollback);
+                filterView.setFilter(lines);
+                outScroll.setViewportView(filterView);
+                outScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+            }
+        }
+        outScroll.getVerticalScrollBar().repaint();
+        SwingUtilities.invokeLater(this::fillFilterBox);
+        if (leftChannel){
+            SwingUtilities.invokeLater(this::fillChannelTabs);
+        }
+        moveToBottomOfOutput();
+    }
+    
+    // puts the main view back in the scroll pane, must hold the output lock
+    private void showOutputView(){
+        outScroll.setViewportView(view.getComponent());
+        outScroll.setHorizontalScrollBarPolicy(view instanceof ViewportView 
+                ? JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED 
+                : JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+    }
+    
+    /**
+     * @return the name of the filter being shown, <code>null</code> if all of the output is shown.
+     */
+    public String getShownFilter(){
+        FilteredLines shown = shownFilter;
+        return shown==null ? null : shown.getName();
+    }
+    
+    /**
+     * @return the filtered views of the output.
+     */
+    public FilterSet getFilters(){
+        return filters;
+    }
+    
+    // the filter view looks like the main view
+    private void styleFilterView(){
+        JComponent main = view.getComponent();
+        filterView.style(main.getFont(), main.getForeground(), main.getBackground(), 
+                main.getForeground(), main.getBackground());
+    }
+    
+    // puts "All output" and the name of every filter in the box, only shown if there are filters
+    private void fillFilterBox(){
+        fillingFilterBox = true;
+        filterBox.removeAllItems();
+        filterBox.addItem("All output");
+        for (String name : filters.getNames()){
+            filterBox.addItem(name);
+        }
+        String shown = getShownFilter();
+        if (shown!=null){
+            filterBox.setSelectedItem(shown);
+        } else {
+            filterBox.setSelectedIndex(0);
+        }
+        fillingFilterBox = false;
+        if (filterPanel.isVisible()==filters.isEmpty()){
+            filterPanel.setVisible(!filters.isEmpty());
+            frame.getContentPane().revalidate();
+        }
+    }
+    
+    /**
+     * Adds a tab for a channel above the output. The tabs are only shown once there is a channel.
+     * @param channel the new channel.
+     */
+    public void addChannel(Channel channel){
+        channels.add(channel);
+        if (created){
+            SwingUtilities.invokeLater(this::fillChannelTabs);
+        }
+    }
+    
+    /**
+     * Removes the tab of a channel, going back to the output if it was being shown.
+     * @param channel the channel.
+     */
+    public void removeChannel(Channel channel){
+        channels.remove(channel);
+        if (channel==shownChannel){
+            showChannel(null);
+        }
+        if (created){
+            SwingUtilities.invokeLater(this::fillChannelTabs);
+        }
+    }
+    
+    /**
+     * Asks for the view of a channel to be brought up to date the next time a frame is drawn, if 
+     * it is the channel being shown. Hidden channels are left alone, they are loaded from their 
+     * scrollback when their tab is picked. This can be called from any thread.
+     * @param channel the channel that changed.
+     */
+    public void channelChanged(Channel channel){
+        if (channel==shownChannel && created){
+            channelDirty = true;
+            scheduler.request(this);
+        }
+    }
+    
+    /**
+     * Shows the lines of a channel in place of the output, or the output again. The channel is 
+     * drawn by a <code>{@link lal.console.ui.ViewportView}</code> reading from its scrollback, so 
+     * only the channel being shown is ever laid out or painted.
+     * @param channel the channel, <code>null</code> to show the output.
+     */
+    public void showChannel(Channel channel){
+        if (channel==shownChannel){
+            return;
+        }
+        ensureCreated();
+        if (channel!=null && findPanel.isVisible()){
+            hideFindBar();
+        }
+        boolean leftFilter = shownFilter!=null;
+        synchronized (outputLock){
+            shownFilter = null;
+            shownChannel = channel;
+            if (channel==null){
+                showOutputView();
+            } else {
+                if (channelView==null){
+                    channelView = new ViewportView(view.getType()==OutputComponent.GLYPH_ATLAS);
+                    styleChannelView();
+                }
+                channelFirst = channel.getScrollback().getFirstLine();
+                channelView.load(channel.getScrollback());
+                outScroll.setViewportView(channelView);
+                outScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+            }
+        }
+        outScroll.getVerticalScrollBar().repaint();
+        if (leftFilter){
+            SwingUtilities.invokeLater(this::fillFilterBox);
+        }
+        SwingUtilities.invokeLater(this::fillChannelTabs);
+        moveToBottomOfOutput();
+    }
+    
+    /**
+     * @return the channel being shown, <code>null</code> if the output is shown.
+     */
+    public Channel getShownChannel(){
+        return shownChannel;
+    }
+    
+    /**
+     * lets the view of the shown channel know about the lines added and removed since the last 
+     * frame. Called on the event dispatch thread.
+     * @return how far the lines that were removed moved the view up.
+     */
+    private int updateChannelView(){
+        Channel shown = shownChannel;
+        if (!channelDirty || shown==null){
+            return 0;
+        }
+        channelDirty = false;
+        long first = shown.getScrollback().getFirstLine();
+        int shift = 0;
+        if (first!=channelFirst){
+            shift = channelView.removeFirst((int) Math.min(Integer.MAX_VALUE, first-channelFirst));
+            channelFirst = first;
+        }
+        channelView.append("", null);
+        return shift;
+    }
+    
+    // the channel view looks like the main view
+    private void styleChannelView(){
+        JComponent main = view.getComponent();
+        channelView.style(main.getFont(), main.getForeground(), main.getBackground(), 
+                main.getForeground(), main.getBackground());
+    }
+    
+    // puts a tab for the output and one for every channel, only shown if there are channels
+    private void fillChannelTabs(){
+        fillingChannelTabs = true;
+        channelTabs.removeAll();
+        channelTabs.addTab("Output", emptyTab());
+        int selected = 0;
+        Channel shown = shownChannel;
+        for (Channel channel : channels){
+            channelTabs.addTab(channel.getName(), emptyTab());
+            if (channel==shown){
+                selected = channelTabs.getTabCount()-1;
+            }
+        }
+        channelTabs.setSelectedIndex(selected);
+        fillingChannelTabs = false;
+        if (channelPanel.isVisible()==channels.isEmpty()){
+            channelPanel.setVisible(!channels.isEmpty());
+            frame.getContentPane().revalidate();
+        }
+    }
+    
+    // the output stays in the scroll pane below the tabs, so the tabs hold nothing
+    private static JComponent emptyTab(){
+        JPanel empty = new JPanel();
+        empty.setPreferredSize(new Dimension(0, 0));
+        return empty;
+    }
+    
+    /**
+     * The index is only made the first time it is needed, after that it is kept up to date as 
+     * output is added.
+     * @return the index used to search the output.
+     */
+    public SearchIndex getSearchIndex(){
+        SearchIndex index = searchIndex;
+        if (index==null){
+            synchronized (outputLock){
+                if (searchIndex==null){
+                    searchIndex = new SearchIndex(scrollback);
+                }
+                index = searchIndex;
+            }
+        }
+        return index;
     }
     
     /**
-     * styles the console using the <code>DrawPreference</code> used.
+     * styles the console using the <code>DrawPreference</code> used. If the window hasn't been 
+     * made yet it is styled when it is made.
      * @param pref <code>DrawPreference</code> to use to style the frame.
      * @throws InvalidDrawPreferences 
      */
@@ -157,7 +654,51 @@ public class Frame implements ActionListener, KeyListener{
         if (!pref.isValid()){
             throw new InvalidDrawPreferences("Invalid Draw Preference: " + pref.toString());
         }
+        style = pref;
+        if (created){
+            applyStyle(pref);
+        }
+    }
+    
+    private void applyStyle(DrawPreference pref){
+        if (pref.getOutputComponent()!=view.getType()){
+            setOutputComponent(pref.getOutputComponent());
+        }
         pref.styleConsole(this);
+        if (filterView!=null){
+            styleFilterView();
+        }
+        if (channelView!=null){
+            styleChannelView();
+        }
+    }
+    
+    /**
+     * replaces the component the output is shown in and fills it with the lines in the 
+     * scrollback.
+     * @param type the new kind of component.
+     */
+    private void setOutputComponent(OutputComponent type){
+        synchronized (outputLock){
+            switch (type){
+                case VIEWPORT:
+                case GLYPH_ATLAS:
+                    view = new ViewportView(type==OutputComponent.GLYPH_ATLAS);
+                    outScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+                    break;
+                default:
+                    view = new TextPaneView();
+                    outScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+                    break;
+            }
+            view.load(scrollback);
+            if (shownFilter==null && shownChannel==null){
+                outScroll.setViewportView(view.getComponent());
+            } else {
+                outScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+            }
+        }
+        moveToBottomOfOutput();
     }
     
     /**
@@ -186,6 +727,9 @@ public class Frame implements ActionListener, KeyListener{
      * hides the <code>JFrame</code> from view.
      */
     public void hide() {
+        if (!created){
+            return;
+        }
         frame.setVisible(false);
     }
     
@@ -193,14 +737,24 @@ public class Frame implements ActionListener, KeyListener{
      * dispose of the <code>JFrame</code> making this console useless.
      */
     public void trash() {
-        frame.dispose();
+        scheduler.cancel(this);
+        if (created){
+            frame.dispose();
+        }
+        pending.clear();
+        changedRegions.clear();
+        if (searchIndex!=null){
+            searchIndex.close();
+        }
+        scrollback.close();
     }
     
     /**
      * if this console is currently not visible it will make it visible and request the focus.
-     * Then the input will request the focus.
+     * Then the input will request the focus. The first time this is called the window is made.
      */
     public void show() {
+        ensureCreated();
         if (!frame.isVisible()){
             frame.setVisible(true);
         } else {
@@ -209,6 +763,26 @@ public class Frame implements ActionListener, KeyListener{
         input.requestFocus();
     }
     
+    /**
+     * @return true if the <code>JFrame</code> is visible.
+     */
+    public boolean isShowing(){
+        return created && frame.isVisible();
+    }
+    
+    /**
+     * takes the text in the input field and empties the field.
+     * @return the text in the input field, <code>null</code> if the window hasn't been made.
+     */
+    public String takeInput(){
+        if (!created){
+            return null;
+        }
+        String text = input.getText();
+        input.setText("");
+        return text;
+    }
+    
     /**
      * adds text to the end of the output while ensuring that the placement of the caret is not
      * changed.
@@ -217,27 +791,491 @@ public class Frame implements ActionListener, KeyListener{
      * @param b background color of text.
      */
     public void appendToOutput(String msg, Color f, Color b){
-        // make doc from output
-        StyledDocument document = output.getStyledDocument();
-        StyleContext context = new StyleContext();
-        // build a style
-        Style style = context.addStyle("test", null);
-        // set some style properties
-        StyleConstants.setForeground(style, f);
-        StyleConstants.setBackground(style, b);
-        
-        // get the position of the caret before it is changed
-        int caretPos = output.getCaretPosition();
+        appendToOutput(msg, StyleTable.getShared().intern(f, b, MessageType.NORMAL));
+    }
+    
+    /**
+     * adds text to the end of the output while ensuring that the placement of the caret is not
+     * changed. If the view of the output is at the bottom it stays at the bottom.
+     * @param msg message to add to end.
+     * @param style the style to draw the text with.
+     */
+    public void appendToOutput(String msg, TextStyle style){
+        boolean moveToBot = atBottomOfOutput();
+        synchronized (outputLock){
+            insertOutput(msg, style);
+            markLines();
+            trimOutput();
+        }
+        if (moveToBot){
+            moveToBottomOfOutput();
+        }
+    }
+    
+    /**
+     * adds text and a <code>'\n'</code> to the end of the output, the same as 
+     * <code>appendToOutput(msg + "\n", style)</code> without joining them.
+     * @param msg text of the line.
+     * @param style the style to draw the text with.
+     */
+    @Override
+    public void appendLine(String msg, TextStyle style){
+        boolean moveToBot = atBottomOfOutput();
+        synchronized (outputLock){
+            if (pendingReturn || msg.indexOf('\r')>=0){
+                insertOutput(msg, style);
+                insertOutput("\n", style);
+            } else {
+                scrollback.appendLine(msg, style);
+                if (view!=null){
+                    view.appendLine(msg, style);
+                }
+                SearchIndex index = searchIndex;
+                if (index!=null){
+                    index.update();
+                }
+            }
+            markLines();
+            trimOutput();
+        }
+        if (moveToBot){
+            moveToBottomOfOutput();
+        }
+    }
+    
+    /**
+     * adds text to the end of the scrollback and the view. A <code>'\r'</code> that isn't part of 
+     * a <code>"\r\n"</code> removes the text of the open line so the text after it replaces the 
+     * line. Must hold the output lock.
+     */
+    private void insertOutput(String msg, TextStyle style){
+        if (!pendingReturn && msg.indexOf('\r')<0){
+            insertText(msg, style);
+            return;
+        }
+        if (msg.isEmpty()){
+            return;
+        }
+        if (pendingReturn){
+            pendingReturn = false;
+            if (msg.charAt(0)!='\n'){
+                clearOpenLine();
+            }
+        }
+        int start = 0;
+        int ret;
+        while ((ret = msg.indexOf('\r', start))>=0){
+            insertText(msg.substring(start, ret), style);
+            start = ret+1;
+            if (start==msg.length()){
+                // wait for the next text to see if this is a "\r\n"
+                pendingReturn = true;
+                return;
+            }
+            if (msg.charAt(start)!='\n'){
+                clearOpenLine();
+            }
+        }
+        insertText(msg.substring(start), style);
+    }
+    
+    private void insertText(String msg, TextStyle style){
+        if (msg.isEmpty()){
+            return;
+        }
+        scrollback.append(msg, style);
+        if (view!=null){
+            view.append(msg, style);
+        }
+        SearchIndex index = searchIndex;
+        if (index!=null){
+            index.update();
+        }
+    }
+    
+    private void clearOpenLine(){
+        scrollback.clearOpenLine();
+        if (view!=null){
+            view.clearOpenLine();
+        }
+    }
+    
+    /**
+     * adds a line to the end of the output that can have its text replaced later. If the last 
+     * line has text without a <code>'\n'</code> the region starts on the line after it. Anything 
+     * waiting in the output queue is added first so the region comes after it.
+     * @param text the first text of the region, must not have a <code>'\n'</code>.
+     * @param style the style to draw the text with.
+     * @return the number of the line in the <code>{@link lal.console.output.Scrollback}</code>.
+     */
+    public long openRegion(String text, TextStyle style){
+        boolean moveToBot = atBottomOfOutput();
+        long line;
+        synchronized (outputLock){
+            drainPending();
+            if (scrollback.hasOpenLine()){
+                insertOutput("\n", style);
+            }
+            line = scrollback.getEndLine();
+            insertOutput(text+"\n", style);
+            markLines();
+            trimOutput();
+        }
+        if (moveToBot){
+            moveToBottomOfOutput();
+        }
+        return line;
+    }
+    
+    /**
+     * adds anything waiting in the output queue to the output and finds the last line.
+     * @return the number of the last finished line in the scrollback, or -1 if the last line 
+     * hasn't been finished with a <code>'\n'</code> or there are no lines.
+     */
+    public long getLastLine(){
+        boolean moveToBot = atBottomOfOutput();
+        long last;
+        synchronized (outputLock){
+            drainPending();
+            long end = scrollback.getEndLine();
+            last = scrollback.hasOpenLine() || end==scrollback.getFirstLine() ? -1 : end-1;
+        }
+        if (moveToBot){
+            moveToBottomOfOutput();
+        }
+        return last;
+    }
+    
+    /**
+     * asks for the text of a region to be drawn the next time a frame is drawn. This can be 
+     * called from any thread. However many times a region changes during a frame, only its 
+     * latest text is drawn. Before the window is made the text goes straight into the scrollback.
+     * @param region the region that changed.
+     */
+    public void queueRegionUpdate(Region region){
+        if (!created){
+            synchronized (outputLock){
+                if (view==null){
+                    long line = region.getLine();
+                    if (scrollback.contains(line)){
+                        scrollback.replaceLine(line, region.getText(), region.getStyle());
+                    }
+                    return;
+                }
+            }
+        }
+        if (changedRegions.add(region)){
+            scheduler.request(this);
+        }
+    }
+    
+    /**
+     * adds text to the queue of output. This can be called from any thread. Everything in the queue 
+     * is added to the end of the output in one batch the next time a frame is drawn (see 
+     * {@link #FRAME_RATE}), and the view only moves to the bottom once per batch. Before the 
+     * window is made there is nothing to draw, so the text goes straight into the scrollback.
+     * @param msg message to add to end.
+     * @param style the style to draw the text with.
+     */
+    public void queueOutput(String msg, TextStyle style){
+        if (!created){
+            synchronized (outputLock){
+                if (view==null){
+                    insertOutput(msg, style);
+                    markLines();
+                    trimOutput();
+                    return;
+                }
+            }
+        }
+        if (pending.offer(msg, style)){
+            scheduler.request(this);
+        }
+    }
+    
+    /**
+     * adds the output queue to the end of the output, up to 
+     * <code>{@link lal.console.output.OutputQueue#FRAME_BUDGET}</code> entries with errors first, 
+     * and draws the latest text of every region that changed. Anything left in the queue is 
+     * added in the next frame. Called on the event dispatch thread by the 
+     * <code>{@link lal.console.ui.FlushScheduler}</code>.
+     */
+    void flushOutput(){
+        pending.beginFlush();
+        if (pending.isEmpty() && changedRegions.isEmpty() && !channelDirty){
+            return;
+        }
+        boolean moveToBot = atBottomOfOutput();
         
-        // add the text
-        try {
-            document.insertString(document.getLength(), msg, style);
-        } catch (BadLocationException ex) {
-            ex.printStackTrace();
+        int channelShift;
+        synchronized (outputLock){
+            drainPending(OutputQueue.FRAME_BUDGET);
+            updateRegions();
+            markLines();
+            trimOutput();
+            channelShift = updateChannelView();
+        }
+        if (!moveToBot && channelShift>0){
+            JScrollBar bar = outScroll.getVerticalScrollBar();
+            bar.setValue(Math.max(0, bar.getValue()-channelShift));
+        }
+        if (!pending.isEmpty() && pending.requestFlush()){
+            scheduler.request(this);
         }
         
-        // set the position of the caret to before text was added
-        output.setCaretPosition(caretPos);
+        if (moveToBot){
+            moveToBottomOfOutput();
+        }
+    }
+    
+    /**
+     * adds everything in the output queue to the end of the output. Must hold the output lock.
+     */
+    private void drainPending(){
+        drainPending(Integer.MAX_VALUE);
+    }
+    
+    /**
+     * adds entries from the output queue to the end of the output, the lanes with the highest 
+     * priority first. Text in a row with the same style is joined together so it only takes one 
+     * insert. Must hold the output lock.
+     * @param budget the most entries to add.
+     */
+    private void drainPending(int budget){
+        OutputQueue.Entry entry = pending.poll();
+        if (entry==null){
+            return;
+        }
+        StringBuilder run = new StringBuilder();
+        TextStyle runStyle = entry.getStyle();
+        while (entry!=null){
+            if (runStyle!=entry.getStyle()){
+                insertOutput(run.toString(), runStyle);
+                run.setLength(0);
+                runStyle = entry.getStyle();
+            }
+            run.append(entry.getText());
+            entry = --budget>0 ? pending.poll() : null;
+        }
+        insertOutput(run.toString(), runStyle);
+    }
+    
+    /**
+     * replaces the line of every region that changed with its latest text, one edit per region. 
+     * Regions whose line has been trimmed are skipped. Must hold the output lock.
+     */
+    private void updateRegions(){
+        Iterator<Region> regions = changedRegions.iterator();
+        while (regions.hasNext()){
+            Region region = regions.next();
+            regions.remove();
+            long line = region.getLine();
+            if (!scrollback.contains(line)){
+                continue;
+            }
+            String text = region.getText();
+            TextStyle style = region.getStyle();
+            scrollback.replaceLine(line, text, style);
+            view.replaceRow((int) (line-scrollback.getFirstLine()), text, style);
+            if (shownFilter!=null){
+                filterView.repaint();
+            }
+        }
+    }
+    
+    /**
+     * @return the queue used by {@link #queueOutput(String, TextStyle)}.
+     */
+    public OutputQueue getOutputQueue(){
+        return pending;
+    }
+    
+    /**
+     * marks every finished line with an error in it since the last time this was called, so they 
+     * are drawn on the scroll bar, and adds the new lines to the filters. Must hold the output 
+     * lock.
+     */
+    private void markLines(){
+        long end = scrollback.getEndLine()-(scrollback.hasOpenLine() ? 1 : 0);
+        for (long line = Math.max(markedEnd, scrollback.getFirstLine()); line < end; line++){
+            if (scrollback.getType(line)==MessageType.ERROR){
+                errorMarks.mark(line);
+            }
+        }
+        markedEnd = Math.max(markedEnd, end);
+        filters.update();
+        if (shownFilter!=null){
+            filterView.filterChanged();
+        }
+    }
+    
+    /**
+     * @return the lines of the output with errors in them.
+     */
+    public LineMarks getErrorMarks(){
+        return errorMarks;
+    }
+    
+    /**
+     * @return the lines the find bar found, <code>null</code> if nothing is being searched for.
+     */
+    public LineMarks getSearchMarks(){
+        return searchMarks;
+    }
+    
+    /**
+     * Sets the lines the find bar found and draws them on the scroll bar.
+     * @param searchMarks the lines, <code>null</code> if nothing is being searched for.
+     */
+    public void setSearchMarks(LineMarks searchMarks){
+        this.searchMarks = searchMarks;
+        if (created){
+            outScroll.getVerticalScrollBar().repaint();
+        }
+    }
+    
+    /**
+     * scrolls the output so a line can be seen.
+     * @param line the number of the line in the scrollback, nothing happens if it has been 
+     * removed.
+     */
+    public void scrollToLine(long line){
+        ensureCreated();
+        synchronized (outputLock){
+            FilteredLines shown = shownFilter;
+            if (shown!=null){
+                if (shown.contains(line)){
+                    filterView.scrollToRow(shown.getRow(line));
+                }
+            } else if (scrollback.contains(line)){
+                view.scrollToRow((int) (line-scrollback.getFirstLine()));
+            }
+        }
+    }
+    
+    /**
+     * removes the oldest lines from the output if there are more than the 
+     * <code>ScrollbackPolicy</code> allows. All of the lines are removed with one edit, and the 
+     * view stays on the same text unless it is at the bottom.
+     */
+    public void trimOutput(){
+        synchronized (outputLock){
+            int removed = scrollback.trim(scrollbackPolicy);
+            if (removed==0){
+                return;
+            }
+            errorMarks.trim(scrollback.getFirstLine());
+            LineMarks found = searchMarks;
+            if (found!=null){
+                found.trim(scrollback.getFirstLine());
+            }
+            FilteredLines shown = shownFilter;
+            int shownBefore = shown==null ? 0 : shown.size();
+            filters.trim(scrollback.getFirstLine());
+            if (view==null){
+                return;
+            }
+            boolean atBottom = atBottomOfOutput();
+            int shift = view.removeFirst(removed);
+            if (shownChannel!=null){
+                // the output is hidden behind a channel, so the view shown doesn't move
+                shift = 0;
+            } else if (shown!=null){
+                // the main view is hidden, only the rows removed from the filter move the output
+                shift = (shownBefore-shown.size())*filterView.getLineHeight();
+                filterView.filterChanged();
+            }
+            if (!atBottom && shift>0){
+                JScrollBar bar = outScroll.getVerticalScrollBar();
+                bar.setValue(Math.max(0, bar.getValue()-shift));
+            }
+        }
+    }
+    
+    /**
+     * catches up with lines that were added straight to the scrollback, like a restored session. 
+     * The oldest lines are removed if the <code>ScrollbackPolicy</code> is exceeded, then the 
+     * marks, filters and search index are brought up to date and the view is loaded again.
+     */
+    public void reloadOutput(){
+        synchronized (outputLock){
+            if (scrollback.trim(scrollbackPolicy)>0){
+                long first = scrollback.getFirstLine();
+                errorMarks.trim(first);
+                LineMarks found = searchMarks;
+                if (found!=null){
+                    found.trim(first);
+                }
+                filters.trim(first);
+            }
+            markLines();
+            SearchIndex index = searchIndex;
+            if (index!=null){
+                index.update();
+            }
+            if (view!=null){
+                view.load(scrollback);
+            }
+            FilteredLines shown = shownFilter;
+            if (shown!=null){
+                filterView.setFilter(shown);
+            }
+        }
+        moveToBottomOfOutput();
+    }
+    
+    /**
+     * removes all of the output, including anything waiting in the queue.
+     */
+    public void clearOutput(){
+        synchronized (outputLock){
+            pending.clear();
+            changedRegions.clear();
+            pendingReturn = false;
+            scrollback.clear();
+            errorMarks.clear();
+            markedEnd = scrollback.getEndLine();
+            searchMarks = null;
+            filters.clear();
+            if (view!=null){
+                view.clear();
+            }
+            if (filterView!=null){
+                filterView.clear();
+            }
+        }
+    }
+    
+    /**
+     * The <code>ScrollbackPolicy</code> decides how much output is kept before the oldest lines 
+     * are removed.
+     * @param scrollbackPolicy scrollbackPolicy value.
+     */
+    public void setScrollbackPolicy(ScrollbackPolicy scrollbackPolicy){
+        this.scrollbackPolicy = scrollbackPolicy;
+    }
+    
+    /**
+     * The <code>ScrollbackPolicy</code> decides how much output is kept before the oldest lines 
+     * are removed.
+     * @return scrollbackPolicy value.
+     */
+    public ScrollbackPolicy getScrollbackPolicy(){
+        return scrollbackPolicy;
+    }
+    
+    /**
+     * @return the amount of lines in the output.
+     */
+    public int getOutputLineCount(){
+        return scrollback.getLineCount();
+    }
+    
+    /**
+     * @return the amount of bytes the text in the output takes (two per character).
+     */
+    public long getOutputBytes(){
+        return scrollback.getBytes();
     }
     
     /**
@@ -246,40 +1284,37 @@ public class Frame implements ActionListener, KeyListener{
      * @param title new title for the window, <code>JFrame</code>.
      */
     public void setWindowTitle(String title){
-        frame.setTitle(title);
+        this.title = title;
+        if (created){
+            frame.setTitle(title);
+        }
     }
     
     /**
      * checks to see if the view of the output is at the bottom of it.
-     * @return true if the view of the output is at the bottom, false otherwise.
+     * @return true if the view of the output is at the bottom or there is no window yet, false 
+     * otherwise.
      */
     public boolean atBottomOfOutput(){
-        int[] values = getScrollBarValues();
-        return values[0]+values[1]==values[2];
+        if (!created){
+            return true;
+        }
+        JScrollBar bar = outScroll.getVerticalScrollBar();
+        return bar.getVisibleAmount()+bar.getValue()==bar.getMaximum();
     }
     
     /**
      * moves the view of the output to the bottom of the output
      */
     public void moveToBottomOfOutput(){
+        if (!created){
+            return;
+        }
         // make sure that you have the right values
         frame.validate();
         // move value to bottom (max-view)
-        int[] values = getScrollBarValues();
-        outScroll.getVerticalScrollBar().setValue(values[2]-values[0]);
-    }
-    
-    /**
-     * returns a array in of values that correspond to the scroll bar.
-     * <p>
-     * view, distance, max
-     * @return look above for return.
-     */
-    private int[] getScrollBarValues(){
-        int view = outScroll.getVerticalScrollBar().getVisibleAmount();
-        int distance = outScroll.getVerticalScrollBar().getValue();
-        int max = outScroll.getVerticalScrollBar().getMaximum();
-        return new int[]{view, distance, max};
+        JScrollBar bar = outScroll.getVerticalScrollBar();
+        bar.setValue(bar.getMaximum()-bar.getVisibleAmount());
     }
     
     @Override
@@ -305,7 +1340,10 @@ public class Frame implements ActionListener, KeyListener{
      * @param operation the closing operation for the <code>JFrame</code>.
      */
     public void setCloseOperation(int operation){
-        frame.setDefaultCloseOperation(operation);
+        closeOperation = operation;
+        if (created){
+            frame.setDefaultCloseOperation(operation);
+        }
     }
     
     /**
@@ -330,27 +1368,73 @@ public class Frame implements ActionListener, KeyListener{
      * @return The window, <code>JFrame</code>.
      */
     public JFrame getFrame(){
+        ensureCreated();
         return frame;
     }
     
     /**
-     * @return The output (where all the text goes), <code>JTextPane</code>.
+     * @return The output (where all the text goes), <code>JTextPane</code>. This is 
+     * <code>null</code> when the <code>DrawPreference</code> uses a different 
+     * <code>{@link lal.console.ui.preferences.OutputComponent}</code>.
      */
     public JTextPane getTextPane(){
-        return output;
+        ensureCreated();
+        OutputView current = view;
+        return current instanceof TextPaneView ? ((TextPaneView) current).getTextPane() : null;
+    }
+    
+    /**
+     * @return The bar used to search the output.
+     */
+    public FindBar getFindBar(){
+        ensureCreated();
+        return findBar;
+    }
+    
+    /**
+     * @return The component the output is shown in.
+     */
+    public OutputView getOutputView(){
+        ensureCreated();
+        return view;
+    }
+    
+    /**
+     * @return The lines that have been printed to the output.
+     */
+    public Scrollback getScrollback(){
+        return scrollback;
     }
     
     /**
      * @return The scroll pane that contains the output.
      */
     public JScrollPane getScroll(){
+        ensureCreated();
         return outScroll;
     }
     
+    /**
+     * @return The box used to pick a filtered view of the output.
+     */
+    public JComboBox<String> getFilterBox(){
+        ensureCreated();
+        return filterBox;
+    }
+    
+    /**
+     * @return The tabs used to pick a channel, only shown once there is a channel.
+     */
+    public JTabbedPane getChannelTabs(){
+        ensureCreated();
+        return channelTabs;
+    }
+    
     /**
      * @return The input field where the user can type.
      */
     public JTextField getInputField(){
+        ensureCreated();
         return input;
     }
     
@@ -358,6 +1442,7 @@ public class Frame implements ActionListener, KeyListener{
      * @return The send button, <code>JButton</code>.
      */
     public JButton getSendButton(){
+        ensureCreated();
         return send;
     }
     
@@ -365,6 +1450,7 @@ public class Frame implements ActionListener, KeyListener{
      * @return This is the <code>JPanel</code> where all of the auto complete options go.
      */
     public AutoCompleteGUI getAutoComplete(){
+        ensureCreated();
         return autoComplete;
     }
     
@@ -372,6 +1458,7 @@ public class Frame implements ActionListener, KeyListener{
      * @return This is where both the <code>autoComplete</code> and <code>output</code> goes.
      */
     public JLayeredPane getOutputArea(){
+        ensureCreated();
         return outputArea;
     }
     
@@ -387,6 +1474,7 @@ public class Frame implements ActionListener, KeyListener{
      * @return The <code>JFrame.getContentPane()</code>.
      */
     public Container getMainContainer(){
+        ensureCreated();
         return frame.getContentPane();
     }
     
@@ -0,0 +1,298 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A cache of glyphs drawn once into one image, used by a
+ * <code>{@link lal.console.ui.ViewportView}</code> to draw monospaced text. Every glyph is drawn
+ * with its background into a cell the size of one character, keyed by the character and its
+ * foreground and background colors. A row of text is then drawn by copying cells from the image
+ * onto a grid, so Swing doesn't have to lay out and rasterize the text on every paint.
+ * <p>
+ * The atlas only works for fonts where every character is the same width, and only when drawing
+ * without a scale (a scaled display would make the copied cells blurry). When
+ * <code>{@link #canDraw(Graphics)}</code> is false the text should be drawn normally. Once the
+ * atlas holds <code>{@link #MAX_CELLS}</code> glyphs it is emptied and starts again.
+ * <p>
+ * Views get their atlas from <code>{@link #getShared(Font, FontMetrics)}</code>, so every view 
+ * drawing with the same font, in any number of consoles, shares one image.
+ * <p>
+ * An atlas is only used on the event dispatch thread and is not thread safe.
+ * @author L. Arthur Lewis II
+ */
+public class GlyphAtlas {
+    
+    /**
+     * Most glyphs kept before the atlas is emptied.
+     */
+    public static final int MAX_CELLS = 8192;
+    
+    private static final int COLUMNS = 64;
+    
+    // the most fonts with a shared atlas, the least recently used is dropped after that
+    private static final int MAX_SHARED = 8;
+    private static final Map<Font, GlyphAtlas> SHARED = 
+            new LinkedHashMap<Font, GlyphAtlas>(MAX_SHARED*2, 0.75f, true){
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Font, GlyphAtlas> eldest){
+                    return size()>MAX_SHARED;
+                }
+            };
+    
+    private final Font font;
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int ascent;
+    private final boolean monospaced;
+    
+    private BufferedImage image;
+    private int cells;
+    
+    // glyph cells for every pair of colors, keyed by the foreground and background rgb
+    private final HashMap<Long, Palette> palettes;
+    private Palette lastPalette;
+    private long lastKey;
+    
+    /**
+     * @param font the font glyphs are drawn with.
+     * @param metrics metrics of the font.
+     */
+    public GlyphAtlas(Font font, FontMetrics metrics){
+        this.font = font;
+        cellWidth = Math.max(1, metrics.charWidth('m'));
+        cellHeight = Math.max(1, metrics.getHeight());
+        ascent = metrics.getAscent();
+        monospaced = metrics.charWidth('i')==cellWidth && metrics.charWidth('W')==cellWidth
+                && metrics.charWidth(' ')==cellWidth;
+        palettes = new HashMap<>();
+    }
+    
+    /**
+     * Every view on the event dispatch thread can draw with the same atlas, since only one of 
+     * them paints at a time.
+     * @param font the font glyphs are drawn with.
+     * @param metrics metrics of the font, only used if there isn't an atlas for it yet.
+     * @return the atlas shared by everything drawing with the font.
+     */
+    public static GlyphAtlas getShared(Font font, FontMetrics metrics){
+        synchronized (SHARED){
+            GlyphAtlas atlas = SHARED.get(font);
+            if (atlas==null){
+                atlas = new GlyphAtlas(font, metrics);
+                SHARED.put(font, atlas);
+            }
+            return atlas;
+        }
+    }
+    
+    /**
+     * @param g graphics being painted with.
+     * @return true if the font is monospaced and the graphics are not scaled.
+     */
+    public boolean canDraw(Graphics g){
+        if (!monospaced){
+            return false;
+        }
+        if (g instanceof Graphics2D){
+            AffineTransform transform = ((Graphics2D) g).getTransform();
+            return transform.getScaleX()==1 && transform.getScaleY()==1
+                    && transform.getShearX()==0 && transform.getShearY()==0;
+        }
+        return true;
+    }
+    
+    /**
+     * Draws part of a line, one cell per character.
+     * @param g graphics being painted with.
+     * @param text the line.
+     * @param start index of the first character drawn.
+     * @param end index after the last character drawn.
+     * @param x left edge of the first character.
+     * @param y top of the row.
+     * @param foreground color of the text.
+     * @param background color behind the text.
+     */
+    public void drawRun(Graphics g, String text, int start, int end, int x, int y,
+            Color foreground, Color background){
+        Palette palette = palette(foreground.getRGB(), background.getRGB());
+        for (int q = start; q < end; q++, x += cellWidth){
+            int cell = palette.get(text.charAt(q));
+            if (cell<0){
+                if (cells==MAX_CELLS){
+                    reset();
+                    palette = palette(foreground.getRGB(), background.getRGB());
+                }
+                cell = addGlyph(g, text.charAt(q), foreground, background);
+                palette.put(text.charAt(q), cell);
+            }
+            int sx = (cell%COLUMNS)*cellWidth;
+            int sy = (cell/COLUMNS)*cellHeight;
+            g.drawImage(image, x, y, x+cellWidth, y+cellHeight, sx, sy, sx+cellWidth,
+                    sy+cellHeight, null);
+        }
+    }
+    
+    private Palette palette(int foreground, int background){
+        long key = ((long) foreground << 32) | (background & 0xFFFFFFFFL);
+        if (lastPalette==null || lastKey!=key){
+            lastPalette = palettes.get(key);
+            if (lastPalette==null){
+                lastPalette = new Palette();
+                palettes.put(key, lastPalette);
+            }
+            lastKey = key;
+        }
+        return lastPalette;
+    }
+    
+    private int addGlyph(Graphics g, char c, Color foreground, Color background){
+        int cell = cells++;
+        int rows = cell/COLUMNS+1;
+        if (image==null || image.getHeight()<rows*cellHeight){
+            grow(g, rows);
+        }
+        int x = (cell%COLUMNS)*cellWidth;
+        int y = (cell/COLUMNS)*cellHeight;
+        Graphics2D glyph = image.createGraphics();
+        Map<?, ?> hints = (Map<?, ?>) Toolkit.getDefaultToolkit()
+                .getDesktopProperty("awt.font.desktophints");
+        if (hints!=null){
+            glyph.addRenderingHints(hints);
+        } else {
+            glyph.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        }
+        glyph.setClip(x, y, cellWidth, cellHeight);
+        glyph.setColor(background);
+        glyph.fillRect(x, y, cellWidth, cellHeight);
+        glyph.setFont(font);
+        glyph.setColor(foreground);
+        glyph.drawChars(new char[]{c}, 0, 1, x, y+ascent);
+        glyph.dispose();
+        return cell;
+    }
+    
+    // makes the image tall enough for the rows, doubling its height and keeping drawn glyphs
+    private void grow(Graphics g, int rows){
+        int height = image==null ? cellHeight*4 : image.getHeight();
+        while (height<rows*cellHeight){
+            height *= 2;
+        }
+        BufferedImage grown;
+        GraphicsConfiguration config = g instanceof Graphics2D
+                ? ((Graphics2D) g).getDeviceConfiguration() : null;
+        if (config!=null){
+            grown = config.createCompatibleImage(COLUMNS*cellWidth, height);
+        } else {
+            grown = new BufferedImage(COLUMNS*cellWidth, height, BufferedImage.TYPE_INT_RGB);
+        }
+        if (image!=null){
+            Graphics2D copy = grown.createGraphics();
+            copy.drawImage(image, 0, 0, null);
+            copy.dispose();
+        }
+        image = grown;
+    }
+    
+    /**
+     * Removes every glyph from the atlas.
+     */
+    public void reset(){
+        palettes.clear();
+        lastPalette = null;
+        cells = 0;
+    }
+    
+    /**
+     * @return the amount of glyphs in the atlas.
+     */
+    public int getCellCount(){
+        return cells;
+    }
+    
+    /**
+     * @return the width of every cell.
+     */
+    public int getCellWidth(){
+        return cellWidth;
+    }
+    
+    /**
+     * @return true if the font has the same width for every character.
+     */
+    public boolean isMonospaced(){
+        return monospaced;
+    }
+    
+    /**
+     * The cells drawn for one pair of colors. Latin-1 characters are found in an array, any other
+     * character in a map.
+     */
+    private static class Palette {
+        
+        private final int[] latin;
+        private HashMap<Character, Integer> other;
+        
+        Palette(){
+            latin = new int[256];
+            Arrays.fill(latin, -1);
+        }
+        
+        int get(char c){
+            if (c<latin.length){
+                return latin[c];
+            }
+            Integer cell = other==null ? null : other.get(c);
+            return cell==null ? -1 : cell;
+        }
+        
+        void put(char c, int cell){
+            if (c<latin.length){
+                latin[c] = cell;
+            } else {
+                if (other==null){
+                    other = new HashMap<>();
+                }
+                other.put(c, cell);
+            }
+        }
+    
+    }
+    
+}
@@ -0,0 +1,265 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import java.util.Arrays;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * The text of an <code>{@link lal.console.ui.OutputDocument}</code>. The characters are kept in one
+ * array with free space at both ends: text added to the end is copied after the last character
+ * and text removed from the front only moves where the first character is. Neither has to move
+ * the rest of the text, which <code>GapContent</code> does when appends and trims take turns
+ * because its gap has to travel from one end of the document to the other.
+ * <p>
+ * Inserting or removing anywhere else still works, but copies the text after that point.
+ * <p>
+ * Positions are kept in order of their offset. When text is removed from the front the positions
+ * are not changed at all, they are measured from a count of every character ever removed from the
+ * front, so the cost of a trim does not depend on how many positions there are. Like
+ * <code>GapContent</code>, a position at offset 0 stays at 0 when text is inserted at 0, and any
+ * other position moves forward when text is inserted at its offset.
+ * <p>
+ * Edits are not undoable, the output is never edited by the user.
+ * @author L. Arthur Lewis II
+ */
+public class OutputContent implements AbstractDocument.Content {
+    
+    private char[] text;
+    private int front;
+    // index after the last character, the implied '\n' that ends every document is stored here
+    private int end;
+    
+    // characters ever removed from offset 0
+    private long removed;
+    
+    private Mark[] marks;
+    private int markFront;
+    private int markEnd;
+    
+    public OutputContent(){
+        this(1024);
+    }
+    
+    /**
+     * @param capacity amount of characters there is room for before the array has to grow.
+     */
+    public OutputContent(int capacity){
+        text = new char[Math.max(capacity, 16)];
+        text[0] = '\n';
+        end = 1;
+        marks = new Mark[64];
+    }
+    
+    @Override
+    public Position createPosition(int offset) throws BadLocationException {
+        if (offset<0 || offset>length()){
+            throw new BadLocationException("Invalid position", offset);
+        }
+        long absolute = removed+offset;
+        int index = findMark(absolute);
+        if (index<markEnd && marks[index].absolute==absolute){
+            return marks[index];
+        }
+        Mark mark = new Mark(absolute);
+        insertMark(index, mark);
+        return mark;
+    }
+    
+    @Override
+    public int length(){
+        return end-front;
+    }
+    
+    @Override
+    public UndoableEdit insertString(int where, String str) throws BadLocationException {
+        int length = length();
+        if (where<0 || where>=length){
+            throw new BadLocationException("Invalid insert", where);
+        }
+        int count = str.length();
+        if (count==0){
+            return null;
+        }
+        ensureSpace(count);
+        int at = front+where;
+        System.arraycopy(text, at, text, at+count, end-at);
+        str.getChars(0, count, text, at);
+        end += count;
+        
+        // move every position at or after the insert, except positions at 0
+        long from = removed+where;
+        for (int q = markEnd-1; q >= markFront; q--){
+            Mark mark = marks[q];
+            if (mark.absolute<from || (where==0 && mark.absolute==removed)){
+                break;
+            }
+            mark.absolute += count;
+        }
+        return null;
+    }
+    
+    @Override
+    public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+        if (where<0 || nitems<0 || where+nitems>=length()){
+            throw new BadLocationException("Invalid remove", where+nitems);
+        }
+        if (nitems==0){
+            return null;
+        }
+        if (where==0){
+            // positions measure from removed, so they all move on their own
+            front += nitems;
+            removed += nitems;
+            while (markFront<markEnd && marks[markFront].absolute<removed){
+                marks[markFront++] = null;
+            }
+            return null;
+        }
+        int at = front+where;
+        System.arraycopy(text, at+nitems, text, at, end-at-nitems);
+        end -= nitems;
+        
+        long from = removed+where;
+        for (int q = markEnd-1; q >= markFront; q--){
+            Mark mark = marks[q];
+            if (mark.absolute<=from){
+                break;
+            }
+            mark.absolute = Math.max(from, mark.absolute-nitems);
+        }
+        return null;
+    }
+    
+    @Override
+    public String getString(int where, int len) throws BadLocationException {
+        checkRange(where, len);
+        return new String(text, front+where, len);
+    }
+    
+    /**
+     * the text is always in one array so the segment points straight at it and nothing is copied.
+     */
+    @Override
+    public void getChars(int where, int len, Segment txt) throws BadLocationException {
+        checkRange(where, len);
+        txt.array = text;
+        txt.offset = front+where;
+        txt.count = len;
+    }
+    
+    private void checkRange(int where, int len) throws BadLocationException {
+        if (where<0 || len<0 || where+len>length()){
+            throw new BadLocationException("Invalid range", where+len);
+        }
+    }
+    
+    // makes room for more characters after end, moving the text to the start of the array if
+    // more than half of it is free space left by removed text
+    private void ensureSpace(int count){
+        if (end+count<=text.length){
+            return;
+        }
+        int length = length();
+        if (length+count<=text.length/2){
+            System.arraycopy(text, front, text, 0, length);
+        } else {
+            char[] grown = new char[Math.max(text.length*2, length+count)];
+            System.arraycopy(text, front, grown, 0, length);
+            text = grown;
+        }
+        front = 0;
+        end = length;
+    }
+    
+    // index of the first mark at or after the absolute offset
+    private int findMark(long absolute){
+        if (markEnd==markFront || marks[markEnd-1].absolute<absolute){
+            return markEnd;
+        }
+        int low = markFront;
+        int high = markEnd-1;
+        while (low<high){
+            int mid = (low+high) >>> 1;
+            if (marks[mid].absolute<absolute){
+                low = mid+1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void insertMark(int index, Mark mark){
+        if (markEnd==marks.length){
+            int count = markEnd-markFront;
+            if (count<=marks.length/2){
+                System.arraycopy(marks, markFront, marks, 0, count);
+                Arrays.fill(marks, count, markEnd, null);
+            } else {
+                Mark[] grown = new Mark[marks.length*2];
+                System.arraycopy(marks, markFront, grown, 0, count);
+                marks = grown;
+            }
+            index -= markFront;
+            markFront = 0;
+            markEnd = count;
+        }
+        System.arraycopy(marks, index, marks, index+1, markEnd-index);
+        marks[index] = mark;
+        markEnd++;
+    }
+    
+    /**
+     * @return the amount of positions being kept up to date.
+     */
+    public int getPositionCount(){
+        return markEnd-markFront;
+    }
+    
+    private class Mark implements Position {
+        
+        private long absolute;
+        
+        private Mark(long absolute){
+            this.absolute = absolute;
+        }
+        
+        @Override
+        public int getOffset(){
+            return (int) Math.max(0, absolute-removed);
+        }
+        
+        @Override
+        public String toString(){
+            return Integer.toString(getOffset());
+        }
+    
+    }
+    
+}
@@ -0,0 +1,259 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+import javax.swing.text.StyleContext;
+import javax.swing.tree.TreeNode;
+
+/**
+ * The document of a <code>{@link lal.console.ui.TextPaneView}</code>. Output is only ever added to
+ * the end and trimmed from the front, so both the text and the element structure are made for
+ * that:
+ * <ul>
+ * <li>the text is kept in an <code>{@link lal.console.ui.OutputContent}</code>, which appends and
+ * removes from the front without moving the rest of the text.</li>
+ * <li>the paragraphs of the root element are kept in a ring, so removing the first paragraphs
+ * only clears their slots instead of shifting every paragraph after them.</li>
+ * </ul>
+ * Anything else a <code>DefaultStyledDocument</code> can do still works. Every document uses the 
+ * default <code>StyleContext</code>, the same one the attributes of 
+ * <code>{@link lal.console.ui.StyleAttributes}</code> are made in, instead of each console 
+ * making its own.
+ * @author L. Arthur Lewis II
+ */
+public class OutputDocument extends DefaultStyledDocument {
+    
+    public OutputDocument(){
+        super(new OutputContent(), StyleContext.getDefaultStyleContext());
+    }
+    
+    /**
+     * @return a root element that keeps its paragraphs in a ring.
+     */
+    @Override
+    protected AbstractElement createDefaultRoot(){
+        writeLock();
+        try {
+            BranchElement section = new RingSectionElement();
+            BranchElement paragraph = new BranchElement(section, null);
+            LeafElement brk = new LeafElement(paragraph, null, 0, 1);
+            paragraph.replace(0, 0, new Element[]{brk});
+            section.replace(0, 0, new Element[]{paragraph});
+            return section;
+        } finally {
+            writeUnlock();
+        }
+    }
+    
+    /**
+     * The root of the document. Paragraphs are kept in a ring of slots that grows by doubling.
+     * Replacing paragraphs at the front or near the end only touches the slots being changed,
+     * anything in the middle rebuilds the ring.
+     */
+    protected class RingSectionElement extends BranchElement {
+        
+        // replacing paragraphs this close to the end only moves the ones after them
+        private static final int NEAR_END = 16;
+        
+        private Element[] ring;
+        private int head;
+        private int count;
+        private int lastIndex;
+        
+        public RingSectionElement(){
+            super(null, null);
+            ring = new Element[16];
+        }
+        
+        @Override
+        public String getName(){
+            return SectionElementName;
+        }
+        
+        @Override
+        public void replace(int offset, int length, Element[] elems){
+            if (offset<0 || length<0 || offset+length>count){
+                throw new IllegalArgumentException("offset: " + offset + ", length: " + length
+                        + ", count: " + count);
+            }
+            if (offset==0 && elems.length==0){
+                // the common trim
+                for (int q = 0; q < length; q++){
+                    ring[slot(q)] = null;
+                }
+                head = slot(length);
+                count -= length;
+            } else if (count-offset-length<=NEAR_END){
+                // the common append, new paragraphs go just before the last one
+                Element[] after = new Element[count-offset-length];
+                for (int q = 0; q < after.length; q++){
+                    after[q] = ring[slot(offset+length+q)];
+                }
+                for (int q = offset; q < count; q++){
+                    ring[slot(q)] = null;
+                }
+                count = offset;
+                ensureCapacity(count+elems.length+after.length);
+                for (Element elem : elems){
+                    ring[slot(count++)] = elem;
+                }
+                for (Element elem : after){
+                    ring[slot(count++)] = elem;
+                }
+            } else {
+                int newCount = count-length+elems.length;
+                Element[] rebuilt = new Element[Math.max(16, Integer.highestOneBit(newCount)*2)];
+                for (int q = 0; q < offset; q++){
+                    rebuilt[q] = ring[slot(q)];
+                }
+                System.arraycopy(elems, 0, rebuilt, offset, elems.length);
+                for (int q = offset+length; q < count; q++){
+                    rebuilt[q-length+elems.length] = ring[slot(q)];
+                }
+                ring = rebuilt;
+                head = 0;
+                count = newCount;
+            }
+            lastIndex = Math.max(0, Math.min(offset, count-1));
+        }
+        
+        private void ensureCapacity(int size){
+            if (size<=ring.length){
+                return;
+            }
+            int length = ring.length;
+            while (length<size){
+                length *= 2;
+            }
+            Element[] grown = new Element[length];
+            for (int q = 0; q < count; q++){
+                grown[q] = ring[slot(q)];
+            }
+            ring = grown;
+            head = 0;
+        }
+        
+        private int slot(int index){
+            return (head+index) & (ring.length-1);
+        }
+        
+        @Override
+        public Element getElement(int index){
+            return index>=0 && index<count ? ring[slot(index)] : null;
+        }
+        
+        @Override
+        public int getElementCount(){
+            return count;
+        }
+        
+        /**
+         * checks the paragraph found last time and the one after it before searching, since
+         * lookups usually come in order.
+         */
+        @Override
+        public int getElementIndex(int offset){
+            if (count==0){
+                return -1;
+            }
+            if (offset<getStartOffset()){
+                return 0;
+            }
+            if (offset>=getEndOffset()){
+                return count-1;
+            }
+            for (int q = lastIndex; q < Math.min(count, lastIndex+2); q++){
+                Element elem = ring[slot(q)];
+                if (offset>=elem.getStartOffset() && offset<elem.getEndOffset()){
+                    lastIndex = q;
+                    return q;
+                }
+            }
+            int low = 0;
+            int high = count-1;
+            while (low<high){
+                int mid = (low+high+1) >>> 1;
+                if (ring[slot(mid)].getStartOffset()<=offset){
+                    low = mid;
+                } else {
+                    high = mid-1;
+                }
+            }
+            lastIndex = low;
+            return low;
+        }
+        
+        @Override
+        public Element positionToElement(int pos){
+            int index = getElementIndex(pos);
+            Element elem = getElement(index);
+            if (elem!=null && pos>=elem.getStartOffset() && pos<elem.getEndOffset()){
+                return elem;
+            }
+            return null;
+        }
+        
+        @Override
+        public int getStartOffset(){
+            return count==0 ? 0 : ring[head].getStartOffset();
+        }
+        
+        @Override
+        public int getEndOffset(){
+            return count==0 ? 0 : ring[slot(count-1)].getEndOffset();
+        }
+        
+        @Override
+        public Enumeration<TreeNode> children(){
+            return new Enumeration<TreeNode>(){
+                private int index;
+                
+                @Override
+                public boolean hasMoreElements(){
+                    return index<count;
+                }
+                
+                @Override
+                public TreeNode nextElement(){
+                    if (index>=count){
+                        throw new NoSuchElementException();
+                    }
+                    return (TreeNode) ring[slot(index++)];
+                }
+            };
+        }
+        
+        @Override
+        public String toString(){
+            return "BranchElement(" + getName() + ") " + getStartOffset() + "," + getEndOffset()
+                    + "\n";
+        }
+    
+    }
+    
+}
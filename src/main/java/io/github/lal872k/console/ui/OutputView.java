@@ -0,0 +1,125 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.ui.preferences.OutputComponent;
+import java.awt.Color;
+import java.awt.Font;
+import javax.swing.JComponent;
+
+/**
+ * The component inside of the <code>{@link lal.console.ui.Frame}</code>'s scroll pane that shows
+ * the output. Which one is used is picked by the
+ * <code>{@link lal.console.ui.preferences.DrawPreference#getOutputComponent()}</code>.
+ * <p>
+ * The view is always told about text after the <code>{@link lal.console.output.Scrollback}</code>
+ * it shows, so the two always hold the same lines.
+ * @author L. Arthur Lewis II
+ */
+public interface OutputView {
+    
+    /**
+     * @return the Swing component that is put in the scroll pane.
+     */
+    JComponent getComponent();
+    
+    /**
+     * @return the kind of component this is.
+     */
+    OutputComponent getType();
+    
+    /**
+     * Adds text to the end of the view.
+     * @param text text added.
+     * @param style the style of the text.
+     */
+    void append(String text, TextStyle style);
+    
+    /**
+     * Adds text and a <code>'\n'</code> to the end of the view.
+     * @param text text of the line.
+     * @param style the style of the text.
+     */
+    void appendLine(String text, TextStyle style);
+    
+    /**
+     * Removes the text after the last <code>'\n'</code>, used when a <code>'\r'</code> is
+     * printed.
+     */
+    void clearOpenLine();
+    
+    /**
+     * Replaces the text of a row with text in one style.
+     * @param row index of the line, where 0 is the oldest line in the view.
+     * @param text new text of the row, without a <code>'\n'</code>.
+     * @param style the style of the text.
+     */
+    void replaceRow(int row, String text, TextStyle style);
+    
+    /**
+     * Removes the oldest lines from the view.
+     * @param lines amount of lines removed.
+     * @return how many pixels the lines that are left moved up.
+     */
+    int removeFirst(int lines);
+    
+    /**
+     * Removes everything from the view.
+     */
+    void clear();
+    
+    /**
+     * Replaces everything in the view with the lines in the scrollback.
+     * @param scrollback lines to show.
+     */
+    void load(Scrollback scrollback);
+    
+    /**
+     * Styles the view.
+     * @param font font of the text.
+     * @param foreground default color of the text.
+     * @param background background color of the view.
+     * @param selection background color of selected text.
+     * @param selectedText color of selected text.
+     */
+    void style(Font font, Color foreground, Color background, Color selection, Color selectedText);
+    
+    /**
+     * Scrolls so a row can be seen.
+     * @param row index of the line, where 0 is the oldest line in the view.
+     */
+    void scrollToRow(int row);
+    
+    /**
+     * Highlights the places the query shows up, ignoring case. Only the rows that can be seen are
+     * looked at, and they are looked at again whenever the view is scrolled.
+     * @param query text to highlight, or <code>null</code> to remove the highlights.
+     * @param row the row of the current match, its highlights are drawn stronger. -1 if there is
+     * no current match.
+     */
+    void setHighlight(String query, int row);
+    
+}
@@ -0,0 +1,94 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import io.github.lal872k.console.TextStyle;
+import java.util.Arrays;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyleContext;
+
+/**
+ * Caches the <code>AttributeSet</code> used to insert text into a <code>JTextPane</code> for each
+ * <code>{@link lal.console.TextStyle}</code>. The attribute sets come from the default
+ * <code>StyleContext</code> so they are immutable and can be shared by every document.
+ * @author L. Arthur Lewis II
+ */
+public final class StyleAttributes {
+    
+    /**
+     * The attribute key that holds the <code>TextStyle</code> an attribute set was made from.
+     */
+    public static final Object TEXT_STYLE = new Object(){
+        @Override
+        public String toString(){
+            return "textStyle";
+        }
+    };
+    
+    private static AttributeSet[] cache = new AttributeSet[64];
+    
+    private StyleAttributes(){}
+    
+    /**
+     * @param style style to get attributes for.
+     * @return the attributes with the style's foreground and background.
+     */
+    public static synchronized AttributeSet get(TextStyle style){
+        int id = style.getId();
+        if (id>=cache.length){
+            cache = Arrays.copyOf(cache, Math.max(cache.length*2, id+1));
+        }
+        AttributeSet attributes = cache[id];
+        if (attributes==null){
+            attributes = create(style);
+            cache[id] = attributes;
+        }
+        return attributes;
+    }
+    
+    /**
+     * @param attributes attributes of some text in the output.
+     * @return the style the attributes were made from, or <code>null</code> if they weren't made
+     * by this class.
+     */
+    public static TextStyle getTextStyle(AttributeSet attributes){
+        Object style = attributes.getAttribute(TEXT_STYLE);
+        return style instanceof TextStyle ? (TextStyle) style : null;
+    }
+    
+    private static AttributeSet create(TextStyle style){
+        SimpleAttributeSet attributes = new SimpleAttributeSet();
+        if (style.getForeground()!=null){
+            StyleConstants.setForeground(attributes, style.getForeground());
+        }
+        if (style.getBackground()!=null){
+            StyleConstants.setBackground(attributes, style.getBackground());
+        }
+        attributes.addAttribute(TEXT_STYLE, style);
+        return StyleContext.getDefaultStyleContext().addAttributes(SimpleAttributeSet.EMPTY, attributes);
+    }
+    
+}
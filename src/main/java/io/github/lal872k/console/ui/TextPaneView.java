@@ -0,0 +1,351 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.SearchIndex;
+import io.github.lal872k.console.ui.preferences.OutputComponent;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import javax.swing.JComponent;
+import javax.swing.JTextPane;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.StyledDocument;
+
+/**
+ * An <code>{@link lal.console.ui.OutputView}</code> that shows the output in a
+ * <code>JTextPane</code>. Every line of output is a paragraph of an
+ * <code>{@link lal.console.ui.OutputDocument}</code>.
+ * @author L. Arthur Lewis II
+ */
+public class TextPaneView implements OutputView {
+    
+    private static final Highlighter.HighlightPainter HIGHLIGHT
+            = new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 220, 0));
+    private static final Highlighter.HighlightPainter CURRENT_HIGHLIGHT
+            = new DefaultHighlighter.DefaultHighlightPainter(new Color(255, 140, 0));
+    
+    private final JTextPane output;
+    
+    private String highlight;
+    private int highlightRow = -1;
+    private final ArrayList<Object> highlightTags;
+    private JViewport watched;
+    private final ChangeListener viewportListener;
+    
+    public TextPaneView(){
+        output = new JTextPane(new OutputDocument());
+        highlightTags = new ArrayList<>();
+        viewportListener = this::viewportMoved;
+    }
+    
+    @Override
+    public JComponent getComponent(){
+        return output;
+    }
+    
+    @Override
+    public OutputComponent getType(){
+        return OutputComponent.TEXT_PANE;
+    }
+    
+    /**
+     * adds text to the end of the output while ensuring that the placement of the caret is not
+     * changed.
+     * @param text text added.
+     * @param style the style of the text.
+     */
+    @Override
+    public void append(String text, TextStyle style){
+        // make doc from output
+        StyledDocument document = output.getStyledDocument();
+        
+        // get the position of the caret before it is changed
+        int caretPos = output.getCaretPosition();
+        
+        // add the text
+        try {
+            document.insertString(document.getLength(), text, StyleAttributes.get(style));
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+        
+        // set the position of the caret to before text was added
+        output.setCaretPosition(caretPos);
+    }
+    
+    /**
+     * the document makes elements and an event for every insert and copies the text, so adding to
+     * a text pane is never free of garbage. The line is joined here so it is still one insert.
+     * @param text text of the line.
+     * @param style the style of the text.
+     */
+    @Override
+    public void appendLine(String text, TextStyle style){
+        append(text + "\n", style);
+    }
+    
+    /**
+     * removes the text of the last paragraph, the implied <code>'\n'</code> at the end of the 
+     * document stays.
+     */
+    @Override
+    public void clearOpenLine(){
+        StyledDocument document = output.getStyledDocument();
+        Element root = document.getDefaultRootElement();
+        int start = root.getElement(root.getElementCount()-1).getStartOffset();
+        int length = document.getLength()-start;
+        if (length<=0){
+            return;
+        }
+        int caretPos = output.getCaretPosition();
+        try {
+            document.remove(start, length);
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+        output.setCaretPosition(Math.min(caretPos, document.getLength()));
+    }
+    
+    /**
+     * replaces the text of a paragraph, not including its <code>'\n'</code>, with one 
+     * <code>replace</code> on the document.
+     * @param row index of the paragraph.
+     * @param text new text of the paragraph.
+     * @param style the style of the text.
+     */
+    @Override
+    public void replaceRow(int row, String text, TextStyle style){
+        StyledDocument document = output.getStyledDocument();
+        Element root = document.getDefaultRootElement();
+        if (row<0 || row>=root.getElementCount()){
+            return;
+        }
+        Element paragraph = root.getElement(row);
+        int start = paragraph.getStartOffset();
+        int end = Math.min(paragraph.getEndOffset()-1, document.getLength());
+        int caretPos = output.getCaretPosition();
+        try {
+            ((AbstractDocument) document).replace(start, end-start, text, StyleAttributes.get(style));
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+        output.setCaretPosition(Math.min(caretPos, document.getLength()));
+    }
+    
+    /**
+     * removes the first paragraphs with one edit. The amount of characters is found from the
+     * paragraph elements so the text doesn't need to be looked at.
+     * @param lines amount of lines removed.
+     * @return how many pixels the lines that are left moved up.
+     */
+    @Override
+    public int removeFirst(int lines){
+        StyledDocument document = output.getStyledDocument();
+        Element root = document.getDefaultRootElement();
+        if (lines<=0 || root.getElementCount()==0){
+            return 0;
+        }
+        int chars = root.getElement(Math.min(lines, root.getElementCount())-1).getEndOffset();
+        chars = Math.min(chars, document.getLength());
+        int shift = 0;
+        try {
+            Rectangle firstKept = output.modelToView(chars);
+            if (firstKept!=null){
+                shift = firstKept.y;
+            }
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+        int caretPos = output.getCaretPosition();
+        try {
+            document.remove(0, chars);
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+        output.setCaretPosition(Math.max(0, caretPos-chars));
+        return shift;
+    }
+    
+    @Override
+    public void clear(){
+        StyledDocument document = output.getStyledDocument();
+        try {
+            document.remove(0, document.getLength());
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+    }
+    
+    /**
+     * replaces the document's text with every line in the scrollback. Lines in a row with the same
+     * style are inserted together.
+     * @param scrollback lines to show.
+     */
+    @Override
+    public void load(Scrollback scrollback){
+        clear();
+        StyleTable styles = StyleTable.getShared();
+        StringBuilder run = new StringBuilder();
+        // styles that didn't fit in the table are drawn with the default colors
+        TextStyle defaultStyle = styles.intern(null, null, MessageType.NORMAL);
+        TextStyle runStyle = defaultStyle;
+        synchronized (scrollback){
+            long end = scrollback.getEndLine();
+            for (long line = scrollback.getFirstLine(); line < end; line++){
+                String text = scrollback.getText(line);
+                int[] runs = scrollback.getRuns(line);
+                for (int q = 0; q < runs.length; q+=2){
+                    TextStyle style = styles.get(runs[q+1]);
+                    if (style==null){
+                        style = defaultStyle;
+                    }
+                    if (style!=runStyle){
+                        if (run.length()>0){
+                            append(run.toString(), runStyle);
+                            run.setLength(0);
+                        }
+                        runStyle = style;
+                    }
+                    int runEnd = q+2<runs.length ? runs[q+2] : text.length();
+                    run.append(text, runs[q], runEnd);
+                }
+                if (line<end-1 || !scrollback.hasOpenLine()){
+                    run.append('\n');
+                }
+            }
+        }
+        if (run.length()>0){
+            append(run.toString(), runStyle);
+        }
+    }
+    
+    @Override
+    public void style(Font font, Color foreground, Color background, Color selection,
+            Color selectedText){
+        output.setFont(font);
+        output.setEditable(false);
+        output.setBackground(background);
+        output.setSelectedTextColor(selectedText);
+        output.setSelectionColor(selection);
+    }
+    
+    @Override
+    public void scrollToRow(int row){
+        Element root = output.getStyledDocument().getDefaultRootElement();
+        if (row<0 || row>=root.getElementCount()){
+            return;
+        }
+        try {
+            Rectangle bounds = output.modelToView(root.getElement(row).getStartOffset());
+            if (bounds!=null){
+                output.scrollRectToVisible(bounds);
+            }
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+    }
+    
+    @Override
+    public void setHighlight(String query, int row){
+        highlight = query==null || query.isEmpty() ? null : query;
+        highlightRow = row;
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, output);
+        if (viewport!=watched){
+            if (watched!=null){
+                watched.removeChangeListener(viewportListener);
+            }
+            watched = viewport;
+            if (watched!=null){
+                watched.addChangeListener(viewportListener);
+            }
+        }
+        highlightVisible();
+    }
+    
+    private void viewportMoved(ChangeEvent e){
+        if (highlight!=null || !highlightTags.isEmpty()){
+            highlightVisible();
+        }
+    }
+    
+    // replaces the highlights with ones for every match in the text that can be seen
+    private void highlightVisible(){
+        Highlighter highlighter = output.getHighlighter();
+        for (Object tag : highlightTags){
+            highlighter.removeHighlight(tag);
+        }
+        highlightTags.clear();
+        Rectangle visible = output.getVisibleRect();
+        if (highlight==null || visible.isEmpty()){
+            return;
+        }
+        StyledDocument document = output.getStyledDocument();
+        int start = output.viewToModel(visible.getLocation());
+        int end = output.viewToModel(new Point(visible.x+visible.width, visible.y+visible.height));
+        Element root = document.getDefaultRootElement();
+        // whole paragraphs so matches cut by the edge of the view are found
+        start = root.getElement(root.getElementIndex(Math.max(0, start))).getStartOffset();
+        end = Math.min(document.getLength(),
+                root.getElement(root.getElementIndex(Math.max(0, end))).getEndOffset());
+        Element current = highlightRow>=0 && highlightRow<root.getElementCount()
+                ? root.getElement(highlightRow) : null;
+        try {
+            String text = document.getText(start, end-start);
+            int index = SearchIndex.indexOfIgnoreCase(text, highlight, 0);
+            while (index>=0){
+                int from = start+index;
+                boolean inCurrent = current!=null && from>=current.getStartOffset()
+                        && from<current.getEndOffset();
+                highlightTags.add(highlighter.addHighlight(from, from+highlight.length(),
+                        inCurrent ? CURRENT_HIGHLIGHT : HIGHLIGHT));
+                index = SearchIndex.indexOfIgnoreCase(text, highlight, index+highlight.length());
+            }
+        } catch (BadLocationException ex) {
+            ex.printStackTrace();
+        }
+    }
+    
+    /**
+     * @return the <code>JTextPane</code> the output is shown in.
+     */
+    public JTextPane getTextPane(){
+        return output;
+    }
+    
+}
@@ -0,0 +1,666 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui;
+
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.output.FilteredLines;
+import io.github.lal872k.console.output.Scrollback;
+import io.github.lal872k.console.output.SearchIndex;
+import io.github.lal872k.console.ui.preferences.OutputComponent;
+import java.awt.Color;
+import java.awt.Container;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.KeyStroke;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+
+/**
+ * An <code>{@link lal.console.ui.OutputView}</code> that reads its lines straight from a
+ * <code>{@link lal.console.output.Scrollback}</code> and only paints the lines that can be seen
+ * in the scroll pane. It doesn't keep anything for lines that are out of view, so paint time and
+ * memory used by the component stay the same no matter how many lines are in the scrollback.
+ * <p>
+ * Every line is one row and long lines do not wrap. Text can be selected with the mouse and
+ * copied with the menu shortcut key and C, and everything can be selected with the menu shortcut
+ * key and A.
+ * <p>
+ * When text is added only the rows that changed are repainted. With a monospaced font the view
+ * can draw its text from a <code>{@link lal.console.ui.GlyphAtlas}</code> instead of laying it
+ * out on every paint.
+ * <p>
+ * The view can show only the lines of a <code>{@link lal.console.output.FilteredLines}</code>,
+ * one row for each line the filter shows, still reading them from the scrollback.
+ * @author L. Arthur Lewis II
+ */
+public class ViewportView extends JComponent implements OutputView, Scrollable {
+    
+    /**
+     * Space between the edge of the component and the text.
+     */
+    public static final int MARGIN = 3;
+    
+    private static final Color HIGHLIGHT = new Color(255, 220, 0, 90);
+    private static final Color CURRENT_HIGHLIGHT = new Color(255, 140, 0, 150);
+    
+    private Scrollback scrollback;
+    // the lines shown, null to show every line
+    private FilteredLines filter;
+    
+    private Color selection = Color.LIGHT_GRAY;
+    private Color selectedText = Color.BLACK;
+    
+    private int lineHeight;
+    private int ascent;
+    private int charWidth;
+    
+    private final boolean useAtlas;
+    private GlyphAtlas atlas;
+    
+    // the end line of the scrollback the last time the view was told about a change
+    private long paintedEnd;
+    
+    private String highlight;
+    private long highlightLine = -1;
+    
+    // selection, the anchor is where the mouse was pressed and the caret is where it is now
+    private long anchorLine, caretLine;
+    private int anchorColumn, caretColumn;
+    
+    public ViewportView(){
+        this(false);
+    }
+    
+    /**
+     * @param glyphAtlas true to draw text from a <code>GlyphAtlas</code> when the font is 
+     * monospaced.
+     */
+    public ViewportView(boolean glyphAtlas){
+        useAtlas = glyphAtlas;
+        scrollback = new Scrollback();
+        setOpaque(true);
+        setFocusable(true);
+        setCursor(Cursor.getPredefinedCursor(Cursor.TEXT_CURSOR));
+        setupMouse();
+        setupKeys();
+        measure();
+    }
+    
+    private void setupMouse(){
+        MouseAdapter mouse = new MouseAdapter(){
+            @Override
+            public void mousePressed(MouseEvent e) {
+                requestFocusInWindow();
+                moveCaret(e.getPoint(), e.isShiftDown());
+            }
+            
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                moveCaret(e.getPoint(), true);
+                scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+            }
+        };
+        addMouseListener(mouse);
+        addMouseMotionListener(mouse);
+    }
+    
+    private void setupKeys(){
+        int shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
+        getInputMap(WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_C, shortcut), "copy");
+        getInputMap(WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_A, shortcut), "select-all");
+        getActionMap().put("copy", new AbstractAction(){
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                copy();
+            }
+        });
+        getActionMap().put("select-all", new AbstractAction(){
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                selectAll();
+            }
+        });
+    }
+    
+    private void measure(){
+        Font font = getFont();
+        if (font==null){
+            lineHeight = 16;
+            ascent = 12;
+            charWidth = 8;
+            atlas = null;
+            return;
+        }
+        FontMetrics metrics = getFontMetrics(font);
+        lineHeight = Math.max(1, metrics.getHeight());
+        ascent = metrics.getAscent();
+        charWidth = Math.max(1, metrics.charWidth('m'));
+        atlas = useAtlas ? GlyphAtlas.getShared(font, metrics) : null;
+    }
+    
+    @Override
+    public void setFont(Font font){
+        super.setFont(font);
+        measure();
+        revalidate();
+        repaint();
+    }
+    
+    @Override
+    public JComponent getComponent(){
+        return this;
+    }
+    
+    @Override
+    public OutputComponent getType(){
+        return useAtlas ? OutputComponent.GLYPH_ATLAS : OutputComponent.VIEWPORT;
+    }
+    
+    /**
+     * the text is already in the scrollback so this only lets Swing know that the size has
+     * changed and repaints the rows from the last one that had text before to the new last row.
+     * @param text text added.
+     * @param style the style of the text.
+     */
+    @Override
+    public void append(String text, TextStyle style){
+        if (filter!=null){
+            filterChanged();
+            return;
+        }
+        long first, end;
+        synchronized (scrollback){
+            first = scrollback.getFirstLine();
+            end = scrollback.getEndLine();
+        }
+        long from = Math.max(first, Math.min(paintedEnd-1, end-1));
+        if (end!=paintedEnd){
+            revalidate();
+        }
+        paintedEnd = end;
+        int row = (int) (from-first);
+        int rows = (int) (end-from);
+        repaint(0, MARGIN+row*lineHeight, getWidth(), Math.max(1, rows)*lineHeight);
+    }
+    
+    /**
+     * the text is already in the scrollback, the same as
+     * <code>{@link #append(String, TextStyle)}</code>.
+     * @param text text of the line.
+     * @param style the style of the text.
+     */
+    @Override
+    public void appendLine(String text, TextStyle style){
+        append(text, style);
+    }
+    
+    @Override
+    public void clearOpenLine(){
+        if (filter!=null){
+            return;
+        }
+        repaintRow((int) (scrollback.getEndLine()-scrollback.getFirstLine()));
+    }
+    
+    @Override
+    public void replaceRow(int row, String text, TextStyle style){
+        if (text.length()*charWidth+MARGIN*2>getWidth()){
+            revalidate();
+        }
+        if (filter!=null){
+            repaint();
+            return;
+        }
+        repaintRow(row);
+    }
+    
+    /**
+     * Shows only the lines of a filter, or every line again.
+     * @param filter the lines to show, <code>null</code> to show every line.
+     */
+    public void setFilter(FilteredLines filter){
+        this.filter = filter;
+        clear();
+    }
+    
+    /**
+     * @return the lines shown, <code>null</code> if every line is shown.
+     */
+    public FilteredLines getFilter(){
+        return filter;
+    }
+    
+    /**
+     * Lets Swing know lines were added to or removed from the filter shown.
+     */
+    public void filterChanged(){
+        revalidate();
+        repaint();
+    }
+    
+    // the amount of rows, must hold the scrollback's lock
+    private int rowCount(){
+        return filter==null ? scrollback.getLineCount() : filter.size();
+    }
+    
+    // the line shown on a row, must hold the scrollback's lock
+    private long lineAt(int row){
+        return filter==null ? scrollback.getFirstLine()+row : filter.getLine(row);
+    }
+    
+    private void repaintRow(int row){
+        repaint(0, MARGIN+row*lineHeight, getWidth(), lineHeight);
+    }
+    
+    @Override
+    public int removeFirst(int lines){
+        if (filter!=null){
+            // how many of the lines were shown isn't known here
+            filterChanged();
+            return 0;
+        }
+        paintedEnd = scrollback.getEndLine();
+        revalidate();
+        repaint();
+        return lines*lineHeight;
+    }
+    
+    @Override
+    public void clear(){
+        anchorLine = caretLine = scrollback.getFirstLine();
+        anchorColumn = caretColumn = 0;
+        paintedEnd = scrollback.getEndLine();
+        revalidate();
+        repaint();
+    }
+    
+    @Override
+    public void load(Scrollback scrollback){
+        this.scrollback = scrollback;
+        clear();
+    }
+    
+    @Override
+    public void style(Font font, Color foreground, Color background, Color selection,
+            Color selectedText){
+        setFont(font);
+        setForeground(foreground);
+        setBackground(background);
+        this.selection = selection;
+        this.selectedText = selectedText;
+        repaint();
+    }
+    
+    @Override
+    public void scrollToRow(int row){
+        scrollRectToVisible(new Rectangle(0, MARGIN+row*lineHeight, 1, lineHeight));
+    }
+    
+    @Override
+    public void setHighlight(String query, int row){
+        highlight = query==null || query.isEmpty() ? null : query;
+        highlightLine = row<0 ? -1 : scrollback.getFirstLine()+row;
+        repaint();
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g){
+        Rectangle clip = g.getClipBounds();
+        if (clip==null){
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.setFont(getFont());
+        FontMetrics metrics = g.getFontMetrics();
+        GlyphAtlas cells = atlas!=null && atlas.canDraw(g) ? atlas : null;
+        synchronized (scrollback){
+            int count = rowCount();
+            int startRow = Math.max(0, (clip.y-MARGIN)/lineHeight);
+            int endRow = Math.min(count, (clip.y+clip.height-MARGIN)/lineHeight+1);
+            for (int row = startRow; row < endRow; row++){
+                long line = lineAt(row);
+                if (!scrollback.contains(line)){
+                    // the filter hasn't been trimmed yet
+                    continue;
+                }
+                if (cells!=null){
+                    paintCells(g, cells, row, line);
+                } else {
+                    paintLine(g, metrics, row, line);
+                }
+                if (highlight!=null){
+                    paintHighlights(g, metrics, cells!=null, row, line);
+                }
+            }
+        }
+    }
+    
+    // draws a line by copying glyphs from the atlas, every character is one cell of the grid
+    private void paintCells(Graphics g, GlyphAtlas cells, int row, long line){
+        String text = scrollback.getText(line);
+        int[] runs = scrollback.getRuns(line);
+        int y = MARGIN+row*lineHeight;
+        StyleTable styles = StyleTable.getShared();
+        for (int q = 0; q < runs.length; q+=2){
+            int end = q+2<runs.length ? runs[q+2] : text.length();
+            TextStyle style = styles.get(runs[q+1]);
+            Color back = style==null || style.getBackground()==null
+                    ? getBackground() : style.getBackground();
+            Color fore = style==null || style.getForeground()==null
+                    ? getForeground() : style.getForeground();
+            cells.drawRun(g, text, runs[q], end, MARGIN+runs[q]*charWidth, y, fore, back);
+        }
+        if (!hasSelection()){
+            return;
+        }
+        int[] columns = selectedColumns(text, line);
+        if (columns!=null){
+            cells.drawRun(g, text, columns[0], columns[1], MARGIN+columns[0]*charWidth, y,
+                    selectedText, selection);
+            if (columns[2]==1){
+                g.setColor(selection);
+                g.fillRect(MARGIN+columns[1]*charWidth, y, charWidth, lineHeight);
+            }
+        }
+    }
+    
+    private void paintLine(Graphics g, FontMetrics metrics, int row, long line){
+        String text = scrollback.getText(line);
+        int[] runs = scrollback.getRuns(line);
+        int y = MARGIN+row*lineHeight;
+        int baseline = y+ascent;
+        int x = MARGIN;
+        StyleTable styles = StyleTable.getShared();
+        for (int q = 0; q < runs.length; q+=2){
+            int end = q+2<runs.length ? runs[q+2] : text.length();
+            String part = text.substring(runs[q], end);
+            int width = metrics.stringWidth(part);
+            TextStyle style = styles.get(runs[q+1]);
+            Color back = style==null ? null : style.getBackground();
+            if (back!=null && !back.equals(getBackground())){
+                g.setColor(back);
+                g.fillRect(x, y, width, lineHeight);
+            }
+            Color fore = style==null ? null : style.getForeground();
+            g.setColor(fore==null ? getForeground() : fore);
+            g.drawString(part, x, baseline);
+            x += width;
+        }
+        paintSelection(g, metrics, text, line, y, baseline);
+    }
+    
+    private void paintSelection(Graphics g, FontMetrics metrics, String text, long line, int y,
+            int baseline){
+        if (!hasSelection()){
+            return;
+        }
+        int[] columns = selectedColumns(text, line);
+        if (columns==null){
+            return;
+        }
+        int from = MARGIN+metrics.stringWidth(text.substring(0, columns[0]));
+        int to = MARGIN+metrics.stringWidth(text.substring(0, columns[1]));
+        if (columns[2]==1){
+            // show that the '\n' is selected too
+            to += charWidth;
+        }
+        if (to<=from){
+            return;
+        }
+        g.setColor(selection);
+        g.fillRect(from, y, to-from, lineHeight);
+        Shape clip = g.getClip();
+        g.clipRect(from, y, to-from, lineHeight);
+        g.setColor(selectedText);
+        g.drawString(text, MARGIN, baseline);
+        g.setClip(clip);
+    }
+    
+    // draws see-through boxes over every match of the highlight on the line
+    private void paintHighlights(Graphics g, FontMetrics metrics, boolean cells, int row,
+            long line){
+        String text = scrollback.getText(line);
+        int y = MARGIN+row*lineHeight;
+        g.setColor(line==highlightLine ? CURRENT_HIGHLIGHT : HIGHLIGHT);
+        int index = SearchIndex.indexOfIgnoreCase(text, highlight, 0);
+        while (index>=0){
+            int end = index+highlight.length();
+            int from = cells ? index*charWidth : metrics.stringWidth(text.substring(0, index));
+            int to = cells ? end*charWidth : metrics.stringWidth(text.substring(0, end));
+            g.fillRect(MARGIN+from, y, to-from, lineHeight);
+            index = SearchIndex.indexOfIgnoreCase(text, highlight, end);
+        }
+    }
+    
+    // the first and last selected column of the line and 1 if its '\n' is selected, or null if
+    // none of the line is selected
+    private int[] selectedColumns(String text, long line){
+        boolean anchorFirst = compare(anchorLine, anchorColumn, caretLine, caretColumn)<0;
+        long startLine = anchorFirst ? anchorLine : caretLine;
+        long endLine = anchorFirst ? caretLine : anchorLine;
+        if (line<startLine || line>endLine){
+            return null;
+        }
+        int startColumn = line==startLine ? (anchorFirst ? anchorColumn : caretColumn) : 0;
+        int endColumn = line==endLine ? (anchorFirst ? caretColumn : anchorColumn) : text.length();
+        startColumn = Math.min(startColumn, text.length());
+        endColumn = Math.min(endColumn, text.length());
+        return new int[]{startColumn, endColumn, line!=endLine ? 1 : 0};
+    }
+    
+    private void moveCaret(Point point, boolean extend){
+        synchronized (scrollback){
+            int count = rowCount();
+            if (count==0){
+                return;
+            }
+            int row = Math.max(0, Math.min(count-1, (point.y-MARGIN)/lineHeight));
+            caretLine = lineAt(row);
+            if (!scrollback.contains(caretLine)){
+                return;
+            }
+            caretColumn = columnAt(scrollback.getText(caretLine), point.x-MARGIN);
+        }
+        if (!extend){
+            anchorLine = caretLine;
+            anchorColumn = caretColumn;
+        }
+        repaint();
+    }
+    
+    private int columnAt(String text, int x){
+        FontMetrics metrics = getFontMetrics(getFont());
+        int width = 0;
+        for (int q = 0; q < text.length(); q++){
+            int next = width+metrics.charWidth(text.charAt(q));
+            if (x<(width+next)/2){
+                return q;
+            }
+            width = next;
+        }
+        return text.length();
+    }
+    
+    private static int compare(long lineA, int columnA, long lineB, int columnB){
+        if (lineA!=lineB){
+            return lineA<lineB ? -1 : 1;
+        }
+        return Integer.compare(columnA, columnB);
+    }
+    
+    /**
+     * @return true if any text is selected.
+     */
+    public boolean hasSelection(){
+        return anchorLine!=caretLine || anchorColumn!=caretColumn;
+    }
+    
+    /**
+     * Selects every line in the scrollback, or every line shown by the filter.
+     */
+    public void selectAll(){
+        synchronized (scrollback){
+            int count = rowCount();
+            if (filter!=null && count==0){
+                return;
+            }
+            anchorLine = filter==null ? scrollback.getFirstLine() : lineAt(0);
+            anchorColumn = 0;
+            caretLine = filter==null ? Math.max(anchorLine, scrollback.getEndLine()-1)
+                    : lineAt(count-1);
+            caretColumn = scrollback.contains(caretLine)
+                    ? scrollback.getText(caretLine).length() : 0;
+        }
+        repaint();
+    }
+    
+    /**
+     * @return the selected text, lines are separated by <code>'\n'</code>.
+     */
+    public String getSelectedText(){
+        boolean anchorFirst = compare(anchorLine, anchorColumn, caretLine, caretColumn)<0;
+        long startLine = anchorFirst ? anchorLine : caretLine;
+        long endLine = anchorFirst ? caretLine : anchorLine;
+        int startColumn = anchorFirst ? anchorColumn : caretColumn;
+        int endColumn = anchorFirst ? caretColumn : anchorColumn;
+        StringBuilder text = new StringBuilder();
+        synchronized (scrollback){
+            long first = Math.max(startLine, scrollback.getFirstLine());
+            long last = Math.min(endLine, scrollback.getEndLine()-1);
+            for (long line = first; line <= last; line++){
+                if (filter!=null && !filter.contains(line)){
+                    continue;
+                }
+                String current = scrollback.getText(line);
+                int from = line==startLine ? Math.min(startColumn, current.length()) : 0;
+                int to = line==endLine ? Math.min(endColumn, current.length()) : current.length();
+                text.append(current, from, Math.max(from, to));
+                if (line!=endLine){
+                    text.append('\n');
+                }
+            }
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Copies the selected text to the system clipboard.
+     */
+    public void copy(){
+        if (hasSelection()){
+            StringSelection contents = new StringSelection(getSelectedText());
+            Toolkit.getDefaultToolkit().getSystemClipboard().setContents(contents, contents);
+        }
+    }
+    
+    /**
+     * @param selection the background color of selected text.
+     */
+    public void setSelectionColor(Color selection){
+        this.selection = selection;
+        repaint();
+    }
+    
+    /**
+     * @param selectedText the color of selected text.
+     */
+    public void setSelectedTextColor(Color selectedText){
+        this.selectedText = selectedText;
+        repaint();
+    }
+    
+    /**
+     * @return the height of every row.
+     */
+    public int getLineHeight(){
+        return lineHeight;
+    }
+    
+    /**
+     * @return the scrollback the lines are read from.
+     */
+    public Scrollback getScrollback(){
+        return scrollback;
+    }
+    
+    @Override
+    public Dimension getPreferredSize(){
+        if (isPreferredSizeSet()){
+            return super.getPreferredSize();
+        }
+        long width = MARGIN*2L+(long) scrollback.getLongestLine()*charWidth;
+        long height = MARGIN*2L+(long) (filter==null ? scrollback.getLineCount() 
+                : filter.size())*lineHeight;
+        return new Dimension((int) Math.min(Integer.MAX_VALUE, width),
+                (int) Math.min(Integer.MAX_VALUE, height));
+    }
+    
+    @Override
+    public Dimension getPreferredScrollableViewportSize(){
+        return getPreferredSize();
+    }
+    
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction){
+        return orientation==SwingConstants.VERTICAL ? lineHeight : charWidth;
+    }
+    
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction){
+        if (orientation==SwingConstants.VERTICAL){
+            return Math.max(lineHeight, visibleRect.height-lineHeight);
+        }
+        return Math.max(charWidth, visibleRect.width-charWidth);
+    }
+    
+    @Override
+    public boolean getScrollableTracksViewportWidth(){
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getWidth()>getPreferredSize().width;
+    }
+    
+    @Override
+    public boolean getScrollableTracksViewportHeight(){
+        Container parent = getParent();
+        return parent instanceof JViewport && parent.getHeight()>getPreferredSize().height;
+    }
+    
+}
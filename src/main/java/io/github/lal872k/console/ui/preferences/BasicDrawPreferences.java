@@ -25,6 +25,8 @@ package io.github.lal872k.console.ui.preferences;
 
 import io.github.lal872k.console.Message;
 import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
 import io.github.lal872k.console.ui.ColorScrollBarUI;
 import io.github.lal872k.console.ui.Frame;
 import java.awt.Color;
@@ -34,6 +36,9 @@ import java.awt.Font;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JPanel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * The <code>BasicDrawPreferences</code> let's you customize the main colors and fonts of the 
@@ -43,11 +48,16 @@ import javax.swing.JPanel;
  */
 public class BasicDrawPreferences implements DrawPreference {
     
+    public static final Color WARNING_TEXT_COLOR = new Color(230, 160, 0);
+    
     private String sendText;
     
     private Font font;
     private Color textColor;
     private Color errorTextColor;
+    private Color warningTextColor = WARNING_TEXT_COLOR;
+    // null to draw debug text in the text color faded into the background
+    private Color debugTextColor;
     
     private Color background;
     private Color borders;
@@ -57,10 +67,16 @@ public class BasicDrawPreferences implements DrawPreference {
     private Color scrollThumbSlide;
     
     private String windowText;
-    private ImageIcon windowIcon;
+    // may still be loading in the background
+    private Future<ImageIcon> windowIcon;
     
     private Color selectedAC;
     
+    private OutputComponent outputComponent = OutputComponent.TEXT_PANE;
+    
+    // default style for each MessageType, made again whenever a text color changes
+    private volatile TextStyle[] styles;
+    
     public BasicDrawPreferences(Font font, String sendText, Color textColor, Color errorTextColor, 
             Color background, Color borders, Color scrollTrack, Color scrollThumb, 
             Color scrollThumbSlide, String windowTitle, ImageIcon windowIcon, Color selectedAC){
@@ -87,15 +103,22 @@ public class BasicDrawPreferences implements DrawPreference {
         frame.getSendButton().setBackground(getBackground());
         frame.getSendButton().setForeground(getTextColor());
         
-        frame.getTextPane().setFont(getFont());
-        frame.getTextPane().setEditable(false);
-        frame.getTextPane().setBackground(getBackground());
-        frame.getTextPane().setSelectedTextColor(getBackground());
-        frame.getTextPane().setSelectionColor(getTextColor());
+        frame.getFilterBox().setFont(getFont());
+        frame.getFilterBox().setBackground(getBackground());
+        frame.getFilterBox().setForeground(getTextColor());
+        
+        frame.getChannelTabs().setFont(getFont());
+        frame.getChannelTabs().setBackground(getBackground());
+        frame.getChannelTabs().setForeground(getTextColor());
+        
+        frame.getOutputView().style(getFont(), getTextColor(), getBackground(), getTextColor(), 
+                getBackground());
         
         frame.getScroll().setBorder(null);
-        frame.getScroll().getVerticalScrollBar().setUI(new ColorScrollBarUI(getScrollThumb(), 
-                getScrollThumbSlide(), getScrollTrack(), getBackground(), 5));
+        ColorScrollBarUI scrollUI = new ColorScrollBarUI(getScrollThumb(), getScrollThumbSlide(), 
+                getScrollTrack(), getBackground(), 5);
+        scrollUI.setOverview(frame, getErrorColor(), getTextColor());
+        frame.getScroll().getVerticalScrollBar().setUI(scrollUI);
         
         frame.getInputField().setFont(getFont());
         frame.getInputField().setBackground(getBackground());
@@ -111,7 +134,10 @@ public class BasicDrawPreferences implements DrawPreference {
         frame.getAutoComplete().setSelectedBackground(getSelectedAutoComplete());
         
         frame.getFrame().setTitle(windowText);
-        frame.getFrame().setIconImage(windowIcon.getImage());
+        ImageIcon icon = getWindowIcon();
+        if (icon!=null){
+            frame.getFrame().setIconImage(icon.getImage());
+        }
         
         Container main = frame.getMainContainer();
         for (Component comp : main.getComponents()){
@@ -122,18 +148,33 @@ public class BasicDrawPreferences implements DrawPreference {
     
     @Override
     public Message styleText(String text, MessageType type){
-        Color back = null, fore = null;
-        if (type.equals(MessageType.NORMAL)){
-            back =(background);
-            fore = (textColor);
-        } else if (type.equals(MessageType.ERROR)){
-            fore = (errorTextColor);
-            back = (background);
+        Color fore = textColor;
+        if (type.equals(MessageType.ERROR)){
+            fore = errorTextColor;
+        } else if (type.equals(MessageType.WARN)){
+            fore = warningTextColor;
+        } else if (type.equals(MessageType.TRACE) || type.equals(MessageType.DEBUG)){
+            fore = getDebugColor();
         }
-        Message msg = new Message(text, type, fore, back);
+        Message msg = new Message(text, type, fore, background);
         return msg;
     }
     
+    @Override
+    public TextStyle getStyle(MessageType type){
+        TextStyle[] current = styles;
+        if (current==null){
+            current = new TextStyle[MessageType.values().length];
+            for (MessageType each : MessageType.values()){
+                Message msg = styleText("", each);
+                current[each.ordinal()] = StyleTable.getShared().intern(msg.getTextColor(), 
+                        msg.getBackground(), each);
+            }
+            styles = current;
+        }
+        return current[type.ordinal()];
+    }
+    
     @Override
     public boolean isValid(){
         if (sendText==null){
@@ -169,6 +210,9 @@ public class BasicDrawPreferences implements DrawPreference {
         if (windowIcon==null){
             return false;
         }
+        if (outputComponent==null){
+            return false;
+        }
         return true;
     }
     
@@ -194,6 +238,7 @@ public class BasicDrawPreferences implements DrawPreference {
      */
     public final void setTextColor(Color color){
         this.textColor = color;
+        styles = null;
     }
     
     /**
@@ -202,6 +247,27 @@ public class BasicDrawPreferences implements DrawPreference {
      */
     public final void setErrorTextColor(Color errorColor){
         this.errorTextColor = errorColor;
+        styles = null;
+    }
+    
+    /**
+     * The foreground color of warnings in the output.
+     * @param warningColor warningColor value.
+     */
+    public final void setWarningTextColor(Color warningColor){
+        this.warningTextColor = warningColor;
+        styles = null;
+    }
+    
+    /**
+     * The foreground color of <code>TRACE</code> and <code>DEBUG</code> text in the output. When 
+     * this is <code>null</code>, the default, the text color faded halfway into the background is 
+     * used.
+     * @param debugColor debugColor value.
+     */
+    public final void setDebugTextColor(Color debugColor){
+        this.debugTextColor = debugColor;
+        styles = null;
     }
     
     /**
@@ -210,6 +276,7 @@ public class BasicDrawPreferences implements DrawPreference {
      */
     public final void setBackground(Color background){
         this.background = background;
+        styles = null;
     }
     
     /**
@@ -257,6 +324,15 @@ public class BasicDrawPreferences implements DrawPreference {
      * @param windowIcon windowIcon value.
      */
     public final void setWindowIcon(ImageIcon windowIcon){
+        this.windowIcon = windowIcon==null ? null : CompletableFuture.completedFuture(windowIcon);
+    }
+    
+    /**
+     * The Icon for the <code>JFrame</code>, while it is still being loaded in the background. 
+     * <code>{@link #getWindowIcon()}</code> waits for it to finish.
+     * @param windowIcon windowIcon value.
+     */
+    public final void setWindowIcon(Future<ImageIcon> windowIcon){
         this.windowIcon = windowIcon;
     }
     
@@ -269,6 +345,14 @@ public class BasicDrawPreferences implements DrawPreference {
         this.selectedAC = selectedAC;
     }
     
+    /**
+     * The kind of component the output is shown in.
+     * @param outputComponent outputComponent value.
+     */
+    public final void setOutputComponent(OutputComponent outputComponent){
+        this.outputComponent = outputComponent;
+    }
+    
     /**
      * The text on <code>sendButton</code> from the <code>{@link lal.console.ui.Frame}</code>.
      * @return send
@@ -301,6 +385,30 @@ public class BasicDrawPreferences implements DrawPreference {
         return errorTextColor;
     }
     
+    /**
+     * The foreground color of warnings in the output.
+     * @return warningColor value.
+     */
+    public final Color getWarningColor(){
+        return warningTextColor;
+    }
+    
+    /**
+     * The foreground color of <code>TRACE</code> and <code>DEBUG</code> text in the output.
+     * @return debugColor value, or the text color faded into the background if it isn't set.
+     */
+    public final Color getDebugColor(){
+        if (debugTextColor!=null){
+            return debugTextColor;
+        }
+        if (textColor==null || background==null){
+            return textColor;
+        }
+        return new Color((textColor.getRed()+background.getRed())/2, 
+                (textColor.getGreen()+background.getGreen())/2, 
+                (textColor.getBlue()+background.getBlue())/2);
+    }
+    
     /**
      * The background color of all the components and the text in the output (<code>JTextPane</code>).
      * @return background value.
@@ -350,11 +458,21 @@ public class BasicDrawPreferences implements DrawPreference {
     }
     
     /**
-     * The Icon for the <code>JFrame</code>.
-     * @return windowIcon value.
+     * The Icon for the <code>JFrame</code>. If it is still being loaded this waits for it.
+     * @return windowIcon value, <code>null</code> if it couldn't be loaded.
      */
     public final ImageIcon getWindowIcon(){
-        return windowIcon;
+        if (windowIcon==null){
+            return null;
+        }
+        try {
+            return windowIcon.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            ex.printStackTrace();
+        }
+        return null;
     }
     
     /**
@@ -366,12 +484,22 @@ public class BasicDrawPreferences implements DrawPreference {
         return selectedAC;
     }
     
+    /**
+     * The kind of component the output is shown in.
+     * @return outputComponent value.
+     */
+    @Override
+    public final OutputComponent getOutputComponent(){
+        return outputComponent;
+    }
+    
     @Override
     public String toString(){
         return "sendText="+sendText+",font="+font+",textColor="+textColor+",errorTextColor="
                 +errorTextColor+",background="+background+",borders="+borders+",scrollTrack="
                 +scrollTrack+",scrollThumb="+scrollThumb+",scrollThumbSlide="+scrollThumbSlide
-                +",windowTitle="+windowText+",windowIcon="+windowIcon+",selectedAC="+selectedAC;
+                +",windowTitle="+windowText+",windowIcon="+windowIcon+",selectedAC="+selectedAC
+                +",outputComponent="+outputComponent;
     }
     
 }
@@ -26,6 +26,8 @@ package io.github.lal872k.console.ui.preferences;
 import io.github.lal872k.console.Console;
 import java.awt.Color;
 import java.awt.Font;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import javax.swing.ImageIcon;
 
 /**
@@ -47,12 +49,27 @@ public class DefaultDrawPreferences extends BasicDrawPreferences{
     public static final Color SCROLL_THUMB_SLIDE = Color.WHITE;
     public static final String WINDOW_TITLE = "Console";
     public static final Color SELECTED_AUTO_COMPLETED = Color.GRAY;
-    public static final ImageIcon WINDOW_ICON = 
-            new ImageIcon(Console.class.getResource("/icon.png"));;
+    public static final String WINDOW_ICON_PATH = "/icon.png";
+    
+    private static Future<ImageIcon> windowIcon;
     
     public DefaultDrawPreferences(){
         super(FONT, SEND_TEXT, TEXT_COLOR, ERROR_TEXT_COLOR, BACKGROUND, BORDERS, SCROLL_TRACK, 
-                SCROLL_THUMB, SCROLL_THUMB_SLIDE, WINDOW_TITLE, WINDOW_ICON, SELECTED_AUTO_COMPLETED);
+                SCROLL_THUMB, SCROLL_THUMB_SLIDE, WINDOW_TITLE, (ImageIcon) null, SELECTED_AUTO_COMPLETED);
+        setWindowIcon(loadWindowIcon());
+    }
+    
+    /**
+     * The window icon is loaded on a background thread the first time this is called, so making 
+     * a console doesn't wait for it. Every <code>DefaultDrawPreferences</code> shares it.
+     * @return the icon being loaded.
+     */
+    public static synchronized Future<ImageIcon> loadWindowIcon(){
+        if (windowIcon==null){
+            windowIcon = CompletableFuture.supplyAsync(
+                    () -> new ImageIcon(Console.class.getResource(WINDOW_ICON_PATH)));
+        }
+        return windowIcon;
     }
     
 }
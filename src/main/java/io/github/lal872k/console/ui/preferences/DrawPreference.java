@@ -25,6 +25,8 @@ package io.github.lal872k.console.ui.preferences;
 
 import io.github.lal872k.console.Message;
 import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
 import io.github.lal872k.console.ui.Frame;
 
 
@@ -53,6 +55,31 @@ public interface DrawPreference {
      */
     Message styleText(String text, MessageType type);
     
+    /**
+     * Gets the default style for a type of message. This is what the 
+     * <code>{@link lal.console.Console}</code> uses when printing so it doesn't have to make a 
+     * <code>Message</code> just to find the default colors. By default this interns the colors 
+     * from {@link #styleText(String, MessageType)} in the shared 
+     * <code>{@link lal.console.StyleTable}</code>; implementations should cache the result.
+     * @param type the type of message.
+     * @return the default style for that type of message.
+     */
+    default TextStyle getStyle(MessageType type){
+        Message msg = styleText("", type);
+        return StyleTable.getShared().intern(msg.getTextColor(), msg.getBackground(), type);
+    }
+    
+    /**
+     * The kind of component the output is shown in. When this changes the 
+     * <code>{@link lal.console.ui.Frame}</code> swaps its component the next time it is styled, 
+     * and keeps all of the output. By default this is 
+     * <code>{@link lal.console.ui.preferences.OutputComponent#TEXT_PANE}</code>.
+     * @return the kind of output component.
+     */
+    default OutputComponent getOutputComponent(){
+        return OutputComponent.TEXT_PANE;
+    }
+    
     /**
      * Checks to see of this <code>{@link lal.console.ui.preferences.DrawPreference}</code> 
      * is valid, and that non of the values being 
@@ -0,0 +1,145 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui.preferences;
+
+import io.github.lal872k.console.Message;
+import io.github.lal872k.console.MessageType;
+import io.github.lal872k.console.StyleTable;
+import io.github.lal872k.console.TextStyle;
+import io.github.lal872k.console.ui.Frame;
+import java.awt.Color;
+
+/**
+ * The <code>DrawPreference</code> used by a headless <code>{@link lal.console.Console}</code>.
+ * It only has text colors, there is no window to style and it never loads any
+ * <code>Swing</code> classes. A <code>null</code> color means the terminal's own color, which is
+ * the default for normal text and the background, so only text printed in other colors is sent
+ * with color codes.
+ * @author L. Arthur Lewis II
+ */
+public class HeadlessDrawPreferences implements DrawPreference {
+    
+    public static final Color ERROR_TEXT_COLOR = Color.RED;
+    public static final Color WARNING_TEXT_COLOR = Color.YELLOW;
+    public static final Color DEBUG_TEXT_COLOR = Color.GRAY;
+    
+    private Color textColor;
+    private Color errorTextColor = ERROR_TEXT_COLOR;
+    private Color warningTextColor = WARNING_TEXT_COLOR;
+    private Color debugTextColor = DEBUG_TEXT_COLOR;
+    private Color background;
+    
+    // default style for each MessageType, made again whenever a color changes
+    private volatile TextStyle[] styles;
+    
+    /**
+     * There is no window, nothing is styled.
+     * @param frame not used.
+     */
+    @Override
+    public void styleConsole(Frame frame) {}
+    
+    @Override
+    public Message styleText(String text, MessageType type){
+        Color fore = textColor;
+        if (type.equals(MessageType.ERROR)){
+            fore = errorTextColor;
+        } else if (type.equals(MessageType.WARN)){
+            fore = warningTextColor;
+        } else if (type.equals(MessageType.TRACE) || type.equals(MessageType.DEBUG)){
+            fore = debugTextColor;
+        }
+        return new Message(text, type, fore, background);
+    }
+    
+    @Override
+    public TextStyle getStyle(MessageType type){
+        TextStyle[] current = styles;
+        if (current==null){
+            current = new TextStyle[MessageType.values().length];
+            for (MessageType each : MessageType.values()){
+                Message msg = styleText("", each);
+                current[each.ordinal()] = StyleTable.getShared().intern(msg.getTextColor(),
+                        msg.getBackground(), each);
+            }
+            styles = current;
+        }
+        return current[type.ordinal()];
+    }
+    
+    /**
+     * Every color can be <code>null</code>, so this is always valid.
+     * @return true.
+     */
+    @Override
+    public boolean isValid(){
+        return true;
+    }
+    
+    public final void setTextColor(Color color){
+        this.textColor = color;
+        styles = null;
+    }
+    
+    public final void setErrorTextColor(Color errorColor){
+        this.errorTextColor = errorColor;
+        styles = null;
+    }
+    
+    public final void setWarningTextColor(Color warningColor){
+        this.warningTextColor = warningColor;
+        styles = null;
+    }
+    
+    public final void setDebugTextColor(Color debugColor){
+        this.debugTextColor = debugColor;
+        styles = null;
+    }
+    
+    public final void setBackground(Color background){
+        this.background = background;
+        styles = null;
+    }
+    
+    public final Color getTextColor(){
+        return textColor;
+    }
+    
+    public final Color getErrorColor(){
+        return errorTextColor;
+    }
+    
+    public final Color getWarningColor(){
+        return warningTextColor;
+    }
+    
+    public final Color getDebugColor(){
+        return debugTextColor;
+    }
+    
+    public final Color getBackground(){
+        return background;
+    }
+    
+}
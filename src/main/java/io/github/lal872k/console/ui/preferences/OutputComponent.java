@@ -0,0 +1,50 @@
+/* 
+ * The MIT License
+ *
+ * Copyright 2016 L. Arthur Lewis II.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package io.github.lal872k.console.ui.preferences;
+
+/**
+ * The kind of component a <code>{@link lal.console.ui.Frame}</code> shows its output with.
+ * @author L. Arthur Lewis II
+ */
+public enum OutputComponent {
+    /**
+     * A <code>JTextPane</code>. Long lines wrap and the text can be used like any Swing document,
+     * but memory and layout cost grow with every line kept. This is the default.
+     */
+    TEXT_PANE,
+    /**
+     * A component that only lays out and paints the lines that can be seen, reading them straight
+     * from the console's <code>{@link lal.console.output.Scrollback}</code>. Paint time stays the
+     * same no matter how many lines are kept. Long lines do not wrap.
+     */
+    VIEWPORT,
+    /**
+     * The same component as <code>VIEWPORT</code>, but with a monospaced font the text is drawn by
+     * copying glyphs from a <code>{@link lal.console.ui.GlyphAtlas}</code> instead of being laid
+     * out by Swing on every paint. Other fonts are drawn the same way <code>VIEWPORT</code> draws
+     * them.
+     */
+    GLYPH_ATLAS;
+    
+}